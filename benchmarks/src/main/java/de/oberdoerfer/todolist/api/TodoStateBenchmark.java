@@ -0,0 +1,37 @@
+package de.oberdoerfer.todolist.api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of the state parameter of GET /todos.
+ * <p>
+ * The state enum is package-private, so this benchmark lives in the package of the controller. Run with
+ * {@code java -jar target/benchmarks.jar TodoStateBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoStateBenchmark {
+
+    @Param({"unfinished", "all", "unknown"})
+    public String state;
+
+    private String name;
+
+    @Setup
+    public void setUp() {
+        // A copy, as request parameters are never the interned constants
+        this.name = new String(this.state);
+    }
+
+    @Benchmark
+    public TodosApiController.TodoState getEnum() {
+        return TodosApiController.TodoState.getEnum(this.name);
+    }
+
+}
@@ -0,0 +1,82 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the todo insert throughput of looping over POST /todos with POST /todos:batch.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar BatchCreateBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchCreateBenchmark {
+
+    private static final int TODOS = 1000;
+
+    private ConfigurableApplicationContext context;
+
+    private RestTemplate restTemplate;
+
+    private String url;
+
+    private List<HttpEntity<String>> todos;
+
+    private HttpEntity<String> batch;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkApplication.start();
+        this.restTemplate = new RestTemplate();
+        this.url = BenchmarkApplication.url(this.context);
+
+        // Serialize the requests up front to measure the server only
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        List<String> jsons = IntStream.range(0, TODOS).mapToObj(BenchmarkApplication::todoJson).collect(Collectors.toList());
+        this.todos = new ArrayList<>();
+        for (String json : jsons) {
+            this.todos.add(new HttpEntity<>(json, headers));
+        }
+        this.batch = new HttpEntity<>("[" + String.join(",", jsons) + "]", headers);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        BenchmarkApplication.clear(this.context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TODOS)
+    public void createTodo() {
+        for (HttpEntity<String> todo : this.todos) {
+            this.restTemplate.postForObject(this.url + "/todos", todo, String.class);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TODOS)
+    public String createTodos() {
+        return this.restTemplate.postForObject(this.url + "/todos:batch", this.batch, String.class);
+    }
+
+}
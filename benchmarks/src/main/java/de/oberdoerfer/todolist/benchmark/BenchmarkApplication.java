@@ -0,0 +1,116 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.Swagger2SpringBoot;
+import de.oberdoerfer.todolist.model.OffsetDateTimeConverter;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application inside a benchmark fork and fills its database
+ */
+final class BenchmarkApplication {
+
+    /**
+     * Description of realistic length, the list endpoints never return it
+     */
+    private static final String DESCRIPTION = String.join(" ", Collections.nCopies(20, "Lorem ipsum."));
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application on a random port with reduced logging
+     *
+     * @param args Additional application arguments, e.g. "--spring.profiles.active=memory"
+     * @return The started application context
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        String[] defaults = {"--server.port=0", "--logging.level.root=WARN"};
+        String[] allArgs = Stream.concat(Arrays.stream(defaults), Arrays.stream(args)).toArray(String[]::new);
+        return new SpringApplication(Swagger2SpringBoot.class).run(allArgs);
+    }
+
+    /**
+     * Inserts the given number of todos with the identifiers 1 to rows, every second todo is done.
+     * <p>
+     * Must be called before the application created any todo, since the identifier generator caches blocks of the
+     * sequence which is restarted behind the inserted todos.
+     *
+     * @param context The application context
+     * @param rows    The number of todos to insert
+     */
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        OffsetDateTime dueDate = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC);
+        if (context.getBeansOfType(JdbcTemplate.class).isEmpty()) {
+            // Storage without database, e.g. the profile "memory"
+            List<TodoFull> todos = new ArrayList<>(rows);
+            for (int number = 1; number <= rows; number++) {
+                TodoFull todo = new TodoFull();
+                todo.setTitle("Todo " + number);
+                todo.setDescription(DESCRIPTION);
+                todo.setDueDate(dueDate);
+                todo.setDone(number % 2 == 0);
+                todos.add(todo);
+            }
+            context.getBean(TodoRepository.class).save(todos);
+            return;
+        }
+
+        // Insert set-based, which is orders of magnitude faster than saving each todo.
+        // Store the due date exactly like the application stores it.
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO todo_full (id, title, description, due_date, done) "
+                + "SELECT X, 'Todo ' || X, ?, ?, MOD(X, 2) = 0 FROM SYSTEM_RANGE(1, ?)", DESCRIPTION,
+            new OffsetDateTimeConverter().convertToDatabaseColumn(dueDate), rows);
+        jdbcTemplate.update("ALTER SEQUENCE todo_full_sequence RESTART WITH " + (rows + 1));
+    }
+
+    /**
+     * Deletes all todos.
+     * <p>
+     * The identifiers are not restarted because the identifier generator still holds a block of the sequence, so a
+     * benchmark may create at most 1000000 todos per application start.
+     *
+     * @param context The application context
+     */
+    static void clear(ConfigurableApplicationContext context) {
+        if (context.getBeansOfType(JdbcTemplate.class).isEmpty()) {
+            context.getBean(TodoRepository.class).deleteAll();
+        } else {
+            context.getBean(JdbcTemplate.class).update("DELETE FROM todo_full");
+        }
+    }
+
+    /**
+     * Gets the base URL of the started application
+     *
+     * @param context The application context
+     * @return The base URL, e.g. "http://localhost:12345"
+     */
+    static String url(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    /**
+     * Creates the JSON of a new todo
+     *
+     * @param number The number of the todo used in its title
+     * @return The JSON of the todo
+     */
+    static String todoJson(int number) {
+        return "{\"title\":\"Todo " + number + "\",\"description\":\"" + DESCRIPTION
+            + "\",\"dueDate\":\"2019-03-17T16:06:38.445Z\",\"done\":" + (number % 2 == 0) + "}";
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.oberdoerfer.todolist.api.TodoPageCache;
+import de.oberdoerfer.todolist.api.TodoRevision;
+import de.oberdoerfer.todolist.api.TodosApiController;
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import de.oberdoerfer.todolist.service.TodoExportService;
+import de.oberdoerfer.todolist.service.TodoImportService;
+import de.oberdoerfer.todolist.storage.InMemoryTodoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Validation;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the five todo endpoints of the controller without HTTP, database and caches.
+ * <p>
+ * The controller runs in a bare context with the in-memory repository of the profile "memory" as storage and with the
+ * page cache disabled, so the measurement covers the controller, the validation and the model conversions. Creating
+ * is measured together with deleting, so the number of todos stays constant. The identifiers are limited like the
+ * identifier sequence, so the context is renewed for each iteration and creating runs in shorter iterations.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ControllerBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private AnnotationConfigApplicationContext context;
+
+    private TodosApiController todosApiController;
+
+    private TodoBase todoBase;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Spring Boot does not configure the logging of a bare context
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+        this.context = new AnnotationConfigApplicationContext();
+        this.context.getEnvironment().setActiveProfiles("memory");
+        this.context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+            Collections.singletonMap("todolist.page-cache.enabled", "false")));
+        this.context.getBeanFactory().registerSingleton("objectMapper", new ObjectMapper());
+        this.context.getBeanFactory().registerSingleton("validator",
+            Validation.buildDefaultValidatorFactory().getValidator());
+        // A serializable factory is injected as lazy proxy, like the request of a web context
+        this.context.getBeanFactory().registerResolvableDependency(HttpServletRequest.class,
+            (ObjectFactory<HttpServletRequest> & Serializable) () -> {
+                throw new IllegalStateException("No request outside of HTTP");
+            });
+        this.context.register(InMemoryTodoRepository.class, TodoRevision.class, TodoPageCache.class,
+            TodoExportService.class, TodoImportService.class, TodosApiController.class);
+        this.context.refresh();
+        this.todosApiController = this.context.getBean(TodosApiController.class);
+
+        this.todoBase = new TodoBase();
+        this.todoBase.setTitle("Test Title");
+        this.todoBase.setDescription("Test Description");
+        this.todoBase.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+        this.todoBase.setDone(false);
+        List<TodoFull> todos = new ArrayList<>(this.rows);
+        for (int number = 1; number <= this.rows; number++) {
+            TodoFull todo = new TodoFull(this.todoBase);
+            todo.setDone(number % 2 == 0);
+            todos.add(todo);
+        }
+        this.context.getBean(TodoRepository.class).save(todos);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    public ResponseEntity<Void> createAndDeleteTodo() {
+        ResponseEntity<TodoFull> created = this.todosApiController.createTodo(this.todoBase);
+        return this.todosApiController.deleteTodo(created.getBody().getId(), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<TodoFull> getTodo() {
+        return this.todosApiController.getTodo(ThreadLocalRandom.current().nextInt(1, this.rows + 1));
+    }
+
+    @Benchmark
+    public ResponseEntity<List<TodoList>> getTodos() {
+        return this.todosApiController.getTodos("unfinished", 5, null, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> updateTodo() {
+        return this.todosApiController.updateTodo(ThreadLocalRandom.current().nextInt(1, this.rows + 1),
+            this.todoBase, null);
+    }
+
+}
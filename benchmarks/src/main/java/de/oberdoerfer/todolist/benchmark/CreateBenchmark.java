@@ -0,0 +1,65 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.api.TodosApiController;
+import de.oberdoerfer.todolist.model.TodoBase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the concurrent throughput of creating single todos for different identifier allocation sizes.
+ * <p>
+ * An allocation size of 1 fetches the sequence on every insert like the former identity column, larger sizes fetch
+ * it once per block. The short iterations keep the number of created todos below the identifier limit.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar '\.CreateBenchmark'}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CreateBenchmark {
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TodosApiController todosApiController;
+
+    private TodoBase todoBase;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkApplication.start("--todolist.id.allocation-size=" + this.allocationSize);
+        this.todosApiController = this.context.getBean(TodosApiController.class);
+        this.todoBase = new TodoBase();
+        this.todoBase.setTitle("Todo");
+        this.todoBase.setDescription("Lorem ipsum.");
+        this.todoBase.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+        this.todoBase.setDone(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        BenchmarkApplication.clear(this.context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> createTodo() {
+        return this.todosApiController.createTodo(this.todoBase);
+    }
+
+}
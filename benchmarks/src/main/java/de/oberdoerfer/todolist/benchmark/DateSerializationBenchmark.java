@@ -0,0 +1,114 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.oberdoerfer.todolist.RFC3339DateFormat;
+import de.oberdoerfer.todolist.RFC3339Module;
+import de.oberdoerfer.todolist.model.TodoBase;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the date handling of the Java time module with the {@link RFC3339DateFormat} date format, as configured
+ * before, with the {@link RFC3339Module}.
+ * <p>
+ * A date time and a todo are written to a writer discarding them and read from JSON. Run with
+ * {@code java -jar target/benchmarks.jar DateSerializationBenchmark -prof gc} to see the allocations per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateSerializationBenchmark {
+
+    private static final OffsetDateTime DUE_DATE = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000,
+        ZoneOffset.UTC);
+
+    private static final String DUE_DATE_JSON = "\"2019-03-17T16:06:38.445Z\"";
+
+    private static final String TODO_JSON = "{\"title\":\"Test Title\",\"description\":\"Test Description\","
+        + "\"dueDate\":\"2019-03-17T16:06:38.445Z\",\"done\":false}";
+
+    @Param({"javaTime", "rfc3339"})
+    public String module;
+
+    private JsonGenerator generator;
+
+    private ObjectWriter writer;
+
+    private ObjectReader dateReader;
+
+    private ObjectReader todoReader;
+
+    private TodoBase todoBase;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setDateFormat(new RFC3339DateFormat());
+        objectMapper.registerModule(new JavaTimeModule());
+        if ("rfc3339".equals(this.module)) {
+            objectMapper.registerModule(new RFC3339Module());
+        }
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.generator = objectMapper.getFactory().createGenerator(new Writer() {
+
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+
+        });
+        this.writer = objectMapper.writer();
+        this.dateReader = objectMapper.readerFor(OffsetDateTime.class);
+        this.todoReader = objectMapper.readerFor(TodoBase.class);
+        this.todoBase = this.todoReader.readValue(TODO_JSON);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.generator.close();
+    }
+
+    @Benchmark
+    public JsonGenerator serializeDate() throws IOException {
+        this.writer.writeValue(this.generator, DUE_DATE);
+        return this.generator;
+    }
+
+    @Benchmark
+    public JsonGenerator serializeTodo() throws IOException {
+        this.writer.writeValue(this.generator, this.todoBase);
+        return this.generator;
+    }
+
+    @Benchmark
+    public OffsetDateTime deserializeDate() throws IOException {
+        return this.dateReader.readValue(DUE_DATE_JSON);
+    }
+
+    @Benchmark
+    public TodoBase deserializeTodo() throws IOException {
+        return this.todoReader.readValue(TODO_JSON);
+    }
+
+}
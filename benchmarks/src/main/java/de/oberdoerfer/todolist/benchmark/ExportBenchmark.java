@@ -0,0 +1,77 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.service.TodoExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the NDJSON export behind GET /todos/export in todos per second.
+ * <p>
+ * The todos are written to an output discarding them, so reading and serializing dominate the measurement.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ExportBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    static final int ROWS = 500000;
+
+    @Param({"h2", "memory"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+
+    private TodoExportService todoExportService;
+
+    private final OutputStream output = new OutputStream() {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+    };
+
+    @Setup
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        if (!"h2".equals(this.storage)) {
+            args.add("--spring.profiles.active=" + this.storage);
+        }
+        this.context = BenchmarkApplication.start(args.toArray(new String[0]));
+        BenchmarkApplication.seed(this.context, ROWS);
+        this.todoExportService = this.context.getBean(TodoExportService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long exportAll() throws IOException {
+        return this.todoExportService.export(null, this.output);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS / 2)
+    public long exportUnfinished() throws IOException {
+        return this.todoExportService.export(Boolean.FALSE, this.output);
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the ingest of POST /todos/import for several chunk sizes.
+ * <p>
+ * Every shot imports a fixed number of todos, which are deleted before the next shot, so the identifiers of an
+ * application start suffice. The score is the time per imported todo.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ImportBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+
+    private static final int TODOS = 50000;
+
+    @Param({"h2", "memory"})
+    public String storage;
+
+    @Param({"100", "1000", "10000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+
+    private RestTemplate restTemplate;
+
+    private String url;
+
+    private HttpEntity<byte[]> ndjson;
+
+    @Setup
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--todolist.import.chunk-size=" + this.chunkSize);
+        if (!"h2".equals(this.storage)) {
+            args.add("--spring.profiles.active=" + this.storage);
+        }
+        this.context = BenchmarkApplication.start(args.toArray(new String[0]));
+        this.restTemplate = new RestTemplate();
+        this.url = BenchmarkApplication.url(this.context);
+
+        // Serialize the request up front to measure the server only
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+        String lines = IntStream.range(0, TODOS).mapToObj(BenchmarkApplication::todoJson).collect(Collectors.joining("\n"));
+        this.ndjson = new HttpEntity<>(lines.getBytes(StandardCharsets.UTF_8), headers);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        BenchmarkApplication.clear(this.context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TODOS)
+    public String importTodos() {
+        return this.restTemplate.postForObject(this.url + "/todos/import", this.ndjson, String.class);
+    }
+
+}
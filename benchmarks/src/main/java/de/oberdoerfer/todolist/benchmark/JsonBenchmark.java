@@ -0,0 +1,137 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.oberdoerfer.todolist.RFC3339Module;
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization and deserialization of the bodies of the todos API with the object mapper as the
+ * application configures it.
+ * <p>
+ * The bodies are written to a stream discarding them and read from bytes, like the message converter does. The list is
+ * a full page of GET /todos. Run with {@code java -jar target/benchmarks.jar JsonBenchmark -prof gc} to see the
+ * allocations per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private static final OffsetDateTime DUE_DATE = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000,
+        ZoneOffset.UTC);
+
+    private static final OutputStream DISCARD = new OutputStream() {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+    };
+
+    @Param({"5", "10"})
+    public int limit;
+
+    private ObjectWriter writer;
+
+    private TodoBase todoBase;
+
+    private TodoFull todoFull;
+
+    private List<TodoList> todoLists;
+
+    private ObjectReader todoBaseReader;
+
+    private ObjectReader todoFullReader;
+
+    private ObjectReader todoListsReader;
+
+    private byte[] todoBaseJson;
+
+    private byte[] todoFullJson;
+
+    private byte[] todoListsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Configured like Spring Boot configures the mapper of the application
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new JavaTimeModule(), new RFC3339Module())
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        this.writer = objectMapper.writer();
+
+        this.todoBase = new TodoBase();
+        this.todoBase.setTitle("Test Title");
+        this.todoBase.setDescription("Test Description");
+        this.todoBase.setDueDate(DUE_DATE);
+        this.todoBase.setDone(false);
+        this.todoFull = new TodoFull(this.todoBase);
+        this.todoFull.setId(42);
+        this.todoLists = new ArrayList<>(this.limit);
+        for (int id = 1; id <= this.limit; id++) {
+            this.todoLists.add(new TodoList(id, "Todo " + id, DUE_DATE, false));
+        }
+
+        this.todoBaseReader = objectMapper.readerFor(TodoBase.class);
+        this.todoFullReader = objectMapper.readerFor(TodoFull.class);
+        this.todoListsReader = objectMapper.readerFor(objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, TodoList.class));
+        this.todoBaseJson = objectMapper.writeValueAsBytes(this.todoBase);
+        this.todoFullJson = objectMapper.writeValueAsBytes(this.todoFull);
+        this.todoListsJson = objectMapper.writeValueAsBytes(this.todoLists);
+    }
+
+    @Benchmark
+    public void serializeTodoBase() throws IOException {
+        this.writer.writeValue(DISCARD, this.todoBase);
+    }
+
+    @Benchmark
+    public void serializeTodoFull() throws IOException {
+        this.writer.writeValue(DISCARD, this.todoFull);
+    }
+
+    @Benchmark
+    public void serializeTodoLists() throws IOException {
+        this.writer.writeValue(DISCARD, this.todoLists);
+    }
+
+    @Benchmark
+    public TodoBase deserializeTodoBase() throws IOException {
+        return this.todoBaseReader.readValue(this.todoBaseJson);
+    }
+
+    @Benchmark
+    public TodoFull deserializeTodoFull() throws IOException {
+        return this.todoFullReader.readValue(this.todoFullJson);
+    }
+
+    @Benchmark
+    public List<TodoList> deserializeTodoLists() throws IOException {
+        return this.todoListsReader.readValue(this.todoListsJson);
+    }
+
+}
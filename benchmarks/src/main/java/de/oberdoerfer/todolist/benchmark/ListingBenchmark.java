@@ -0,0 +1,73 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.model.OffsetPageRequest;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the counting entity page queries with the count-free list projections behind GET /todos.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ListingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"0", "100"})
+    public int offset;
+
+    private ConfigurableApplicationContext context;
+
+    private TodoRepository todoRepository;
+
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(this.context, this.rows);
+        this.todoRepository = this.context.getBean(TodoRepository.class);
+        this.pageable = new OffsetPageRequest(5, this.offset);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Page<TodoFull> pageUnfinished() {
+        return this.todoRepository.findAllByDone(false, this.pageable);
+    }
+
+    @Benchmark
+    public Slice<TodoList> sliceUnfinished() {
+        return this.todoRepository.findListByDone(false, this.pageable);
+    }
+
+    @Benchmark
+    public Page<TodoFull> pageAll() {
+        return this.todoRepository.findAll(this.pageable);
+    }
+
+    @Benchmark
+    public Slice<TodoList> sliceAll() {
+        return this.todoRepository.findListBy(this.pageable);
+    }
+
+}
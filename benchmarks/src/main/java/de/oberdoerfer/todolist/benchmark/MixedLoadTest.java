@@ -0,0 +1,343 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a mix of reads and writes across the five todo endpoints at a constant arrival rate.
+ * <p>
+ * The application starts on a random port and is seeded with todos. A scheduler issues the requests at fixed intended
+ * start times, whether the previous requests completed or not, and each latency is measured from the intended start
+ * time. A stalled server therefore delays the measured latencies of all requests due meanwhile instead of delaying
+ * their sending, which would hide the stall (coordinated omission). Reads and updates address random seeded todos,
+ * deletes remove todos created by the run, so the seeded todos stay readable. A delete without a created todo left is
+ * sent as create instead.
+ * <p>
+ * After a warmup of {@value #WARMUP_SECONDS} s at the same rate, the run reports the throughput and the latencies p50,
+ * p99, p99.9 and max per endpoint and in total as JSON, so runs can be compared over time. The mix gives the weights of
+ * the endpoints, e.g. {@code getTodos=40,getTodo=40,createTodo=10,updateTodo=5,deleteTodo=5}. Further arguments are
+ * passed to the application, e.g. {@code --spring.profiles.active=memory}.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar de.oberdoerfer.todolist.benchmark.MixedLoadTest [requests-per-second]
+ * [seconds] [todos] [mix] [json-file|-] [application-args...]}.
+ */
+public final class MixedLoadTest {
+
+    private static final int WARMUP_SECONDS = 10;
+
+    private static final String DEFAULT_MIX = "getTodos=40,getTodo=40,createTodo=10,updateTodo=5,deleteTodo=5";
+
+    /**
+     * Longest latency recorded, longer requests are recorded with it
+     */
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * The five todo endpoints
+     */
+    private enum Operation {
+        getTodos, getTodo, createTodo, updateTodo, deleteTodo
+    }
+
+    /**
+     * Latencies and errors of one endpoint
+     */
+    private static final class Statistics {
+
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MICROSECONDS.toNanos(1),
+            MAX_LATENCY_NANOS, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, boolean succeeded) {
+            this.latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+            if (!succeeded) {
+                this.errors.increment();
+            }
+        }
+
+    }
+
+    private final String url;
+
+    private final int todos;
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeWeights;
+
+    /**
+     * Identifiers of the todos created by the run and not deleted yet
+     */
+    private final Queue<Integer> created = new ConcurrentLinkedQueue<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Time of the last run from its first request until all requests completed
+     */
+    private long elapsedNanos;
+
+    private MixedLoadTest(String url, int todos, String mix) {
+        this.url = url;
+        this.todos = todos;
+        String[] weights = mix.split(",");
+        this.operations = new Operation[weights.length];
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int index = 0; index < weights.length; index++) {
+            String[] weight = weights[index].split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Invalid weight " + weights[index] + " in the mix " + mix);
+            }
+            this.operations[index] = Operation.valueOf(weight[0].trim());
+            total += Integer.parseInt(weight[1].trim());
+            this.cumulativeWeights[index] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix " + mix + " has no weight");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int todos = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        String mix = args.length > 3 ? args[3] : DEFAULT_MIX;
+        String jsonFile = args.length > 4 ? args[4] : "-";
+        String[] applicationArgs = args.length > 5 ? Arrays.copyOfRange(args, 5, args.length) : new String[0];
+
+        // Keep enough connections alive for the requests in flight
+        System.setProperty("http.maxConnections", "200");
+        ConfigurableApplicationContext context = BenchmarkApplication.start(applicationArgs);
+        Map<String, Object> report;
+        try {
+            BenchmarkApplication.seed(context, todos);
+            MixedLoadTest loadTest = new MixedLoadTest(BenchmarkApplication.url(context), todos, mix);
+            loadTest.run(rate, WARMUP_SECONDS);
+            Map<Operation, Statistics> statistics = loadTest.run(rate, seconds);
+
+            report = new LinkedHashMap<>();
+            report.put("timestamp", Instant.now().toString());
+            report.put("javaVersion", System.getProperty("java.version"));
+            report.put("applicationArgs", applicationArgs);
+            report.put("requestsPerSecond", rate);
+            report.put("seconds", seconds);
+            report.put("todos", todos);
+            report.put("mix", mix);
+            Statistics total = new Statistics();
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Map.Entry<Operation, Statistics> entry : statistics.entrySet()) {
+                total.latencies.add(entry.getValue().latencies);
+                total.errors.add(entry.getValue().errors.sum());
+                operations.put(entry.getKey().name(), summarize(entry.getValue(), loadTest.elapsedNanos));
+            }
+            report.put("total", summarize(total, loadTest.elapsedNanos));
+            report.put("operations", operations);
+        } finally {
+            context.close();
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        if (jsonFile.equals("-")) {
+            System.out.println(objectMapper.writeValueAsString(report));
+        } else {
+            objectMapper.writeValue(new File(jsonFile), report);
+        }
+    }
+
+    /**
+     * Sends requests at a constant rate and waits for all of them
+     *
+     * @param rate    The requests per second
+     * @param seconds The duration
+     * @return The statistics by endpoint, in the order of the endpoints
+     */
+    private Map<Operation, Statistics> run(int rate, int seconds) throws InterruptedException {
+        Map<Operation, Statistics> statistics = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            statistics.put(operation, new Statistics());
+        }
+
+        // Unbounded, so the requests in flight never wait for a client
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService clients = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = (long) rate * seconds;
+        long start = System.nanoTime();
+        for (long request = 0; request < requests; request++) {
+            long intendedStart = start + request * intervalNanos;
+            long delay;
+            while ((delay = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = this.nextOperation();
+            clients.execute(() -> {
+                Operation sent = operation;
+                boolean succeeded;
+                if (sent == Operation.deleteTodo) {
+                    Integer id = this.created.poll();
+                    if (id != null) {
+                        succeeded = this.send("DELETE", "/todos/" + id, null) == 204;
+                    } else {
+                        sent = Operation.createTodo;
+                        succeeded = this.create();
+                    }
+                } else {
+                    succeeded = this.send(sent);
+                }
+                statistics.get(sent).record(System.nanoTime() - intendedStart, succeeded);
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(MAX_LATENCY_NANOS + TimeUnit.SECONDS.toNanos(seconds), TimeUnit.NANOSECONDS);
+        this.elapsedNanos = System.nanoTime() - start;
+        return statistics;
+    }
+
+    private Operation nextOperation() {
+        int value = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        int index = 0;
+        while (value >= this.cumulativeWeights[index]) {
+            index++;
+        }
+        return this.operations[index];
+    }
+
+    /**
+     * Sends a request other than delete
+     *
+     * @param operation The endpoint
+     * @return True if the request succeeded
+     */
+    private boolean send(Operation operation) {
+        int id = ThreadLocalRandom.current().nextInt(1, this.todos + 1);
+        switch (operation) {
+            case getTodos:
+                return this.send("GET", "/todos?state=unfinished&limit=10&offset="
+                    + ThreadLocalRandom.current().nextInt(Math.max(this.todos / 2 - 10, 1)), null) / 100 == 2;
+            case getTodo:
+                return this.send("GET", "/todos/" + id, null) == 200;
+            case createTodo:
+                return this.create();
+            case updateTodo:
+                return this.send("PUT", "/todos/" + id, BenchmarkApplication.todoJson(id)) == 204;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    /**
+     * Creates a todo and remembers its identifier for a delete
+     *
+     * @return True if the todo was created
+     */
+    private boolean create() {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        if (this.send("POST", "/todos", BenchmarkApplication.todoJson(this.todos + 1), response) != 201) {
+            return false;
+        }
+        try {
+            this.created.add(this.objectMapper.readTree(response.toByteArray()).get("id").asInt());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private int send(String method, String path, String body) {
+        return this.send(method, path, body, null);
+    }
+
+    /**
+     * Sends a request and reads the whole response, so the connection is reused
+     *
+     * @param method   The HTTP method
+     * @param path     The path and query
+     * @param body     The JSON body or null
+     * @param response The stream receiving the response body or null to discard it
+     * @return The status code or -1 if the request failed
+     */
+    private int send(String method, String path, String body, OutputStream response) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(this.url + path).openConnection();
+            connection.setRequestMethod(method);
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (input != null) {
+                    byte[] buffer = new byte[4096];
+                    int length;
+                    while ((length = input.read(buffer)) >= 0) {
+                        if (response != null) {
+                            response.write(buffer, 0, length);
+                        }
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Summarizes the statistics of an endpoint
+     *
+     * @param statistics   The statistics
+     * @param elapsedNanos The time until all requests completed
+     * @return The requests, errors, completed requests per second and latencies in milliseconds
+     */
+    private static Map<String, Object> summarize(Statistics statistics, long elapsedNanos) {
+        Histogram latencies = statistics.latencies;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("errors", statistics.errors.sum());
+        summary.put("throughput", latencies.getTotalCount() * 1e9 / elapsedNanos);
+        summary.put("p50", millis(latencies.getValueAtPercentile(50)));
+        summary.put("p99", millis(latencies.getValueAtPercentile(99)));
+        summary.put("p999", millis(latencies.getValueAtPercentile(99.9)));
+        summary.put("max", millis(latencies.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+}
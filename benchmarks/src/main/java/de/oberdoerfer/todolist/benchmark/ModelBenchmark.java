@@ -0,0 +1,68 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.model.OffsetPageRequest;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the model operations on the hot path of the controller: converting a todo to its list projection and
+ * creating and comparing the page requests of GET /todos.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ModelBenchmark -prof gc} to see the allocations per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    private TodoFull todoFull;
+
+    private OffsetPageRequest pageRequest;
+
+    private OffsetPageRequest equalPageRequest;
+
+    private int offset;
+
+    @Setup
+    public void setUp() {
+        this.todoFull = new TodoFull();
+        this.todoFull.setId(42);
+        this.todoFull.setTitle("Test Title");
+        this.todoFull.setDescription("Test Description");
+        this.todoFull.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+        this.todoFull.setDone(false);
+        this.pageRequest = new OffsetPageRequest(5, 100);
+        this.equalPageRequest = new OffsetPageRequest(5, 100);
+    }
+
+    @Benchmark
+    public TodoList toTodoList() {
+        return new TodoList(this.todoFull);
+    }
+
+    @Benchmark
+    public OffsetPageRequest newOffsetPageRequest() {
+        // A varying offset keeps the request from being hoisted out of the loop
+        this.offset = (this.offset + 1) & 127;
+        return new OffsetPageRequest(5, this.offset);
+    }
+
+    @Benchmark
+    public boolean equalsOffsetPageRequest() {
+        return this.pageRequest.equals(this.equalPageRequest);
+    }
+
+    @Benchmark
+    public int hashCodeOffsetPageRequest() {
+        return this.pageRequest.hashCode();
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the default page of GET /todos over HTTP with and without the page cache.
+ * <p>
+ * Nothing is written during the measurement, so every request after the first is a hit of the cache. The client runs
+ * in the same process, so {@code -prof gc} reports the allocations of both sides.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PageCacheBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageCacheBenchmark {
+
+    @Param({"true", "false"})
+    public boolean pageCache;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private URL url;
+
+    private final byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setUp() throws IOException {
+        this.context = BenchmarkApplication.start("--todolist.page-cache.enabled=" + this.pageCache,
+            "--spring.cache.type=none");
+        BenchmarkApplication.seed(this.context, this.rows);
+        this.url = new URL(BenchmarkApplication.url(this.context) + "/todos");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int getTodos() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) this.url.openConnection();
+        int length = 0;
+        try (InputStream input = connection.getInputStream()) {
+            // Read the whole response, so the connection is kept alive
+            for (int read = input.read(this.buffer); read >= 0; read = input.read(this.buffer)) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures clients polling an unchanged list of all todos over HTTP, with and without {@code If-None-Match}.
+ * <p>
+ * The page cache is disabled, so an unconditional poll reads and serializes the todos every time, while a conditional
+ * poll sends the entity tag of the previous response and is answered with 304 before any todo is read. Besides the
+ * polls per second, the body bytes per second transferred to the clients are reported as {@code bodyBytes}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PollingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PollingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean conditional;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private URL url;
+
+    /**
+     * Bytes transferred by a thread of the benchmark
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer {
+
+        public long bodyBytes;
+
+        private final byte[] buffer = new byte[8192];
+
+        private String eTag;
+
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.context = BenchmarkApplication.start("--todolist.page-cache.enabled=false", "--spring.cache.type=none");
+        BenchmarkApplication.seed(this.context, this.rows);
+        this.url = new URL(BenchmarkApplication.url(this.context) + "/todos?state=all");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int getTodos(Transfer transfer) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) this.url.openConnection();
+        if (this.conditional && transfer.eTag != null) {
+            connection.setRequestProperty("If-None-Match", transfer.eTag);
+        }
+        int status = connection.getResponseCode();
+        transfer.eTag = connection.getHeaderField("ETag");
+        try (InputStream input = connection.getInputStream()) {
+            // Read the whole response, so the connection is kept alive
+            for (int read = input.read(transfer.buffer); read >= 0; read = input.read(transfer.buffer)) {
+                transfer.bodyBytes += read;
+            }
+        }
+        return status;
+    }
+
+}
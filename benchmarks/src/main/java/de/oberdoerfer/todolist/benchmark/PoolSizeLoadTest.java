@@ -0,0 +1,158 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.configuration.ConnectionPoolConfiguration;
+import de.oberdoerfer.todolist.configuration.ConnectionPoolMetrics;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Shows the effect of the size of the connection pool on the latency of GET /todos under 200 concurrent clients.
+ * <p>
+ * Each pool size starts the application with the page cache and the todo cache disabled, so every request reads from
+ * the database. Closed-loop clients read pages of unfinished todos at random offsets. Each pool size reports the
+ * throughput, the latencies and the time requests waited for a connection including the warmup. Requests beyond the
+ * pool size queue in the pool, while the embedded database runs the queries of all connections on the threads of the
+ * requests. The pool size derived by the application is always measured and marked. Flyway needs at least 2
+ * connections.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar de.oberdoerfer.todolist.benchmark.PoolSizeLoadTest [seconds]
+ * [pool-sizes]}, e.g. {@code 30 2,4,8,16,32,64}.
+ */
+public final class PoolSizeLoadTest {
+
+    private static final int TODOS = 10000;
+
+    private static final int CLIENTS = 200;
+
+    private PoolSizeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int[] poolSizes = IntStream.concat(IntStream.of(derivedPoolSize()),
+            Arrays.stream((args.length > 1 ? args[1] : "2,4,8,16,32,64").split(",")).mapToInt(Integer::parseInt))
+            .sorted().distinct().toArray();
+
+        // Keep a connection per client alive
+        System.setProperty("http.maxConnections", String.valueOf(CLIENTS));
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+        System.out.printf("%d clients, %d s per pool size, %d processors%n", CLIENTS, seconds,
+            Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-9s %10s %9s %9s %9s %14s %7s%n", "pool", "requests/s", "p50 ms", "p99 ms", "max ms",
+            "acquire p99 ms", "errors");
+        for (int poolSize : poolSizes) {
+            ConfigurableApplicationContext context = BenchmarkApplication.start(
+                "--todolist.page-cache.enabled=false",
+                "--spring.cache.type=none",
+                "--spring.datasource.generate-unique-name=true",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize);
+            try {
+                BenchmarkApplication.seed(context, TODOS);
+                String url = BenchmarkApplication.url(context) + "/todos?state=unfinished&limit=10&offset=";
+
+                // Warm up the JIT and the connections
+                run(clients, url, seconds);
+
+                ConnectionPoolMetrics connectionPoolMetrics = context.getBean(ConnectionPoolMetrics.class);
+                long[] latencies = run(clients, url, seconds);
+                long errors = Arrays.stream(latencies).filter(latency -> latency < 0).count();
+                long[] succeeded = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+                double acquireP99Millis = connectionPoolMetrics.metrics().stream()
+                    .filter(metric -> metric.getName().equals("pool.acquire.p99-micros"))
+                    .mapToLong(metric -> metric.getValue().longValue()).findFirst().orElse(0) / 1e3;
+                System.out.printf("%-9s %10.0f %9.1f %9.1f %9.1f %14.1f %7d%n", poolSize
+                        + (poolSize == derivedPoolSize() ? " *" : ""), (double) succeeded.length / seconds,
+                    millis(succeeded, 0.5), millis(succeeded, 0.99), millis(succeeded, 1), acquireP99Millis, errors);
+            } finally {
+                context.close();
+            }
+        }
+        System.out.println("* pool size derived by the application");
+        clients.shutdown();
+    }
+
+    /**
+     * Gets the pool size the application derives without explicit size
+     *
+     * @return The pool size
+     */
+    private static int derivedPoolSize() {
+        return ConnectionPoolConfiguration.poolSize(new StandardEnvironment());
+    }
+
+    /**
+     * Lets the clients read pages of todos in a closed loop
+     *
+     * @param clients The executor of the clients
+     * @param url     The URL of the todos without the offset
+     * @param seconds The duration
+     * @return The latencies of all requests in nanoseconds, negative for failed requests
+     */
+    private static long[] run(ExecutorService clients, String url, int seconds) throws Exception {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                long start;
+                while ((start = System.nanoTime()) < end) {
+                    boolean succeeded = get(url + ThreadLocalRandom.current().nextInt(TODOS / 2 - 10));
+                    long latency = System.nanoTime() - start;
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = succeeded ? latency : -1;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        return results.stream().flatMapToLong(Arrays::stream).toArray();
+    }
+
+    private static boolean get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (input != null) {
+                    byte[] buffer = new byte[4096];
+                    while (input.read(buffer) >= 0) {
+                        // Read the whole response to reuse the connection
+                    }
+                }
+            }
+            return status / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static double millis(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+}
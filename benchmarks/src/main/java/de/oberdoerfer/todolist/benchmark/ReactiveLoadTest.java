@@ -0,0 +1,318 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.configuration.VirtualThreadConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares the servlet application with the reactive application while many clients are on slow links.
+ * <p>
+ * Each application runs in a process of its own. Slow clients update todos in a closed loop and send each body in
+ * pieces spread over the trickle time, like mobile clients uploading over a slow link, so every slow client holds a
+ * connection for the whole trickle time. Meanwhile a probe reads single todos one after the other. Each level of slow
+ * clients reports the completed updates per second, the latencies of the probe and the number of threads of the
+ * server. The servlet application reads a body on its request thread, so the slow clients beyond its 200 threads
+ * queue and the probe waits behind them, while the reactive application reads the bodies as they arrive.
+ * <p>
+ * Requires Java 21 for the virtual threads of the clients and the application jars built with Java 21, run with
+ * {@code java -cp target/benchmarks.jar de.oberdoerfer.todolist.benchmark.ReactiveLoadTest [servlet-jar]
+ * [reactive-jar] [trickle-millis] [seconds-per-level]}.
+ */
+public final class ReactiveLoadTest {
+
+    private static final int TODOS = 100;
+
+    private static final int[] CONNECTIONS = {100, 1000, 4000, 8000};
+
+    /**
+     * Number of pieces each slow body is sent in
+     */
+    private static final int PIECES = 10;
+
+    private ReactiveLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String servletJar = args.length > 0 ? args[0] : "../target/TodoListBackend-1.0.0-exec.jar";
+        String reactiveJar = args.length > 1 ? args[1] : "../reactive/target/reactive.jar";
+        long trickleMillis = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        ExecutorService clients = VirtualThreadConfiguration.newExecutor();
+        System.out.printf("Slow bodies sent over %d ms, %d s per level%n", trickleMillis, seconds);
+        System.out.printf("%-9s %11s %9s %12s %12s %7s %7s%n", "server", "connections", "updates/s", "probe p50 ms",
+            "probe p99 ms", "errors", "threads");
+        for (String jar : new String[]{servletJar, reactiveJar}) {
+            String server = jar.equals(servletJar) ? "servlet" : "reactive";
+            int port = freePort();
+            Process process = start(jar, port);
+            try {
+                String url = "http://localhost:" + port;
+                awaitStarted(url, process);
+                seed(url);
+
+                // Warm up the JIT and the connections
+                run(clients, process, port, url, CONNECTIONS[0], trickleMillis, seconds);
+
+                for (int connections : CONNECTIONS) {
+                    Result result = run(clients, process, port, url, connections, trickleMillis, seconds);
+                    System.out.printf("%-9s %11d %9.0f %12.1f %12.1f %7d %7d%n", server, connections,
+                        (double) result.updates / seconds, millis(result.probeNanos, 0.5),
+                        millis(result.probeNanos, 0.99), result.errors, result.threads);
+                }
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+        clients.shutdown();
+    }
+
+    /**
+     * Result of a level of slow clients
+     */
+    private static final class Result {
+
+        private long updates;
+
+        private long errors;
+
+        private long[] probeNanos;
+
+        private long threads;
+
+    }
+
+    /**
+     * Runs slow clients and the probe
+     *
+     * @param clients       The executor of the clients
+     * @param process       The process of the server
+     * @param port          The port of the server
+     * @param url           The base URL of the server
+     * @param connections   The number of slow clients
+     * @param trickleMillis The time over which each body is sent
+     * @param seconds       The duration
+     * @return The result of the level
+     */
+    private static Result run(ExecutorService clients, Process process, int port, String url, int connections,
+                              long trickleMillis, int seconds) throws Exception {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int client = 0; client < connections; client++) {
+            futures.add(clients.submit(() -> {
+                long updates = 0;
+                long errors = 0;
+                while (System.nanoTime() < end) {
+                    if (update(port, ThreadLocalRandom.current().nextInt(1, TODOS + 1), trickleMillis)) {
+                        updates++;
+                    } else {
+                        errors++;
+                    }
+                }
+                return new long[]{updates, errors};
+            }));
+        }
+        Future<long[]> probe = clients.submit(() -> {
+            long[] latencies = new long[1024];
+            int count = 0;
+            while (running.get()) {
+                long start = System.nanoTime();
+                boolean succeeded = get(url + "/todos/" + ThreadLocalRandom.current().nextInt(1, TODOS + 1));
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = succeeded ? System.nanoTime() - start : -1;
+                Thread.sleep(100);
+            }
+            return Arrays.copyOf(latencies, count);
+        });
+
+        // Count the threads while all slow clients are connected
+        Thread.sleep(Math.min(trickleMillis, TimeUnit.SECONDS.toMillis(seconds)) / 2);
+        Result result = new Result();
+        result.threads = threads(process);
+        for (Future<long[]> future : futures) {
+            long[] counts = future.get();
+            result.updates += counts[0];
+            result.errors += counts[1];
+        }
+        running.set(false);
+        long[] probeLatencies = probe.get();
+        result.errors += Arrays.stream(probeLatencies).filter(latency -> latency < 0).count();
+        result.probeNanos = Arrays.stream(probeLatencies).filter(latency -> latency >= 0).sorted().toArray();
+        return result;
+    }
+
+    /**
+     * Updates a todo sending the body in pieces
+     *
+     * @param port          The port of the server
+     * @param id            The identifier of the todo
+     * @param trickleMillis The time over which the body is sent
+     * @return True if the todo was updated
+     */
+    private static boolean update(int port, int id, long trickleMillis) {
+        byte[] body = BenchmarkApplication.todoJson(id).getBytes(StandardCharsets.UTF_8);
+        String head = "PUT /todos/" + id + " HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: " + body.length + "\r\n"
+            + "Connection: close\r\n\r\n";
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout((int) TimeUnit.MINUTES.toMillis(2));
+            OutputStream output = socket.getOutputStream();
+            output.write(head.getBytes(StandardCharsets.US_ASCII));
+            for (int piece = 0; piece < PIECES; piece++) {
+                output.write(body, piece * body.length / PIECES, (piece + 1) * body.length / PIECES
+                    - piece * body.length / PIECES);
+                output.flush();
+                Thread.sleep(trickleMillis / PIECES);
+            }
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.US_ASCII));
+            String statusLine = input.readLine();
+            return statusLine != null && statusLine.startsWith("HTTP/1.1 204");
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (input != null) {
+                    byte[] buffer = new byte[4096];
+                    while (input.read(buffer) >= 0) {
+                        // Read the whole response to reuse the connection
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts an application jar in a process of its own
+     *
+     * @param jar  The path of the executable jar
+     * @param port The port of the application
+     * @return The process
+     */
+    private static Process start(String jar, int port) throws IOException {
+        if (!new File(jar).isFile()) {
+            throw new IllegalArgumentException("Application jar " + jar + " not found, build it first");
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-Xmx512m", "--add-opens", "java.base/java.lang=ALL-UNNAMED", "-jar", jar,
+            "--server.port=" + port, "--logging.level.root=WARN")
+            .redirectErrorStream(true)
+            .redirectOutput(new File(jar + ".log"))
+            .start();
+    }
+
+    private static void awaitStarted(String url, Process process) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < end) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url + "/todos").openConnection();
+                if (connection.getResponseCode() == 204 || connection.getResponseCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not started yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Application not started at " + url);
+    }
+
+    /**
+     * Creates the todos with the identifiers 1 to {@value #TODOS} in an empty application
+     *
+     * @param url The base URL of the application
+     */
+    private static void seed(String url) throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (int number = 1; number <= TODOS; number++) {
+            body.append(number > 1 ? "," : "").append(BenchmarkApplication.todoJson(number));
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + "/todos:batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setDoOutput(true);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body.append(']').toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (connection.getResponseCode() != 201) {
+            throw new IllegalStateException("Seeding failed with " + connection.getResponseCode());
+        }
+    }
+
+    /**
+     * Counts the threads of a process, only supported on Linux
+     *
+     * @param process The process
+     * @return The number of threads or -1 if unknown
+     */
+    private static long threads(Process process) {
+        try {
+            // Process.pid() is available since Java 9
+            Object pid = Process.class.getMethod("pid").invoke(process);
+            for (String line : Files.readAllLines(Paths.get("/proc", pid.toString(), "status"))) {
+                if (line.startsWith("Threads:")) {
+                    return Long.parseLong(line.substring("Threads:".length()).trim());
+                }
+            }
+        } catch (ReflectiveOperationException | IOException e) {
+            // Unknown
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double millis(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+}
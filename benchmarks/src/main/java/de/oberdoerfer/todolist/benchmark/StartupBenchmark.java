@@ -0,0 +1,100 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.model.OffsetPageRequest;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import de.oberdoerfer.todolist.storage.TodoSnapshot;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the startup of the profile "memory" with a mounted snapshot until the first todos have been read, compared
+ * to the startup without todos.
+ * <p>
+ * The snapshot is written once per trial. Todos have a short description, so 10000000 todos stay below the maximum
+ * snapshot size of 2 GB.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar StartupBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    private Path file;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        this.file = Files.createTempFile("todos", ".snapshot");
+        OffsetDateTime dueDate = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC);
+        TodoSnapshot.write(this.file, IntStream.rangeClosed(1, this.rows).mapToObj(number -> {
+            TodoFull todo = new TodoFull();
+            todo.setId(number);
+            todo.setVersion(0);
+            todo.setTitle("Todo " + number);
+            todo.setDescription("Lorem ipsum.");
+            todo.setDueDate(dueDate.plusSeconds(number % 86400));
+            todo.setDone(number % 2 == 0);
+            return todo;
+        }).iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        if (this.context != null) {
+            this.context.close();
+            this.context = null;
+        }
+    }
+
+    @Benchmark
+    public Object startEmpty() {
+        this.context = BenchmarkApplication.start("--spring.profiles.active=memory");
+        return this.readTodos();
+    }
+
+    @Benchmark
+    public Object startWithSnapshot() {
+        this.context = BenchmarkApplication.start("--spring.profiles.active=memory",
+            "--todolist.snapshot.file=" + this.file);
+        return this.readTodos();
+    }
+
+    @Benchmark
+    public int mapSnapshot() throws IOException {
+        return TodoSnapshot.map(this.file).size();
+    }
+
+    /**
+     * Reads a single todo and the first page of unfinished todos by due date like the first requests after startup
+     *
+     * @return The read todos
+     */
+    private Object readTodos() {
+        TodoRepository todoRepository = this.context.getBean(TodoRepository.class);
+        todoRepository.findOne(this.rows);
+        return todoRepository.findListByDone(false, new OffsetPageRequest(5, 0));
+    }
+
+}
@@ -0,0 +1,131 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.api.TodosApiController;
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the H2 storage with the in-memory storage of the profile "memory" for the five todo endpoints.
+ * <p>
+ * The controller is called directly and the todo cache is disabled, so the storage dominates the measurement. Creating
+ * and deleting are measured in batches of single shots to stay below the identifier limit.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar StorageBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    private static final int BATCH = 10000;
+
+    @Param({"h2", "memory"})
+    public String storage;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private TodosApiController todosApiController;
+
+    private TodoBase todoBase;
+
+    /**
+     * Todos created before each iteration of the delete benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class DeleteState {
+
+        private final List<Integer> ids = new ArrayList<>();
+
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(StorageBenchmark benchmark) {
+            List<TodoFull> todos = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                todos.add(new TodoFull(benchmark.todoBase));
+            }
+            this.ids.clear();
+            for (TodoFull todo : benchmark.context.getBean(TodoRepository.class).save(todos)) {
+                this.ids.add(todo.getId());
+            }
+            this.next = 0;
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.cache.type=none");
+        if (!"h2".equals(this.storage)) {
+            args.add("--spring.profiles.active=" + this.storage);
+        }
+        this.context = BenchmarkApplication.start(args.toArray(new String[0]));
+        BenchmarkApplication.seed(this.context, this.rows);
+        this.todosApiController = this.context.getBean(TodosApiController.class);
+        this.todoBase = new TodoBase();
+        this.todoBase.setTitle("Todo");
+        this.todoBase.setDescription("Lorem ipsum.");
+        this.todoBase.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+        this.todoBase.setDone(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(this.rows) + 1;
+    }
+
+    @Benchmark
+    public ResponseEntity<TodoFull> getTodo() {
+        return this.todosApiController.getTodo(this.randomId());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<TodoList>> getTodos() {
+        return this.todosApiController.getTodos("unfinished", 5, 100, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> updateTodo() {
+        return this.todosApiController.updateTodo(this.randomId(), this.todoBase, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    public ResponseEntity<TodoFull> createTodo() {
+        return this.todosApiController.createTodo(this.todoBase);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    public ResponseEntity<Void> deleteTodo(DeleteState state) {
+        return this.todosApiController.deleteTodo(state.ids.get(state.next++), null);
+    }
+
+}
@@ -0,0 +1,205 @@
+package de.oberdoerfer.todolist.benchmark;
+
+import de.oberdoerfer.todolist.configuration.VirtualThreadConfiguration;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Tomcat's pool of platform threads with virtual threads while the storage is slow.
+ * <p>
+ * Each thread mode starts the application with a delay after every connection checkout, which holds the connection
+ * like a slow database, and with a connection pool large enough for all clients. Closed-loop clients read todos
+ * bypassing the cache at increasing concurrency. Each level reports its throughput and latencies. The maximum sustained
+ * concurrency is the highest level whose median latency stays within 125% of the median latency of the warmup, i.e.
+ * the requests did not queue for threads. The default delay of 5 s keeps the throughput of 1600 clients low enough for
+ * a single core, so the threads rather than the processor limit the concurrency.
+ * <p>
+ * Requires Java 21, run with {@code java --add-opens java.base/java.lang=ALL-UNNAMED -cp target/benchmarks.jar
+ * de.oberdoerfer.todolist.benchmark.VirtualThreadLoadTest [delay-millis] [seconds-per-level]}.
+ */
+public final class VirtualThreadLoadTest {
+
+    private static final int TODOS = 1000;
+
+    private static final int[] CONCURRENCY = {50, 100, 200, 400, 800, 1600};
+
+    private VirtualThreadLoadTest() {
+    }
+
+    /**
+     * Delays every connection checkout by loadtest.delay-millis.
+     * <p>
+     * The component scan of the application covers the benchmarks, so it is only active if the delay is set.
+     */
+    @Configuration
+    @ConditionalOnProperty("loadtest.delay-millis")
+    static class SlowStorage {
+
+        @Bean
+        static BeanPostProcessor slowDataSource(Environment environment) {
+            long delayMillis = environment.getRequiredProperty("loadtest.delay-millis", Long.class);
+            return new BeanPostProcessor() {
+
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                    return bean;
+                }
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource((DataSource) bean) {
+
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            Connection connection = super.getConnection();
+                            try {
+                                Thread.sleep(delayMillis);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return connection;
+                        }
+
+                    };
+                }
+
+            };
+        }
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        long delayMillis = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        // Keep a connection per client alive
+        System.setProperty("http.maxConnections", String.valueOf(CONCURRENCY[CONCURRENCY.length - 1]));
+        ExecutorService clients = VirtualThreadConfiguration.newExecutor();
+
+        System.out.printf("Storage delay %d ms, %d s per level%n", delayMillis, seconds);
+        System.out.printf("%-9s %11s %10s %9s %9s %9s %7s%n", "threads", "concurrency", "requests/s", "p50 ms",
+            "p99 ms", "max ms", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            ConfigurableApplicationContext context = BenchmarkApplication.start(
+                "--todolist.virtual-threads.enabled=" + virtual,
+                "--loadtest.delay-millis=" + delayMillis,
+                "--spring.cache.type=none",
+                "--spring.datasource.generate-unique-name=true",
+                "--spring.datasource.hikari.maximum-pool-size=" + CONCURRENCY[CONCURRENCY.length - 1],
+                "--spring.datasource.hikari.minimum-idle=" + CONCURRENCY[0]);
+            try {
+                BenchmarkApplication.seed(context, TODOS);
+                String url = BenchmarkApplication.url(context) + "/todos/";
+
+                // Warm up the JIT and the connections, its latency is the latency without queueing
+                long[] warmup = Arrays.stream(run(clients, url, CONCURRENCY[0], seconds)).filter(latency -> latency >= 0)
+                    .sorted().toArray();
+                double baseline = millis(warmup, 0.5);
+
+                int sustained = 0;
+                for (int concurrency : CONCURRENCY) {
+                    long[] latencies = run(clients, url, concurrency, seconds);
+                    long errors = Arrays.stream(latencies).filter(latency -> latency < 0).count();
+                    long[] succeeded = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+                    double throughput = (double) succeeded.length / seconds;
+                    System.out.printf("%-9s %11d %10.0f %9.1f %9.1f %9.1f %7d%n", mode, concurrency, throughput,
+                        millis(succeeded, 0.5), millis(succeeded, 0.99), millis(succeeded, 1), errors);
+                    if (errors == 0 && millis(succeeded, 0.5) <= 1.25 * baseline) {
+                        sustained = concurrency;
+                    }
+                }
+                System.out.printf("%-9s maximum sustained concurrency %d%n", mode, sustained);
+            } finally {
+                context.close();
+            }
+        }
+        clients.shutdown();
+    }
+
+    /**
+     * Lets clients read random todos in a closed loop
+     *
+     * @param clients     The executor of the clients
+     * @param url         The URL of the todos
+     * @param concurrency The number of clients
+     * @param seconds     The duration
+     * @return The latencies of all requests in nanoseconds, negative for failed requests
+     */
+    private static long[] run(ExecutorService clients, String url, int concurrency, int seconds) throws Exception {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int client = 0; client < concurrency; client++) {
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                long start;
+                while ((start = System.nanoTime()) < end) {
+                    boolean succeeded = get(url + ThreadLocalRandom.current().nextInt(1, TODOS + 1));
+                    long latency = System.nanoTime() - start;
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = succeeded ? latency : -1;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        return results.stream().flatMapToLong(Arrays::stream).toArray();
+    }
+
+    private static boolean get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (input != null) {
+                    byte[] buffer = new byte[4096];
+                    while (input.read(buffer) >= 0) {
+                        // Read the whole response to reuse the connection
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static double millis(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+}
@@ -0,0 +1,189 @@
+package de.oberdoerfer.todolist.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoImportError;
+import de.oberdoerfer.todolist.model.TodoImportReport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports todos from newline delimited JSON like {@code TodoImportService}, with the same report and error messages.
+ * <p>
+ * The lines are imported in chunks as they arrive, so the memory is bounded by the chunk size and a slow upload holds
+ * no thread. The valid todos of a chunk are stored in one transaction.
+ */
+@Component
+public class ReactiveTodoImporter {
+
+    /**
+     * Maximum number of reported errors, further invalid lines are only counted
+     */
+    static final int MAX_ERRORS = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTodoImporter.class);
+
+    private final ReactiveTodoRepository todoRepository;
+
+    private final Validator validator;
+
+    private final ObjectReader reader;
+
+    private final int chunkSize;
+
+    public ReactiveTodoImporter(ReactiveTodoRepository todoRepository, Validator validator, ObjectMapper objectMapper,
+                                @Value("${todolist.import.chunk-size:1000}") int chunkSize) {
+        this.todoRepository = todoRepository;
+        this.validator = validator;
+        this.reader = objectMapper.readerFor(TodoBase.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports todos, blank lines are skipped
+     *
+     * @param lines  The lines of the newline delimited JSON of the new todos
+     * @param stored Runs after each chunk whose todos were stored
+     * @return The report of the import
+     */
+    @NotNull
+    public Mono<TodoImportReport> importTodos(@NotNull Flux<String> lines, @NotNull Runnable stored) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            TodoImportReport report = new TodoImportReport().imported(0L).failed(0L);
+            // The chunks are imported one after the other, so they update the report sequentially
+            return lines.index()
+                .filter(line -> !line.getT2().trim().isEmpty())
+                .buffer(this.chunkSize)
+                .concatMap(chunk -> this.importChunk(chunk, report, stored))
+                .then(Mono.fromCallable(() -> {
+                    long nanos = Math.max(System.nanoTime() - start, 1);
+                    log.info("Imported {} todos in {} ms, {} todos/s, {} lines failed", report.getImported(),
+                        TimeUnit.NANOSECONDS.toMillis(nanos),
+                        report.getImported() * TimeUnit.SECONDS.toNanos(1) / nanos, report.getFailed());
+                    return report;
+                }));
+        });
+    }
+
+    /**
+     * Imports the lines of a chunk
+     *
+     * @param chunk  The zero based line indexes and lines of the chunk
+     * @param report The report receiving the result of the chunk
+     * @param stored Runs after the todos of the chunk were stored
+     * @return Completes when the chunk is imported
+     */
+    @NotNull
+    private Mono<Void> importChunk(@NotNull List<Tuple2<Long, String>> chunk, @NotNull TodoImportReport report,
+                                   @NotNull Runnable stored) {
+        TodoFull[] todos = new TodoFull[chunk.size()];
+        String[] errors = new String[chunk.size()];
+        List<TodoFull> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            this.parse(chunk.get(i).getT2(), todos, errors, i);
+            if (todos[i] != null) {
+                valid.add(todos[i]);
+            }
+        }
+
+        Mono<Void> inserted = Mono.empty();
+        if (!valid.isEmpty()) {
+            inserted = this.todoRepository.insertAll(valid)
+                .then(Mono.fromRunnable(() -> {
+                    report.setImported(report.getImported() + valid.size());
+                    stored.run();
+                }))
+                .onErrorResume(e -> e instanceof DataAccessException || e instanceof IllegalStateException, e -> {
+                    // The transaction of the chunk is rolled back, so none of its todos is stored
+                    String message = "Todo not stored: " + e.getMessage();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (todos[i] != null) {
+                            errors[i] = message;
+                        }
+                    }
+                    return Mono.empty();
+                })
+                .then();
+        }
+        return inserted.then(Mono.fromRunnable(() -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                if (errors[i] != null) {
+                    report.setFailed(report.getFailed() + 1);
+                    if (report.getErrors().size() < MAX_ERRORS) {
+                        report.addErrorsItem(new TodoImportError(chunk.get(i).getT1() + 1, errors[i]));
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Parses and validates a line
+     *
+     * @param line   The line
+     * @param todos  Receives the parsed and valid todo
+     * @param errors Receives the error of an invalid line
+     * @param index  The index of the line in the chunk
+     */
+    private void parse(@NotNull String line, @NotNull TodoFull[] todos, @NotNull String[] errors, int index) {
+        TodoBase todoBase;
+        try {
+            todoBase = this.reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            errors[index] = e.getOriginalMessage();
+            return;
+        } catch (IOException e) {
+            errors[index] = e.getMessage();
+            return;
+        }
+        String error = this.validate(todoBase);
+        if (error == null) {
+            todos[index] = new TodoFull(todoBase);
+        } else {
+            errors[index] = error;
+        }
+    }
+
+    /**
+     * Validates a new todo
+     *
+     * @param todoBase The new todo
+     * @return The violated constraints ordered by property or null if the todo is valid
+     */
+    @Nullable
+    private String validate(@Nullable TodoBase todoBase) {
+        if (todoBase == null) {
+            return "Todo missing";
+        }
+        Set<ConstraintViolation<TodoBase>> violations = this.validator.validate(todoBase);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+}
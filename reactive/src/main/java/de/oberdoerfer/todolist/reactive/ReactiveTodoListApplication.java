@@ -0,0 +1,24 @@
+package de.oberdoerfer.todolist.reactive;
+
+import de.oberdoerfer.todolist.api.TodoRevision;
+import de.oberdoerfer.todolist.configuration.JacksonConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Serves the todos API of the application on Netty without a thread per request.
+ * <p>
+ * The HTTP contract is the one of {@code TodosApiController}, the todos are stored in the schema of the application
+ * and read through R2DBC. Dates are written by the Jackson modules of the application, the lists are versioned by
+ * its {@link TodoRevision}.
+ */
+@SpringBootApplication
+@Import({JacksonConfiguration.class, TodoRevision.class})
+public class ReactiveTodoListApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveTodoListApplication.class, args);
+    }
+
+}
@@ -0,0 +1,234 @@
+package de.oberdoerfer.todolist.reactive;
+
+import de.oberdoerfer.todolist.model.OffsetDateTimeConverter;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import io.r2dbc.spi.Row;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Non-blocking access to the todos in the schema of the application.
+ * <p>
+ * The statements are the ones of {@code TodoRepository}, so both applications read and write the same rows.
+ */
+@Repository
+public class ReactiveTodoRepository {
+
+    private static final String FULL_COLUMNS = "id, title, description, due_date, done, version";
+
+    private static final String LIST_COLUMNS = "id, title, due_date, done";
+
+    private final OffsetDateTimeConverter offsetDateTimeConverter = new OffsetDateTimeConverter();
+
+    private final DatabaseClient databaseClient;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final TodoIdAllocator todoIdAllocator;
+
+    public ReactiveTodoRepository(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                  TodoIdAllocator todoIdAllocator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.todoIdAllocator = todoIdAllocator;
+    }
+
+    /**
+     * Finds a todo
+     *
+     * @param id The identifier of the todo
+     * @return The todo or empty if it does not exist
+     */
+    @NotNull
+    public Mono<TodoFull> findOne(int id) {
+        return this.databaseClient.sql("SELECT " + FULL_COLUMNS + " FROM todo_full WHERE id = :id")
+            .bind("id", id)
+            .map(this::toTodoFull)
+            .one();
+    }
+
+    /**
+     * Checks whether a todo exists
+     *
+     * @param id The identifier of the todo
+     * @return True if the todo exists
+     */
+    @NotNull
+    public Mono<Boolean> exists(int id) {
+        return this.databaseClient.sql("SELECT 1 FROM todo_full WHERE id = :id")
+            .bind("id", id)
+            .map(row -> Boolean.TRUE)
+            .one()
+            .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    /**
+     * Finds the todo list ordered by identifier.
+     * <p>
+     * Ordering by the constant done column as well lets the database read the (done, id) index in order.
+     *
+     * @param done   The state of the todos or null for all todos
+     * @param lastId The identifier behind which the todos are read for keyset pagination or null
+     * @param limit  The maximum number of todos
+     * @param offset The number of todos to skip
+     * @return The todos
+     */
+    @NotNull
+    public Flux<TodoList> findList(@Nullable Boolean done, @Nullable Integer lastId, int limit, int offset) {
+        StringBuilder sql = new StringBuilder("SELECT " + LIST_COLUMNS + " FROM todo_full WHERE TRUE");
+        if (done != null) {
+            sql.append(" AND done = :done");
+        }
+        if (lastId != null) {
+            sql.append(" AND id > :lastId");
+        }
+        sql.append(done != null ? " ORDER BY done, id" : " ORDER BY id").append(" LIMIT :limit OFFSET :offset");
+
+        DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql.toString())
+            .bind("limit", limit)
+            .bind("offset", offset);
+        if (done != null) {
+            spec = spec.bind("done", done);
+        }
+        if (lastId != null) {
+            spec = spec.bind("lastId", lastId);
+        }
+        return spec.map(row -> new TodoList(row.get("id", Integer.class), row.get("title", String.class),
+            this.toOffsetDateTime(row), row.get("done", Boolean.class))).all();
+    }
+
+    /**
+     * Streams all todos ordered by identifier
+     *
+     * @param done The state of the todos or null for all todos
+     * @return The todos
+     */
+    @NotNull
+    public Flux<TodoFull> streamAll(@Nullable Boolean done) {
+        if (done == null) {
+            return this.databaseClient.sql("SELECT " + FULL_COLUMNS + " FROM todo_full ORDER BY id")
+                .map(this::toTodoFull)
+                .all();
+        }
+        return this.databaseClient.sql("SELECT " + FULL_COLUMNS + " FROM todo_full WHERE done = :done ORDER BY done, id")
+            .bind("done", done)
+            .map(this::toTodoFull)
+            .all();
+    }
+
+    /**
+     * Inserts a new todo
+     *
+     * @param todo The new todo without identifier
+     * @return The stored todo with identifier and version
+     */
+    @NotNull
+    public Mono<TodoFull> insert(@NotNull TodoFull todo) {
+        return this.todoIdAllocator.nextId().flatMap(id -> {
+            TodoFull stored = new TodoFull(id, todo.getTitle(), todo.getDescription(), todo.getDueDate(),
+                todo.isDone(), 0);
+            DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql("INSERT INTO todo_full (" + FULL_COLUMNS
+                + ") VALUES (:id, :title, :description, :dueDate, :done, :version)");
+            return this.bindTodo(spec, stored)
+                .bind("id", id)
+                .bind("version", stored.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(stored);
+        });
+    }
+
+    /**
+     * Inserts new todos in one transaction
+     *
+     * @param todos The new todos without identifiers
+     * @return The stored todos in order of the new todos
+     */
+    @NotNull
+    public Flux<TodoFull> insertAll(@NotNull List<TodoFull> todos) {
+        return Flux.fromIterable(todos)
+            .concatMap(this::insert)
+            .as(this.transactionalOperator::transactional);
+    }
+
+    /**
+     * Deletes a todo
+     *
+     * @param id      The identifier of the todo
+     * @param version The expected version of the todo or null to delete any version
+     * @return The number of deleted todos
+     */
+    @NotNull
+    public Mono<Integer> delete(int id, @Nullable Integer version) {
+        if (version == null) {
+            return this.databaseClient.sql("DELETE FROM todo_full WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+        }
+        return this.databaseClient.sql("DELETE FROM todo_full WHERE id = :id AND version = :version")
+            .bind("id", id)
+            .bind("version", version)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * Updates a todo and increments its version
+     *
+     * @param id      The identifier of the todo
+     * @param version The expected version of the todo or null to update any version
+     * @param todo    The modified todo
+     * @return The number of updated todos
+     */
+    @NotNull
+    public Mono<Integer> update(int id, @Nullable Integer version, @NotNull TodoFull todo) {
+        String sql = "UPDATE todo_full SET title = :title, description = :description, due_date = :dueDate, "
+            + "done = :done, version = version + 1 WHERE id = :id";
+        if (version == null) {
+            return this.bindTodo(this.databaseClient.sql(sql), todo)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+        }
+        return this.bindTodo(this.databaseClient.sql(sql + " AND version = :version"), todo)
+            .bind("id", id)
+            .bind("version", version)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    @NotNull
+    private DatabaseClient.GenericExecuteSpec bindTodo(@NotNull DatabaseClient.GenericExecuteSpec spec,
+                                                       @NotNull TodoFull todo) {
+        spec = spec.bind("title", todo.getTitle())
+            .bind("dueDate", this.offsetDateTimeConverter.convertToDatabaseColumn(todo.getDueDate()))
+            .bind("done", todo.isDone());
+        if (todo.getDescription() == null) {
+            return spec.bindNull("description", String.class);
+        }
+        return spec.bind("description", todo.getDescription());
+    }
+
+    @NotNull
+    private TodoFull toTodoFull(@NotNull Row row) {
+        return new TodoFull(row.get("id", Integer.class), row.get("title", String.class),
+            row.get("description", String.class), this.toOffsetDateTime(row), row.get("done", Boolean.class),
+            row.get("version", Integer.class));
+    }
+
+    @Nullable
+    private OffsetDateTime toOffsetDateTime(@NotNull Row row) {
+        return this.offsetDateTimeConverter.convertToEntityAttribute(row.get("due_date", String.class));
+    }
+
+}
@@ -0,0 +1,366 @@
+package de.oberdoerfer.todolist.reactive;
+
+import de.oberdoerfer.todolist.api.TodoCursor;
+import de.oberdoerfer.todolist.api.TodoETag;
+import de.oberdoerfer.todolist.api.TodoRevision;
+import de.oberdoerfer.todolist.model.ErrorResponse;
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoImportReport;
+import de.oberdoerfer.todolist.model.TodoList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking handler of the todos API with the HTTP contract of {@code TodosApiController}.
+ * <p>
+ * Invalid parameters and bodies are answered with 400 by the error handling of Spring Boot, where the controller
+ * returns 400 itself the handler returns it with the same body.
+ */
+@Component
+public class TodoHandler {
+
+    /**
+     * Maximum number of todos created by one batch, like TodosApiController
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private static final ParameterizedTypeReference<List<TodoBase>> TODO_BASE_LIST =
+        new ParameterizedTypeReference<List<TodoBase>>() {
+        };
+
+    private final ReactiveTodoRepository todoRepository;
+
+    private final ReactiveTodoImporter todoImporter;
+
+    private final Validator validator;
+
+    private final TodoRevision todoRevision;
+
+    public TodoHandler(ReactiveTodoRepository todoRepository, ReactiveTodoImporter todoImporter, Validator validator,
+                       TodoRevision todoRevision) {
+        this.todoRepository = todoRepository;
+        this.todoImporter = todoImporter;
+        this.validator = validator;
+        this.todoRevision = todoRevision;
+    }
+
+    @NotNull
+    public Mono<ServerResponse> createTodo(@NotNull ServerRequest request) {
+        return this.todoBase(request)
+            .flatMap(todoBase -> this.todoRepository.insert(new TodoFull(todoBase)))
+            .doOnNext(todo -> this.todoRevision.increment())
+            .flatMap(todo -> ServerResponse.status(HttpStatus.CREATED)
+                .eTag(TodoETag.of(todo.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(todo));
+    }
+
+    @NotNull
+    public Mono<ServerResponse> createTodos(@NotNull ServerRequest request) {
+        return request.bodyToMono(TODO_BASE_LIST)
+            .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Required request body is missing")))
+            .flatMap(body -> {
+                if (body.size() > MAX_BATCH_SIZE) {
+                    return ServerResponse.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Collections.singletonList(new ErrorResponse().code("size")
+                            .message("At most " + MAX_BATCH_SIZE + " todos per batch")));
+                }
+
+                // Validate all todos before any of them is persisted
+                List<ErrorResponse> errors = new ArrayList<>();
+                for (int i = 0; i < body.size(); i++) {
+                    TodoBase todoBase = body.get(i);
+                    if (todoBase == null) {
+                        errors.add(new ErrorResponse().code("[" + i + "]").message("may not be null"));
+                        continue;
+                    }
+                    int index = i;
+                    this.validator.validate(todoBase).stream()
+                        .map(violation -> new ErrorResponse().code("[" + index + "]." + violation.getPropertyPath())
+                            .message(violation.getMessage()))
+                        .sorted(Comparator.comparing(ErrorResponse::getCode))
+                        .forEach(errors::add);
+                }
+                if (!errors.isEmpty()) {
+                    return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON).bodyValue(errors);
+                }
+
+                // Persist all todos in one transaction
+                List<TodoFull> todos = body.stream().map(TodoFull::new).collect(Collectors.toList());
+                return this.todoRepository.insertAll(todos)
+                    .map(TodoFull::getId)
+                    .collectList()
+                    .doOnNext(ids -> this.todoRevision.increment())
+                    .flatMap(ids -> ServerResponse.status(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(ids));
+            });
+    }
+
+    @NotNull
+    public Mono<ServerResponse> deleteTodo(@NotNull ServerRequest request) {
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        return todoId(request).flatMap(todoId -> {
+            Mono<Integer> deleted;
+            if (TodoETag.isUnconditional(ifMatch)) {
+                deleted = this.todoRepository.delete(todoId, null);
+            } else {
+                Integer version = TodoETag.parse(ifMatch);
+                deleted = version == null ? Mono.just(0) : this.todoRepository.delete(todoId, version);
+            }
+            return deleted.flatMap(count -> count == 0
+                ? this.notWritten(todoId, ifMatch)
+                : this.written());
+        });
+    }
+
+    @NotNull
+    public Mono<ServerResponse> exportTodos(@NotNull ServerRequest request) {
+        String state = stringParam(request, "state", "all");
+        if (!"all".equals(state) && !"unfinished".equals(state)) {
+            return ServerResponse.badRequest().build();
+        }
+
+        // Each todo is written as a line of its own as soon as it is read
+        Boolean done = "unfinished".equals(state) ? Boolean.FALSE : null;
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(this.todoRepository.streamAll(done), TodoFull.class);
+    }
+
+    @NotNull
+    public Mono<ServerResponse> getTodo(@NotNull ServerRequest request) {
+        return todoId(request)
+            .flatMap(this.todoRepository::findOne)
+            .flatMap(todo -> {
+                // A matching If-None-Match is answered with 304 without body
+                String eTag = TodoETag.of(todo.getVersion());
+                return request.checkNotModified(eTag)
+                    .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                        .eTag(eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(todo)));
+            })
+            .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    @NotNull
+    public Mono<ServerResponse> getTodos(@NotNull ServerRequest request) {
+        return Mono.defer(() -> {
+            // The revision is read before the todos, so a page read concurrently to a write is outdated once it
+            // completed
+            long revision = this.todoRevision.get();
+            String state = stringParam(request, "state", "unfinished");
+            int limit = intParam(request, "limit", 5);
+            Integer offset = intParam(request, "offset", null);
+            String cursor = request.queryParam("cursor").orElse(null);
+
+            // Unknown states list all todos like the controller
+            Boolean done = "unfinished".equals(state) ? Boolean.FALSE : null;
+            Integer lastId = null;
+            if (cursor != null) {
+                // Keyset pagination continues behind the last todo of the previous page
+                lastId = TodoCursor.decode(cursor);
+                if (lastId == null || offset != null) {
+                    return ServerResponse.badRequest().build();
+                }
+                offset = 0;
+            } else if (offset == null) {
+                offset = 0;
+            }
+
+            // Answer an unchanged list before any todo is read, unknown states list all todos
+            String eTag = TodoETag.ofList(this.todoRevision.getStart(), revision,
+                done == null ? "all" : "unfinished", limit, offset, cursor);
+            if (TodoETag.matches(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            if (limit < 1) {
+                // Fails like the page request of the controller
+                throw new IllegalArgumentException("Page size must not be less than one!");
+            }
+
+            // Read one additional todo to detect a next page instead of counting all todos
+            return this.todoRepository.findList(done, lastId, limit + 1, offset)
+                .collectList()
+                .flatMap(todos -> {
+                    // Return 204 if empty
+                    if (todos.isEmpty()) {
+                        return ServerResponse.noContent().eTag(eTag).build();
+                    }
+
+                    // Return 200 if end of list reached
+                    if (todos.size() <= limit) {
+                        return ServerResponse.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).bodyValue(todos);
+                    }
+
+                    // Return 206 if there are more elements, together with the cursor of the next page
+                    List<TodoList> page = todos.subList(0, limit);
+                    return ServerResponse.status(HttpStatus.PARTIAL_CONTENT)
+                        .eTag(eTag)
+                        .header(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(page.get(limit - 1).getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(page);
+                });
+        });
+    }
+
+    @NotNull
+    public Mono<ServerResponse> importTodos(@NotNull ServerRequest request) {
+        MediaType contentType = request.headers().contentType().orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (!MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return Mono.error(new UnsupportedMediaTypeStatusException(contentType,
+                Collections.singletonList(MediaType.APPLICATION_NDJSON)));
+        }
+
+        // The decoder splits the body into lines as it arrives, every stored chunk changes the revision right away
+        Mono<TodoImportReport> report = this.todoImporter.importTodos(request.bodyToFlux(String.class),
+            this.todoRevision::increment);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(report, TodoImportReport.class);
+    }
+
+    @NotNull
+    public Mono<ServerResponse> updateTodo(@NotNull ServerRequest request) {
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        return todoId(request).flatMap(todoId -> this.todoBase(request).flatMap(todoBase -> {
+            TodoFull todo = new TodoFull(todoBase);
+            Mono<Integer> updated;
+            if (TodoETag.isUnconditional(ifMatch)) {
+                updated = this.todoRepository.update(todoId, null, todo);
+            } else {
+                Integer version = TodoETag.parse(ifMatch);
+                updated = version == null ? Mono.just(0) : this.todoRepository.update(todoId, version, todo);
+            }
+            return updated.flatMap(count -> count == 0
+                ? this.notWritten(todoId, ifMatch)
+                : this.written());
+        }));
+    }
+
+    /**
+     * Reads and validates the todo of the request body
+     *
+     * @param request The request
+     * @return The valid todo or an error answered with 400
+     */
+    @NotNull
+    private Mono<TodoBase> todoBase(@NotNull ServerRequest request) {
+        return request.bodyToMono(TodoBase.class)
+            .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Required request body is missing")))
+            .handle((todoBase, sink) -> {
+                Set<ConstraintViolation<TodoBase>> violations = this.validator.validate(todoBase);
+                if (violations.isEmpty()) {
+                    sink.next(todoBase);
+                } else {
+                    sink.error(new ServerWebInputException("Invalid todo: " + violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "))));
+                }
+            });
+    }
+
+    /**
+     * Creates the response of a write that affected a todo
+     *
+     * @return 204 after the revision is incremented
+     */
+    @NotNull
+    private Mono<ServerResponse> written() {
+        this.todoRevision.increment();
+        return ServerResponse.noContent().build();
+    }
+
+    /**
+     * Creates the response of a write that affected no todo
+     *
+     * @param todoId  The identifier of the todo
+     * @param ifMatch The value of the If-Match header
+     * @return 412 if the todo exists with a different version or If-Match is {@code *}, otherwise 404
+     */
+    @NotNull
+    private Mono<ServerResponse> notWritten(int todoId, @Nullable String ifMatch) {
+        // If-Match: * requires the todo to exist, so its absence fails the precondition (RFC 7232)
+        Mono<Boolean> exists = ifMatch == null ? Mono.just(false)
+            : TodoETag.isUnconditional(ifMatch) ? Mono.just(true)
+            : this.todoRepository.exists(todoId);
+        return exists.flatMap(existing -> existing
+            ? ServerResponse.status(HttpStatus.PRECONDITION_FAILED).build()
+            : ServerResponse.notFound().build());
+    }
+
+    /**
+     * Gets the todo identifier of the path
+     *
+     * @param request The request
+     * @return The identifier or an error answered with 400 if it is no number
+     */
+    @NotNull
+    private static Mono<Integer> todoId(@NotNull ServerRequest request) {
+        String todoId = request.pathVariable("todo-id");
+        try {
+            return Mono.just(Integer.valueOf(todoId));
+        } catch (NumberFormatException e) {
+            return Mono.error(new ServerWebInputException("Invalid todo identifier: " + todoId));
+        }
+    }
+
+    /**
+     * Gets a query parameter, a missing or empty parameter has the default value
+     *
+     * @param request      The request
+     * @param name         The name of the parameter
+     * @param defaultValue The default value
+     * @return The value of the parameter
+     */
+    @NotNull
+    private static String stringParam(@NotNull ServerRequest request, @NotNull String name,
+                                      @NotNull String defaultValue) {
+        return request.queryParam(name).filter(value -> !value.isEmpty()).orElse(defaultValue);
+    }
+
+    /**
+     * Gets a numeric query parameter, a missing or empty parameter has the default value
+     *
+     * @param request      The request
+     * @param name         The name of the parameter
+     * @param defaultValue The default value or null
+     * @return The value of the parameter
+     * @throws ServerWebInputException If the parameter is no number, answered with 400
+     */
+    @Nullable
+    private static Integer intParam(@NotNull ServerRequest request, @NotNull String name,
+                                    @Nullable Integer defaultValue) {
+        String value = request.queryParam(name).filter(parameter -> !parameter.isEmpty()).orElse(null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid parameter " + name + ": " + value);
+        }
+    }
+
+}
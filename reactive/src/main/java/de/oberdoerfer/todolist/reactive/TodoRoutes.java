@@ -0,0 +1,30 @@
+package de.oberdoerfer.todolist.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes the requests of the todos API to the {@link TodoHandler}
+ */
+@Configuration
+public class TodoRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> todoRouterFunction(TodoHandler todoHandler) {
+        // The fixed paths must precede the paths of single todos
+        return RouterFunctions.route()
+            .POST("/todos", todoHandler::createTodo)
+            .POST("/todos:batch", todoHandler::createTodos)
+            .GET("/todos/export", todoHandler::exportTodos)
+            .POST("/todos/import", todoHandler::importTodos)
+            .DELETE("/todos/{todo-id}", todoHandler::deleteTodo)
+            .GET("/todos/{todo-id}", todoHandler::getTodo)
+            .PUT("/todos/{todo-id}", todoHandler::updateTodo)
+            .GET("/todos", todoHandler::getTodos)
+            .build();
+    }
+
+}
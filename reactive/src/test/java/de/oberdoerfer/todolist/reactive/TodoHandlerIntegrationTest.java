@@ -0,0 +1,579 @@
+package de.oberdoerfer.todolist.reactive;
+
+import de.oberdoerfer.todolist.api.TodoCursor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class TodoHandlerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private String dueDate = "2019-03-17T16:06:38.445Z";
+    private String title = "Test Title";
+
+    private String json(String title, boolean done) {
+        return "{\"title\":\"" + title + "\",\"description\":\"Test Description\",\"dueDate\":\"" + this.dueDate
+            + "\",\"done\":" + done + "}";
+    }
+
+    private int create(boolean done) {
+        return this.webTestClient.post().uri("/todos")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, done))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(TodoId.class)
+            .returnResult().getResponseBody().id;
+    }
+
+    private void remove(int id) {
+        this.webTestClient.delete().uri("/todos/" + id)
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    /**
+     * Identifier of a todo in a response
+     */
+    static class TodoId {
+
+        public int id;
+
+    }
+
+    // Create
+
+    @Test
+    public void testCreateTodo() {
+        // 2. Action
+        TodoId todo = this.webTestClient.post().uri("/todos")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, false))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectHeader().valueEquals("ETag", "\"0\"")
+            .expectBody(TodoId.class)
+            .returnResult().getResponseBody();
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos/" + todo.id)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("id").isEqualTo(todo.id)
+            .jsonPath("title").isEqualTo(this.title)
+            .jsonPath("description").isEqualTo("Test Description")
+            .jsonPath("dueDate").isEqualTo(this.dueDate)
+            .jsonPath("done").isEqualTo(false)
+            .jsonPath("version").doesNotExist();
+
+        // 4. Annihilate
+        this.remove(todo.id);
+    }
+
+    @Test
+    public void testCreateTodoTitleTooLong() {
+        // 2. Action
+        this.webTestClient.post().uri("/todos/")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json("1234567890123456789012345678901", false))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testCreateTodoInvalidDate() {
+        // 2. Action
+        this.webTestClient.post().uri("/todos")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"title\":\"" + this.title + "\",\"dueDate\":\"test\",\"done\":true}")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testCreateTodos() {
+        // 2. Action
+        List<Integer> ids = this.webTestClient.post().uri("/todos:batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[" + this.json(this.title, false) + "," + this.json(this.title, true) + "]")
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBodyList(Integer.class)
+            .returnResult().getResponseBody();
+
+        // 3. Assert
+        assertThat(ids.size(), is(2));
+        assertThat(ids.get(1), is(ids.get(0) + 1));
+
+        // 4. Annihilate
+        ids.forEach(this::remove);
+    }
+
+    @Test
+    public void testCreateTodosInvalid() {
+        // 2. Action
+        this.webTestClient.post().uri("/todos:batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[" + this.json(this.title, false) + "," + this.json("", true) + "]")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(1)
+            .jsonPath("$[0].code").isEqualTo("[1].title")
+            .jsonPath("$[0].message").exists();
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos?state=all")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void testCreateTodosNull() {
+        // 2. Action
+        this.webTestClient.post().uri("/todos:batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[" + this.json(this.title, false) + ",null]")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$[0].code").isEqualTo("[1]")
+            .jsonPath("$[0].message").isEqualTo("may not be null");
+    }
+
+    @Test
+    public void testCreateTodosTooMany() {
+        // 1. Arrange
+        String json = "[" + String.join(",", Collections.nCopies(TodoHandler.MAX_BATCH_SIZE + 1,
+            this.json(this.title, false))) + "]";
+
+        // 2. Action
+        this.webTestClient.post().uri("/todos:batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(json)
+            .exchange()
+            .expectStatus().isEqualTo(413)
+            .expectBody()
+            .jsonPath("$[0].code").isEqualTo("size");
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos?state=all")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    // Delete
+
+    @Test
+    public void testDeleteTodoIfMatchModified() {
+        // 1. Arrange
+        int id = this.create(false);
+
+        // 2. Action
+        this.webTestClient.delete().uri("/todos/" + id)
+            .header("If-Match", "\"1\"")
+            .exchange()
+            .expectStatus().isEqualTo(412);
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testDeleteTodoNotExisting() {
+        // 2. Action
+        this.webTestClient.delete().uri("/todos/999")
+            .header("If-Match", "\"0\"")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testDeleteTodoIfMatchAnyNotExisting() {
+        // 2. Action
+        this.webTestClient.delete().uri("/todos/999")
+            .header("If-Match", "*")
+            .exchange()
+            .expectStatus().isEqualTo(412);
+    }
+
+    // Export
+
+    @Test
+    public void testExportTodosUnfinished() {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+
+        // 2. Action
+        String body = this.webTestClient.get().uri("/todos/export?state=unfinished")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("application/x-ndjson")
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        // 3. Assert
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(1));
+        assertThat(lines[0].contains("\"id\":" + id1), is(true));
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+    }
+
+    @Test
+    public void testExportTodosInvalidState() {
+        // 2. Action
+        this.webTestClient.get().uri("/todos/export?state=done")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    // Get
+
+    @Test
+    public void testGetTodoNotModified() {
+        // 1. Arrange
+        int id = this.create(false);
+
+        // 2. Action
+        this.webTestClient.get().uri("/todos/" + id)
+            .header("If-None-Match", "\"0\"")
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodoNotExisting() {
+        // 2. Action
+        this.webTestClient.get().uri("/todos/999")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testGetTodoInvalidId() {
+        // 2. Action
+        this.webTestClient.get().uri("/todos/abc")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetTodosEmptyList() {
+        // 2. Action
+        this.webTestClient.get().uri("/todos/")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void testGetTodosUnfinished() {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+        int id3 = this.create(false);
+
+        // 2. Action
+        this.webTestClient.get().uri("/todos/?state=unfinished")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(TodoCursor.NEXT_CURSOR_HEADER)
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].id").isEqualTo(id1)
+            .jsonPath("$[0].title").isEqualTo(this.title)
+            .jsonPath("$[0].dueDate").isEqualTo(this.dueDate)
+            .jsonPath("$[0].done").isEqualTo(false)
+            .jsonPath("$[0].description").doesNotExist()
+            .jsonPath("$[1].id").isEqualTo(id3);
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+        this.remove(id3);
+    }
+
+    @Test
+    public void testGetTodosOffset() {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+        int id3 = this.create(false);
+
+        // 2. Action
+        this.webTestClient.get().uri("/todos/?state=all&offset=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].id").isEqualTo(id2)
+            .jsonPath("$[1].id").isEqualTo(id3);
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+        this.remove(id3);
+    }
+
+    @Test
+    public void testGetTodosCursor() {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+        int id3 = this.create(false);
+        int id4 = this.create(false);
+
+        // 2. Action
+        String cursor = this.webTestClient.get().uri("/todos/?limit=2")
+            .exchange()
+            .expectStatus().isEqualTo(206)
+            .expectHeader().valueEquals(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(id3))
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].id").isEqualTo(id1)
+            .jsonPath("$[1].id").isEqualTo(id3)
+            .returnResult().getResponseHeaders().getFirst(TodoCursor.NEXT_CURSOR_HEADER);
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos/?limit=2&cursor=" + cursor)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(TodoCursor.NEXT_CURSOR_HEADER)
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(1)
+            .jsonPath("$[0].id").isEqualTo(id4);
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+        this.remove(id3);
+        this.remove(id4);
+    }
+
+    @Test
+    public void testGetTodosCursorWithOffset() {
+        // 2. Action
+        this.webTestClient.get().uri("/todos/?offset=1&cursor=" + TodoCursor.encode(2))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetTodosIfNoneMatch() {
+        // 1. Arrange
+        int id = this.create(false);
+        String eTag = this.webTestClient.get().uri("/todos/")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value("ETag", startsWith("W/\""))
+            .expectBody().returnResult().getResponseHeaders().getETag();
+
+        // 2. Action
+        this.webTestClient.get().uri("/todos/")
+            .header("If-None-Match", eTag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectHeader().valueEquals("ETag", eTag)
+            .expectBody().isEmpty();
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos/")
+            .header("If-None-Match", "\"other\", " + eTag.substring(2))
+            .exchange()
+            .expectStatus().isNotModified();
+        this.webTestClient.get().uri("/todos/?state=all")
+            .header("If-None-Match", eTag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value("ETag", not(eTag));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodosIfNoneMatchModified() {
+        // 1. Arrange
+        int id = this.create(false);
+        String eTag = this.webTestClient.get().uri("/todos/")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().returnResult().getResponseHeaders().getETag();
+
+        // 2. Action
+        this.webTestClient.put().uri("/todos/" + id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, false))
+            .exchange()
+            .expectStatus().isNoContent();
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos/")
+            .header("If-None-Match", eTag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value("ETag", not(eTag));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodosIfNoneMatchImported() {
+        // 1. Arrange
+        String eTag = this.webTestClient.get().uri("/todos/?state=all")
+            .exchange()
+            .expectBody().returnResult().getResponseHeaders().getETag();
+
+        // 2. Action
+        this.webTestClient.post().uri("/todos/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(this.json(this.title, true) + "\n")
+            .exchange()
+            .expectStatus().isOk();
+
+        // 3. Assert
+        List<TodoId> todos = this.webTestClient.get().uri("/todos/?state=all")
+            .header("If-None-Match", eTag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(TodoId.class)
+            .returnResult().getResponseBody();
+
+        // 4. Annihilate
+        todos.forEach(todo -> this.remove(todo.id));
+    }
+
+    // Import
+
+    @Test
+    public void testImportTodos() {
+        // 1. Arrange
+        String body = this.json(this.title, false) + "\n\n{\"title\":\"\"}\n" + this.json(this.title, true) + "\n";
+
+        // 2. Action
+        this.webTestClient.post().uri("/todos/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("imported").isEqualTo(2)
+            .jsonPath("failed").isEqualTo(1)
+            .jsonPath("errors[0].line").isEqualTo(3)
+            .jsonPath("errors[0].message").isEqualTo("done: may not be null, dueDate: may not be null, "
+                + "title: size must be between 1 and 30");
+
+        // 4. Annihilate
+        String export = this.webTestClient.get().uri("/todos/export")
+            .exchange()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+        for (String line : export.split("\n")) {
+            this.remove(Integer.parseInt(line.replaceAll("^.*\"id\":(\\d+).*$", "$1")));
+        }
+    }
+
+    @Test
+    public void testImportTodosUnsupportedMediaType() {
+        // 2. Action
+        this.webTestClient.post().uri("/todos/import")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, false))
+            .exchange()
+            .expectStatus().isEqualTo(415);
+    }
+
+    // Update
+
+    @Test
+    public void testUpdateTodoIfMatch() {
+        // 1. Arrange
+        int id = this.create(false);
+
+        // 2. Action
+        this.webTestClient.put().uri("/todos/" + id)
+            .header("If-Match", "\"0\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json("Updated Title", true))
+            .exchange()
+            .expectStatus().isNoContent();
+
+        // 3. Assert
+        this.webTestClient.get().uri("/todos/" + id)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("ETag", "\"1\"")
+            .expectBody()
+            .jsonPath("title").isEqualTo("Updated Title")
+            .jsonPath("done").isEqualTo(true);
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchModified() {
+        // 1. Arrange
+        int id = this.create(false);
+
+        // 2. Action
+        this.webTestClient.put().uri("/todos/" + id)
+            .header("If-Match", "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json("Updated Title", true))
+            .exchange()
+            .expectStatus().isEqualTo(412);
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testUpdateTodoNotExisting() {
+        // 2. Action
+        this.webTestClient.put().uri("/todos/999")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, true))
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchAnyNotExisting() {
+        // 2. Action
+        this.webTestClient.put().uri("/todos/999")
+            .header("If-Match", "*")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(this.json(this.title, true))
+            .exchange()
+            .expectStatus().isEqualTo(412);
+    }
+
+}
@@ -0,0 +1,236 @@
+package de.oberdoerfer.todolist;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.InstantDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.OffsetDateTimeSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Reads and writes {@link OffsetDateTime} as RFC 3339 date time with milliseconds, e.g.
+ * {@code 2019-03-17T16:06:38.445Z}, and replaces {@link RFC3339DateFormat}.
+ * <p>
+ * The serializer writes the digits straight into a character buffer of the thread handed to the generator instead of
+ * formatting through a {@link DateTimeFormatter}. The deserializer parses UTC date times from the characters of the parser, other
+ * date times and timestamps are read by the deserializer of the Java time module. Both behave like the Java time
+ * module, except that the milliseconds are always written and finer fractions are truncated.
+ */
+public class RFC3339Module extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Length of a date time with offset {@code +hh:mm}
+     */
+    private static final int MAX_LENGTH = 29;
+
+    /**
+     * Formats the date times out of the range of the fast path
+     */
+    private static final DateTimeFormatter FORMATTER = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .appendLiteral('T')
+        .appendPattern("HH:mm:ss")
+        .appendFraction(ChronoField.NANO_OF_SECOND, 3, 3, true)
+        .appendOffsetId()
+        .toFormatter();
+
+    public RFC3339Module() {
+        super(RFC3339Module.class.getSimpleName());
+        this.addSerializer(OffsetDateTime.class, new RFC3339Serializer());
+        this.addDeserializer(OffsetDateTime.class, new RFC3339Deserializer());
+    }
+
+    /**
+     * Formats a date time
+     *
+     * @param value  The date time
+     * @param buffer The buffer of at least {@value #MAX_LENGTH} characters receiving the date time
+     * @return The length of the date time or -1 if the year or offset is not supported
+     */
+    static int format(@NotNull OffsetDateTime value, @NotNull char[] buffer) {
+        int year = value.getYear();
+        int offsetSeconds = value.getOffset().getTotalSeconds();
+        if (year < 0 || year > 9999 || offsetSeconds % 60 != 0) {
+            return -1;
+        }
+        digits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        digits(buffer, 5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        digits(buffer, 8, value.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        digits(buffer, 11, value.getHour(), 2);
+        buffer[13] = ':';
+        digits(buffer, 14, value.getMinute(), 2);
+        buffer[16] = ':';
+        digits(buffer, 17, value.getSecond(), 2);
+        buffer[19] = '.';
+        digits(buffer, 20, value.getNano() / 1000000, 3);
+        if (offsetSeconds == 0) {
+            buffer[23] = 'Z';
+            return 24;
+        }
+        buffer[23] = offsetSeconds < 0 ? '-' : '+';
+        int offsetMinutes = Math.abs(offsetSeconds) / 60;
+        digits(buffer, 24, offsetMinutes / 60, 2);
+        buffer[26] = ':';
+        digits(buffer, 27, offsetMinutes % 60, 2);
+        return MAX_LENGTH;
+    }
+
+    private static void digits(@NotNull char[] buffer, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Parses a UTC date time like {@code 2019-03-17T16:06:38.445Z} with up to nine fraction digits
+     *
+     * @param text   The characters
+     * @param offset The offset of the date time in the characters
+     * @param length The length of the date time
+     * @return The date time or null if it has another form
+     */
+    @Nullable
+    static OffsetDateTime parseUtc(@NotNull char[] text, int offset, int length) {
+        int end = offset + length;
+        if (length < 20 || text[end - 1] != 'Z' || text[offset + 4] != '-' || text[offset + 7] != '-'
+            || text[offset + 10] != 'T' || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return null;
+        }
+        int nano = 0;
+        if (length > 20) {
+            // The fraction has between one and nine digits
+            int fractionDigits = length - 21;
+            if (text[offset + 19] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                return null;
+            }
+            nano = number(text, offset + 20, fractionDigits);
+            if (nano < 0) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nano *= 10;
+            }
+        }
+        int year = number(text, offset, 4);
+        int month = number(text, offset + 5, 2);
+        int day = number(text, offset + 8, 2);
+        int hour = number(text, offset + 11, 2);
+        int minute = number(text, offset + 14, 2);
+        int second = number(text, offset + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.of(year, month, day, hour, minute, second, nano, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            // Reported by the deserializer of the Java time module
+            return null;
+        }
+    }
+
+    /**
+     * Parses decimal digits
+     *
+     * @return The number or -1 if a character is no digit
+     */
+    private static int number(@NotNull char[] text, int offset, int length) {
+        int number = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char digit = text[i];
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            number = number * 10 + digit - '0';
+        }
+        return number;
+    }
+
+    /**
+     * Writes date times as RFC 3339 string, or as timestamp if {@link SerializationFeature#WRITE_DATES_AS_TIMESTAMPS}
+     * is enabled
+     */
+    static class RFC3339Serializer extends StdSerializer<OffsetDateTime> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Buffer of each thread, the generator copies the characters
+         */
+        private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+        RFC3339Serializer() {
+            super(OffsetDateTime.class);
+        }
+
+        @Override
+        public void serialize(OffsetDateTime value, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+                OffsetDateTimeSerializer.INSTANCE.serialize(value, generator, provider);
+                return;
+            }
+            char[] buffer = BUFFER.get();
+            int length = format(value, buffer);
+            if (length < 0) {
+                generator.writeString(FORMATTER.format(value));
+            } else {
+                generator.writeString(buffer, 0, length);
+            }
+        }
+
+    }
+
+    /**
+     * Reads date times, UTC date times are parsed without formatter as long as they are not adjusted to another time
+     * zone
+     */
+    static class RFC3339Deserializer extends StdScalarDeserializer<OffsetDateTime> {
+
+        private static final long serialVersionUID = 1L;
+
+        RFC3339Deserializer() {
+            super(OffsetDateTime.class);
+        }
+
+        @Override
+        public OffsetDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_STRING) && isUtc(context)) {
+                OffsetDateTime value = parseUtc(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+                if (value != null) {
+                    return value;
+                }
+            }
+            return InstantDeserializer.OFFSET_DATE_TIME.deserialize(parser, context);
+        }
+
+        private static boolean isUtc(@NotNull DeserializationContext context) {
+            return !context.isEnabled(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                || "UTC".equals(context.getTimeZone().getID());
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package de.oberdoerfer.todolist;
 
+import de.oberdoerfer.todolist.storage.TodoSnapshots;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.boot.SpringApplication;
@@ -7,20 +9,53 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.nio.file.Paths;
+import java.util.Collections;
+
 @SpringBootApplication
 @EnableSwagger2
-@ComponentScan(basePackages = { "de.oberdoerfer.todolist", "de.oberdoerfer.todolist.api" , "de.oberdoerfer.todolist.configuration", "de.oberdoerfer.todolist.model", "de.oberdoerfer.todolist.service"})
+@ComponentScan(basePackages = { "de.oberdoerfer.todolist", "de.oberdoerfer.todolist.api" , "de.oberdoerfer.todolist.configuration", "de.oberdoerfer.todolist.model", "de.oberdoerfer.todolist.service", "de.oberdoerfer.todolist.storage"})
 public class Swagger2SpringBoot implements CommandLineRunner {
 
+    @Autowired
+    private TodoSnapshots todoSnapshots;
+
     @Override
     public void run(String... arg0) throws Exception {
         if (arg0.length > 0 && arg0[0].equals("exitcode")) {
             throw new ExitException();
         }
+        if (isSnapshotCommand(arg0)) {
+            this.todoSnapshots.verifyPersistent(arg0[0]);
+            if (arg0[0].equals("export")) {
+                this.todoSnapshots.export(Paths.get(arg0[1]));
+            } else {
+                this.todoSnapshots.importSnapshot(Paths.get(arg0[1]));
+            }
+        }
     }
 
+    /**
+     * Starts the application.
+     * <p>
+     * The commands {@code export <file>} and {@code import <file>} export the todos of the configured storage to a
+     * snapshot file or import a snapshot file into it without starting the web server, and exit afterwards. They
+     * require a persistent storage, i.e. the profile {@code wal} or a database that is not held in memory.
+     *
+     * @param args The command, if any, followed by the application arguments
+     */
     public static void main(String[] args) throws Exception {
-        new SpringApplication(Swagger2SpringBoot.class).run(args);
+        SpringApplication application = new SpringApplication(Swagger2SpringBoot.class);
+        if (isSnapshotCommand(args)) {
+            // Keep the web application context of the controllers, but do not listen on a port
+            application.setDefaultProperties(Collections.singletonMap("server.port", "-1"));
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+        application.run(args);
+    }
+
+    private static boolean isSnapshotCommand(String[] args) {
+        return args.length > 1 && (args[0].equals("export") || args[0].equals("import"));
     }
 
     class ExitException extends RuntimeException implements ExitCodeGenerator {
@@ -0,0 +1,92 @@
+package de.oberdoerfer.todolist.api;
+
+import de.oberdoerfer.todolist.model.TodoBase;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoImportReport;
+import de.oberdoerfer.todolist.model.TodoList;
+import de.oberdoerfer.todolist.service.TodoExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Controller of the profile "async" serving the todos API of {@link TodosApiController} without pinning request
+ * threads.
+ * <p>
+ * The handlers return deferred results which the {@link TodoExecutor} completes with the response of the synchronous
+ * controller. The export already streams asynchronously and the import is bound by reading the request, so both are
+ * delegated directly. The handlers cannot implement {@link TodosApi} with deferred results, so they get the request
+ * mappings of its methods with the same names and parameter types.
+ */
+@Controller
+@Profile("async")
+public class AsyncTodosApiController {
+
+    private final TodosApiController todos;
+
+    private final TodoExecutor todoExecutor;
+
+    @Autowired
+    public AsyncTodosApiController(AutowireCapableBeanFactory beanFactory, TodoExecutor todoExecutor) {
+        // Not registered as bean, so its request mappings are only served by this controller
+        this.todos = beanFactory.createBean(TodosApiController.class);
+        this.todoExecutor = todoExecutor;
+    }
+
+    /**
+     * Runs work of the synchronous controller on the {@link TodoExecutor}, timing it as part of the current request
+     *
+     * @param work The work creating the response
+     * @param <T>  The type of the response body
+     * @return The result completed with the response of the work
+     */
+    private <T> DeferredResult<ResponseEntity<T>> submit(Supplier<ResponseEntity<T>> work) {
+        TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+        return this.todoExecutor.submit(() -> TodoTimings.RequestTiming.call(timing, work));
+    }
+
+    public DeferredResult<ResponseEntity<TodoFull>> createTodo(@Valid @RequestBody TodoBase body) {
+        return this.submit(() -> this.todos.createTodo(body));
+    }
+
+    public DeferredResult<ResponseEntity<List<?>>> createTodos(@Valid @RequestBody List<TodoBase> body) {
+        return this.submit(() -> this.todos.createTodos(body));
+    }
+
+    public DeferredResult<ResponseEntity<Void>> deleteTodo(@PathVariable("todo-id") Integer todoId, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return this.submit(() -> this.todos.deleteTodo(todoId, ifMatch));
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportTodos(@Valid @RequestParam(value = "state", required = false, defaultValue="all") String state) {
+        return this.todos.exportTodos(state);
+    }
+
+    public DeferredResult<ResponseEntity<TodoFull>> getTodo(@PathVariable("todo-id") Integer todoId) {
+        return this.submit(() -> this.todos.getTodo(todoId));
+    }
+
+    public DeferredResult<ResponseEntity<List<TodoList>>> getTodos(@Valid @RequestParam(value = "state", required = false, defaultValue="unfinished") String state, @Min(0) @Max(10) @Valid @RequestParam(value = "limit", required = false, defaultValue="5") Integer limit, @Min(0) @Max(100) @Valid @RequestParam(value = "offset", required = false) Integer offset, @Valid @RequestParam(value = "cursor", required = false) String cursor, @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return this.submit(() -> this.todos.getTodos(state, limit, offset, cursor, ifNoneMatch));
+    }
+
+    public ResponseEntity<TodoImportReport> importTodos(InputStream body) {
+        return this.todos.importTodos(body);
+    }
+
+    public DeferredResult<ResponseEntity<Void>> updateTodo(@PathVariable("todo-id") Integer todoId, @Valid @RequestBody TodoBase body, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return this.submit(() -> this.todos.updateTodo(todoId, body, ifMatch));
+    }
+
+}
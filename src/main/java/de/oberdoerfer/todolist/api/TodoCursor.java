@@ -0,0 +1,60 @@
+package de.oberdoerfer.todolist.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination of the todo list.
+ * <p>
+ * A cursor points behind the last todo of a page, so the next page can be read with
+ * {@code WHERE id > ? ORDER BY id} instead of skipping {@code offset} rows.
+ */
+public final class TodoCursor {
+
+    /**
+     * Response header carrying the cursor of the next page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private TodoCursor() {
+    }
+
+    /**
+     * Encodes a cursor pointing behind the given todo identifier
+     *
+     * @param lastId The identifier of the last todo of the current page
+     * @return The opaque cursor
+     */
+    @NotNull
+    public static String encode(int lastId) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(Integer.BYTES).putInt(lastId).array());
+    }
+
+    /**
+     * Decodes a cursor created by {@link #encode(int)}
+     *
+     * @param cursor The opaque cursor
+     * @return The identifier of the last todo of the previous page or null if the cursor is invalid
+     */
+    @Nullable
+    public static Integer decode(@NotNull String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != Integer.BYTES) {
+            return null;
+        }
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+}
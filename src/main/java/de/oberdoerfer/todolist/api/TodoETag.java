@@ -0,0 +1,109 @@
+package de.oberdoerfer.todolist.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Strong entity tag of a todo derived from its version, and weak entity tag of a list of todos derived from the
+ * {@link TodoRevision}.
+ * <p>
+ * Clients send it back in {@code If-Match} to update or delete a todo only if nobody modified it in between, and in
+ * {@code If-None-Match} to skip the body of an unmodified todo or list.
+ */
+public final class TodoETag {
+
+    /**
+     * Entity tag matching any existing todo
+     */
+    private static final String ANY = "*";
+
+    private TodoETag() {
+    }
+
+    /**
+     * Creates the entity tag of a todo version
+     *
+     * @param version The version of the todo
+     * @return The quoted entity tag, e.g. {@code "3"}
+     */
+    @NotNull
+    public static String of(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Creates the entity tag of a list of todos
+     *
+     * @param start    The identifier of the application start
+     * @param revision The revision of the todos
+     * @param state    The state of the todos, "unfinished" or "all"
+     * @param limit    The maximum number of todos
+     * @param offset   The offset of the list or null
+     * @param cursor   The cursor of the list or null
+     * @return The weak entity tag, e.g. {@code W/"1a2b-42-unfinished-5-0"}
+     */
+    @NotNull
+    public static String ofList(@NotNull String start, long revision, @NotNull String state, int limit,
+                                @Nullable Integer offset, @Nullable String cursor) {
+        return "W/\"" + start + "-" + revision + "-" + state + "-" + limit + "-"
+            + (cursor == null ? String.valueOf(offset == null ? 0 : offset) : cursor) + "\"";
+    }
+
+    /**
+     * Checks with the weak comparison whether an {@code If-None-Match} header matches an entity tag
+     *
+     * @param ifNoneMatch The value of the {@code If-None-Match} header
+     * @param entityTag   The entity tag of the current representation
+     * @return True if the client already has the current representation
+     */
+    public static boolean matches(@Nullable String ifNoneMatch, @NotNull String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = opaqueTag(entityTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (ANY.equals(trimmed) || opaqueTag.equals(opaqueTag(trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an {@code If-Match} header imposes no version, i.e. it is missing or matches any todo
+     *
+     * @param ifMatch The value of the {@code If-Match} header
+     * @return True if the todo may be written regardless of its version, though {@code *} still requires it to exist
+     */
+    public static boolean isUnconditional(@Nullable String ifMatch) {
+        return ifMatch == null || ANY.equals(ifMatch.trim());
+    }
+
+    /**
+     * Parses the version of an {@code If-Match} header.
+     * <p>
+     * Weak entity tags and lists of entity tags are not supported and never match.
+     *
+     * @param ifMatch The value of the {@code If-Match} header
+     * @return The expected version or null if the header contains no single strong entity tag of a version
+     */
+    @Nullable
+    public static Integer parse(@NotNull String ifMatch) {
+        String entityTag = ifMatch.trim();
+        if (entityTag.length() < 3 || entityTag.charAt(0) != '"' || entityTag.charAt(entityTag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Integer.valueOf(entityTag.substring(1, entityTag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    private static String opaqueTag(@NotNull String entityTag) {
+        return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+    }
+
+}
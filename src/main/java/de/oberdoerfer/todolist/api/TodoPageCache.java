@@ -0,0 +1,233 @@
+package de.oberdoerfer.todolist.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.oberdoerfer.todolist.model.TodoList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the serialized responses of GET /todos by state, limit and cursor.
+ * <p>
+ * A page is valid as long as the {@link TodoRevision} read before reading its todos is current, so every write
+ * invalidates all pages at once. The first pages are kept in a slot per state and limit, so a hit of the default page
+ * allocates nothing. The pages of cursors are kept in a bounded map per slot. Requests with an offset, an unknown state
+ * or a limit outside of the API are not cached.
+ * <p>
+ * The hits are answered by the {@link TodoPageCacheFilter} before the dispatcher, the misses are stored by the
+ * controller. The counters are published as {@code cache.pages.hits} and {@code cache.pages.misses}.
+ */
+@Component
+public class TodoPageCache implements PublicMetrics {
+
+    /**
+     * Maximum of the limit parameter of the API
+     */
+    static final int MAX_LIMIT = 10;
+
+    /**
+     * Maximum number of cursor pages per state and limit, the pages are dropped once it is exceeded
+     */
+    static final int MAX_CURSOR_PAGES = 1024;
+
+    private static final int DEFAULT_LIMIT = 5;
+
+    private final TodoRevision todoRevision;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final AtomicReferenceArray<Page> firstPages;
+
+    private final List<ConcurrentMap<String, Page>> cursorPages;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public TodoPageCache(TodoRevision todoRevision, ObjectMapper objectMapper,
+                         @Value("${todolist.page-cache.enabled:true}") boolean enabled) {
+        this.todoRevision = todoRevision;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        int slots = TodosApiController.TodoState.values().length * MAX_LIMIT;
+        this.firstPages = new AtomicReferenceArray<>(slots);
+        this.cursorPages = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            this.cursorPages.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Serialized response of a page
+     */
+    static final class Page {
+
+        private final long revision;
+
+        private final int status;
+
+        private final byte[] body;
+
+        @Nullable
+        private final String eTag;
+
+        @Nullable
+        private final String nextCursor;
+
+        Page(long revision, int status, @NotNull byte[] body, @Nullable String eTag, @Nullable String nextCursor) {
+            this.revision = revision;
+            this.status = status;
+            this.body = body;
+            this.eTag = eTag;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * Writes the response
+         *
+         * @param response The response of the request
+         */
+        void writeTo(@NotNull HttpServletResponse response) throws IOException {
+            response.setStatus(this.status);
+            if (this.eTag != null) {
+                response.setHeader(HttpHeaders.ETAG, this.eTag);
+            }
+            if (this.nextCursor != null) {
+                response.setHeader(TodoCursor.NEXT_CURSOR_HEADER, this.nextCursor);
+            }
+            if (this.body.length > 0) {
+                response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+                response.setContentLength(this.body.length);
+                response.getOutputStream().write(this.body);
+            }
+        }
+
+    }
+
+    /**
+     * Gets the current page of the request parameters
+     *
+     * @param state  The state parameter
+     * @param limit  The limit parameter
+     * @param offset The offset parameter
+     * @param cursor The cursor parameter
+     * @return The page or null if it is not cached or not current
+     */
+    @Nullable
+    Page get(@Nullable String state, @Nullable String limit, @Nullable String offset, @Nullable String cursor) {
+        if (!this.enabled || offset != null) {
+            return null;
+        }
+        int slot = slot(state == null || state.isEmpty() ? "unfinished" : state,
+            limit == null || limit.isEmpty() ? DEFAULT_LIMIT : parseLimit(limit));
+        if (slot < 0 || "".equals(cursor)) {
+            return null;
+        }
+        Page page = cursor == null ? this.firstPages.get(slot) : this.cursorPages.get(slot).get(cursor);
+        if (page == null || page.revision != this.todoRevision.get()) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return page;
+    }
+
+    /**
+     * Stores the page of a response of the controller
+     *
+     * @param state    The state of the request
+     * @param limit    The limit of the request
+     * @param cursor   The cursor of the request, null for the first page
+     * @param revision The revision read before reading the todos
+     * @param response The response
+     */
+    void put(@NotNull String state, @NotNull Integer limit, @Nullable String cursor, long revision,
+             @NotNull ResponseEntity<List<TodoList>> response) {
+        HttpStatus status = response.getStatusCode();
+        int slot = slot(state, limit);
+        if (!this.enabled || slot < 0 || (status != HttpStatus.OK && status != HttpStatus.NO_CONTENT
+            && status != HttpStatus.PARTIAL_CONTENT)) {
+            return;
+        }
+        byte[] body;
+        try {
+            body = response.hasBody() ? this.objectMapper.writeValueAsBytes(response.getBody()) : new byte[0];
+        } catch (JsonProcessingException e) {
+            // Serialized again and reported by the message converter
+            return;
+        }
+        Page page = new Page(revision, status.value(), body, response.getHeaders().getETag(),
+            response.getHeaders().getFirst(TodoCursor.NEXT_CURSOR_HEADER));
+        if (cursor == null) {
+            this.firstPages.set(slot, page);
+        } else {
+            ConcurrentMap<String, Page> pages = this.cursorPages.get(slot);
+            if (pages.size() >= MAX_CURSOR_PAGES) {
+                pages.clear();
+            }
+            pages.put(cursor, page);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+            new Metric<>("cache.pages.hits", this.hits.sum()),
+            new Metric<>("cache.pages.misses", this.misses.sum()));
+    }
+
+    /**
+     * Gets the slot of a state and limit
+     *
+     * @return The slot or -1 if the state is unknown or the limit is out of range
+     */
+    private static int slot(@NotNull String state, int limit) {
+        TodosApiController.TodoState todoState = TodosApiController.TodoState.getEnum(state);
+        if (todoState == null || limit < 1 || limit > MAX_LIMIT) {
+            return -1;
+        }
+        return todoState.ordinal() * MAX_LIMIT + limit - 1;
+    }
+
+    /**
+     * Parses a limit without allocating
+     *
+     * @return The limit or -1 if it is no small number
+     */
+    private static int parseLimit(@NotNull String limit) {
+        if (limit.length() > 2) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < limit.length(); i++) {
+            char digit = limit.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            value = value * 10 + digit - '0';
+        }
+        return value;
+    }
+
+}
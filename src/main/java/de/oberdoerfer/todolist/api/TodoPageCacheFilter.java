@@ -0,0 +1,66 @@
+package de.oberdoerfer.todolist.api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers GET /todos from the {@link TodoPageCache} before the dispatcher, so a hit neither reads nor serializes todos.
+ * <p>
+ * Requests not accepting JSON and requests with {@code If-None-Match} are passed on, so they are answered by the
+ * controller, which answers an unchanged list with 304 before reading todos.
+ */
+@Component
+public class TodoPageCacheFilter extends OncePerRequestFilter {
+
+    private static final String PATH = "/todos";
+
+    private final TodoPageCache todoPageCache;
+
+    public TodoPageCacheFilter(TodoPageCache todoPageCache) {
+        this.todoPageCache = todoPageCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if ("GET".equals(request.getMethod()) && isTodosPath(request) && acceptsJson(request)
+            && request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            TodoPageCache.Page page = this.todoPageCache.get(request.getParameter("state"),
+                request.getParameter("limit"), request.getParameter("offset"), request.getParameter("cursor"));
+            if (page != null) {
+                TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+                if (timing != null) {
+                    timing.setOperation("getTodos");
+                    timing.startSerialization();
+                }
+                page.writeTo(response);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Checks without allocating whether the request is for /todos or /todos/
+     */
+    private static boolean isTodosPath(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        int length = uri.length() - start;
+        return (length == PATH.length() || length == PATH.length() + 1 && uri.charAt(uri.length() - 1) == '/')
+            && uri.startsWith(PATH, start);
+    }
+
+    private static boolean acceptsJson(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept == null || accept.contains("json") || accept.contains("*/*");
+    }
+
+}
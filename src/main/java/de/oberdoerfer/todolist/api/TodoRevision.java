@@ -0,0 +1,50 @@
+package de.oberdoerfer.todolist.api;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revision of the todos, the write epoch incremented by every write of {@link TodosApiController}.
+ * <p>
+ * A response computed from the todos is current as long as the revision read before reading the todos is. The
+ * revision is incremented after the write completed, so a response read concurrently to a write is outdated at the
+ * latest when the write returns.
+ * <p>
+ * The revision restarts with the application, so it is only unique together with the identifier of the application
+ * start.
+ */
+@Component
+public class TodoRevision {
+
+    private final String start = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final AtomicLong revision = new AtomicLong();
+
+    /**
+     * Gets the identifier of the application start
+     *
+     * @return The random identifier
+     */
+    public String getStart() {
+        return this.start;
+    }
+
+    /**
+     * Gets the current revision
+     *
+     * @return The revision
+     */
+    public long get() {
+        return this.revision.get();
+    }
+
+    /**
+     * Increments the revision after a write
+     */
+    public void increment() {
+        this.revision.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,87 @@
+package de.oberdoerfer.todolist.api;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Marks the parse and serialization phases of the {@link TodoTimings.RequestTiming} of a request around the message
+ * converters.
+ * <p>
+ * Spring only applies an advice implementing both body advice interfaces to request bodies, so each phase is marked by
+ * an advice of its own.
+ */
+public final class TodoTimingAdvice {
+
+    private TodoTimingAdvice() {
+    }
+
+    /**
+     * Marks the parse phase around reading the request body
+     */
+    @ControllerAdvice
+    public static class Parse extends RequestBodyAdviceAdapter {
+
+        @Override
+        public boolean supports(MethodParameter methodParameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+                                               Type targetType, Class<? extends HttpMessageConverter<?>> converterType)
+            throws IOException {
+            TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+            if (timing != null) {
+                timing.startParse();
+            }
+            return inputMessage;
+        }
+
+        @Override
+        public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                    Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+            TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+            if (timing != null) {
+                timing.stopParse();
+            }
+            return body;
+        }
+
+    }
+
+    /**
+     * Marks the start of the serialization phase before writing the response body
+     */
+    @ControllerAdvice
+    public static class Serialization implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+            if (timing != null && body != null) {
+                timing.startSerialization();
+            }
+            return body;
+        }
+
+    }
+
+}
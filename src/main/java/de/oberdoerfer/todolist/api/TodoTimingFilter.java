@@ -0,0 +1,95 @@
+package de.oberdoerfer.todolist.api;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Times each request in the {@link TodoTimings}, before the {@link TodoPageCacheFilter} so the hits are timed as well.
+ * <p>
+ * A request with the header {@value #SERVER_TIMING_REQUEST_HEADER} gets the durations of its phases in the
+ * {@code Server-Timing} header. The header has to precede the body, so the body of such a request is buffered until the
+ * request completed. The export streams all todos, so it is never buffered and gets no {@code Server-Timing} header.
+ * Asynchronous requests are recorded when their last dispatch completed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TodoTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Header switching on the {@code Server-Timing} header of the response
+     */
+    public static final String SERVER_TIMING_REQUEST_HEADER = "X-Server-Timing";
+
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String EXPORT_PATH = "/todos/export";
+
+    private static final String TIMING_ATTRIBUTE = TodoTimingFilter.class.getName() + ".timing";
+
+    private final TodoTimings todoTimings;
+
+    public TodoTimingFilter(TodoTimings todoTimings) {
+        this.todoTimings = todoTimings;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        TodoTimings.RequestTiming timing = (TodoTimings.RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        if (timing == null) {
+            timing = this.todoTimings.start();
+            if (timing == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            request.setAttribute(TIMING_ATTRIBUTE, timing);
+        }
+
+        // The dispatches of an asynchronous request share the buffer created by the first one
+        ContentCachingResponseWrapper buffer = null;
+        if (request.getHeader(SERVER_TIMING_REQUEST_HEADER) != null && !isExport(request)) {
+            buffer = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            if (buffer == null) {
+                buffer = new ContentCachingResponseWrapper(response);
+                response = buffer;
+            }
+        }
+
+        TodoTimings.RequestTiming previous = TodoTimings.bind(timing);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TodoTimings.bind(previous);
+            if (!request.isAsyncStarted()) {
+                long endNanos = System.nanoTime();
+                this.todoTimings.record(timing, endNanos);
+                if (buffer != null) {
+                    buffer.setHeader(SERVER_TIMING_HEADER, timing.toServerTiming(endNanos));
+                    buffer.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private static boolean isExport(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        return uri.length() - start == EXPORT_PATH.length() && uri.startsWith(EXPORT_PATH, start);
+    }
+
+}
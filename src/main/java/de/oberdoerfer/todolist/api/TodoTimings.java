@@ -0,0 +1,326 @@
+package de.oberdoerfer.todolist.api;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latencies of the operations of the todos API by phase, recorded in HdrHistograms since the start of the application.
+ * <p>
+ * The {@link TodoTimingFilter} measures each request in a {@link RequestTiming} bound to the threads working on the
+ * request, the phases are marked where they happen. The histograms are written in the Prometheus text format as
+ * summary {@code todolist_request_seconds} with the labels {@code operation} and {@code phase}, whose count per second
+ * is the throughput of an operation. The quantiles are accurate to 1%.
+ */
+@Component
+public class TodoTimings {
+
+    /**
+     * Phases of a request
+     */
+    public enum Phase {
+
+        /**
+         * Reading and deserializing the request body, only recorded for requests with a body
+         */
+        parse,
+
+        /**
+         * Calling the todo repository, summed up over all calls of a request
+         */
+        repository,
+
+        /**
+         * Serializing and writing the response body, only recorded for responses with a body
+         */
+        serialization,
+
+        /**
+         * The whole request
+         */
+        total
+
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final boolean enabled;
+
+    private final ConcurrentMap<String, Timer[]> operations = new ConcurrentHashMap<>();
+
+    public TodoTimings(@Value("${todolist.timings.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Latencies of a phase of an operation
+     */
+    private static final class Timer {
+
+        private final Histogram histogram = new ConcurrentHistogram(LOWEST_NANOS, HIGHEST_NANOS, 2);
+
+        private final LongAdder sumNanos = new LongAdder();
+
+        void record(long nanos) {
+            this.histogram.recordValue(Math.max(LOWEST_NANOS, Math.min(nanos, HIGHEST_NANOS)));
+            this.sumNanos.add(nanos);
+        }
+
+    }
+
+    /**
+     * Timing of a request, marked by the threads working on it one after the other
+     */
+    public static final class RequestTiming {
+
+        private final long startNanos;
+
+        private final long[] phaseNanos = new long[Phase.values().length];
+
+        private String operation;
+
+        private long parseStartNanos;
+
+        private int repositoryDepth;
+
+        private long repositoryStartNanos;
+
+        private boolean serializing;
+
+        private long serializationStartNanos;
+
+        RequestTiming(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Gets the timing of the request of the current thread
+         *
+         * @return The timing or null if the thread works on no timed request
+         */
+        @Nullable
+        public static RequestTiming current() {
+            return CURRENT.get();
+        }
+
+        /**
+         * Calls work with the timing bound to the current thread, e.g. on the thread of an executor
+         *
+         * @param timing The timing of the request or null
+         * @param work   The work of the request
+         * @param <T>    The type of the result
+         * @return The result of the work
+         */
+        public static <T> T call(@Nullable RequestTiming timing, @NotNull Supplier<T> work) {
+            RequestTiming previous = CURRENT.get();
+            CURRENT.set(timing);
+            try {
+                return work.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        }
+
+        /**
+         * Sets the operation of the todos API handling the request
+         *
+         * @param operation The name of the operation, e.g. getTodos
+         */
+        public void setOperation(@NotNull String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Marks the start of reading the request body
+         */
+        public void startParse() {
+            this.parseStartNanos = System.nanoTime();
+        }
+
+        /**
+         * Marks the end of reading the request body
+         */
+        public void stopParse() {
+            this.phaseNanos[Phase.parse.ordinal()] += System.nanoTime() - this.parseStartNanos;
+        }
+
+        /**
+         * Marks the start of a repository call, nested calls are part of the outermost one
+         */
+        public void startRepository() {
+            if (this.repositoryDepth++ == 0) {
+                this.repositoryStartNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * Marks the end of a repository call
+         */
+        public void stopRepository() {
+            if (--this.repositoryDepth == 0) {
+                this.phaseNanos[Phase.repository.ordinal()] += System.nanoTime() - this.repositoryStartNanos;
+            }
+        }
+
+        /**
+         * Marks the start of writing the response body, which lasts until the end of the request
+         */
+        public void startSerialization() {
+            if (!this.serializing) {
+                this.serializing = true;
+                this.serializationStartNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * Gets the nanoseconds of a phase
+         *
+         * @param phase    The phase
+         * @param endNanos The end of the request
+         * @return The nanoseconds or -1 if the phase did not occur
+         */
+        long getNanos(@NotNull Phase phase, long endNanos) {
+            switch (phase) {
+                case total:
+                    return endNanos - this.startNanos;
+                case serialization:
+                    return this.serializing ? endNanos - this.serializationStartNanos : -1;
+                default:
+                    long nanos = this.phaseNanos[phase.ordinal()];
+                    return nanos == 0 ? -1 : nanos;
+            }
+        }
+
+        /**
+         * Creates the value of a {@code Server-Timing} header
+         *
+         * @param endNanos The end of the request
+         * @return The durations of the phases in milliseconds, e.g. {@code repository;dur=1.204, total;dur=2.351}
+         */
+        @NotNull
+        String toServerTiming(long endNanos) {
+            StringBuilder serverTiming = new StringBuilder();
+            for (Phase phase : Phase.values()) {
+                long nanos = this.getNanos(phase, endNanos);
+                if (nanos >= 0) {
+                    serverTiming.append(serverTiming.length() == 0 ? "" : ", ").append(phase.name())
+                        .append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+                }
+            }
+            return serverTiming.toString();
+        }
+
+    }
+
+    /**
+     * Starts the timing of a request
+     *
+     * @return The timing or null if the timings are disabled
+     */
+    @Nullable
+    RequestTiming start() {
+        return this.enabled ? new RequestTiming(System.nanoTime()) : null;
+    }
+
+    /**
+     * Binds the timing of a request to the current thread
+     *
+     * @param timing The timing or null
+     * @return The timing bound before
+     */
+    @Nullable
+    static RequestTiming bind(@Nullable RequestTiming timing) {
+        RequestTiming previous = CURRENT.get();
+        CURRENT.set(timing);
+        return previous;
+    }
+
+    /**
+     * Records the phases of a completed request, requests of no operation are ignored
+     *
+     * @param timing   The timing of the request
+     * @param endNanos The end of the request
+     */
+    void record(@NotNull RequestTiming timing, long endNanos) {
+        if (timing.operation == null) {
+            return;
+        }
+        Timer[] timers = this.operations.computeIfAbsent(timing.operation, operation -> {
+            Timer[] phaseTimers = new Timer[Phase.values().length];
+            for (int i = 0; i < phaseTimers.length; i++) {
+                phaseTimers[i] = new Timer();
+            }
+            return phaseTimers;
+        });
+        for (Phase phase : Phase.values()) {
+            long nanos = timing.getNanos(phase, endNanos);
+            if (nanos >= 0) {
+                timers[phase.ordinal()].record(nanos);
+            }
+        }
+    }
+
+    /**
+     * Writes the latencies in the Prometheus text format
+     *
+     * @return The text
+     */
+    @NotNull
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP todolist_request_seconds Latency of the todos API by operation and phase\n");
+        text.append("# TYPE todolist_request_seconds summary\n");
+        for (Map.Entry<String, Timer[]> entry : this.operations.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                Timer timer = entry.getValue()[phase.ordinal()];
+                Histogram histogram = timer.histogram.copy();
+                String labels = labels(entry.getKey(), phase);
+                for (double quantile : QUANTILES) {
+                    text.append("todolist_request_seconds{").append(labels).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(histogram.getValueAtPercentile(quantile * 100))).append('\n');
+                }
+                text.append("todolist_request_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(timer.sumNanos.sum())).append('\n');
+                text.append("todolist_request_seconds_count{").append(labels).append("} ")
+                    .append(histogram.getTotalCount()).append('\n');
+            }
+        }
+        text.append("# HELP todolist_request_seconds_max Maximum latency of the todos API by operation and phase\n");
+        text.append("# TYPE todolist_request_seconds_max gauge\n");
+        for (Map.Entry<String, Timer[]> entry : this.operations.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                text.append("todolist_request_seconds_max{").append(labels(entry.getKey(), phase)).append("} ")
+                    .append(seconds(entry.getValue()[phase.ordinal()].histogram.getMaxValue())).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    @NotNull
+    private static String labels(@NotNull String operation, @NotNull Phase phase) {
+        return "operation=\"" + operation + "\",phase=\"" + phase.name() + "\"";
+    }
+
+    @NotNull
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+}
@@ -10,18 +10,21 @@ import io.swagger.annotations.*;
 import de.oberdoerfer.todolist.model.ErrorResponse;
 import de.oberdoerfer.todolist.model.TodoBase;
 import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoImportReport;
 import de.oberdoerfer.todolist.model.TodoList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 @javax.annotation.Generated(value = "io.swagger.codegen.languages.SpringCodegen", date = "2019-03-15T19:21:55.765Z")
@@ -45,7 +48,8 @@ public interface TodosApi {
 
     @ApiOperation(value = "Create Todo", nickname = "createTodo", notes = "Create a new todo.", response = TodoFull.class, tags={ "Todos", })
     @ApiResponses(value = { 
-        @ApiResponse(code = 201, message = "Todo created.", response = TodoFull.class),
+        @ApiResponse(code = 201, message = "Todo created.", response = TodoFull.class, responseHeaders = {
+            @ResponseHeader(name = "ETag", description = "Entity tag of the todo version", response = String.class) }),
         @ApiResponse(code = 400, message = "Invalid new todo.", response = ErrorResponse.class, responseContainer = "List") })
     @RequestMapping(value = "/todos",
         produces = { "application/json" }, 
@@ -68,14 +72,57 @@ public interface TodosApi {
     }
 
 
+    @ApiOperation(value = "Create Todos", nickname = "createTodos", notes = "Create several new todos in one transaction.", response = Integer.class, responseContainer = "List", tags={ "Todos", })
+    @ApiResponses(value = { 
+        @ApiResponse(code = 201, message = "Todos created, identifiers in order of the new todos.", response = Integer.class, responseContainer = "List"),
+        @ApiResponse(code = 400, message = "Invalid new todos, each violation coded with the index and property of the todo, e.g. [1].title.", response = ErrorResponse.class, responseContainer = "List"),
+        @ApiResponse(code = 413, message = "More than 1000 new todos.", response = ErrorResponse.class, responseContainer = "List") })
+    @RequestMapping(value = "/todos:batch",
+        produces = { "application/json" }, 
+        consumes = { "application/json" },
+        method = RequestMethod.POST)
+    default ResponseEntity<List<?>> createTodos(@ApiParam(value = "The new todos."  )  @Valid @RequestBody List<TodoBase> body) {
+        if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
+            if (getAcceptHeader().get().contains("application/json")) {
+                try {
+                    return new ResponseEntity<>(getObjectMapper().get().readValue("[ 1, 2, 3 ]", List.class), HttpStatus.NOT_IMPLEMENTED);
+                } catch (IOException e) {
+                    log.error("Couldn't serialize response for content type application/json", e);
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            }
+        } else {
+            log.warn("ObjectMapper or HttpServletRequest not configured in default TodosApi interface so no example is generated");
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
+    }
+
+
     @ApiOperation(value = "Delete Todo", nickname = "deleteTodo", notes = "Delete an existing todo.", tags={ "Todos", })
     @ApiResponses(value = { 
         @ApiResponse(code = 204, message = "Todo deleted."),
-        @ApiResponse(code = 404, message = "Todo not found.") })
+        @ApiResponse(code = 404, message = "Todo not found."),
+        @ApiResponse(code = 412, message = "Todo was modified.") })
     @RequestMapping(value = "/todos/{todo-id}",
         produces = { "application/json" }, 
         method = RequestMethod.DELETE)
-    default ResponseEntity<Void> deleteTodo(@ApiParam(value = "The todo identifier.",required=true) @PathVariable("todo-id") Integer todoId) {
+    default ResponseEntity<Void> deleteTodo(@ApiParam(value = "The todo identifier.",required=true) @PathVariable("todo-id") Integer todoId,@ApiParam(value = "Entity tag of the expected todo version."  ) @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
+        } else {
+            log.warn("ObjectMapper or HttpServletRequest not configured in default TodosApi interface so no example is generated");
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
+    }
+
+
+    @ApiOperation(value = "Export Todos", nickname = "exportTodos", notes = "Stream all todos as newline-delimited JSON, one todo per line.", response = TodoFull.class, responseContainer = "List", tags={ "Todos", })
+    @ApiResponses(value = { 
+        @ApiResponse(code = 200, message = "Todos in identifier order.", response = TodoFull.class, responseContainer = "List"),
+        @ApiResponse(code = 400, message = "Invalid query params", response = ErrorResponse.class, responseContainer = "List") })
+    @RequestMapping(value = "/todos/export",
+        produces = { "application/x-ndjson" }, 
+        method = RequestMethod.GET)
+    default ResponseEntity<StreamingResponseBody> exportTodos(@ApiParam(value = "Filters all or unfinished todos in the response", allowableValues = "all, unfinished", defaultValue = "all") @Valid @RequestParam(value = "state", required = false, defaultValue="all") String state) {
         if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
         } else {
             log.warn("ObjectMapper or HttpServletRequest not configured in default TodosApi interface so no example is generated");
@@ -86,7 +133,9 @@ public interface TodosApi {
 
     @ApiOperation(value = "Get Todo", nickname = "getTodo", notes = "Request an existing todo.", response = TodoFull.class, tags={ "Todos", })
     @ApiResponses(value = { 
-        @ApiResponse(code = 200, message = "Todo found.", response = TodoFull.class),
+        @ApiResponse(code = 200, message = "Todo found.", response = TodoFull.class, responseHeaders = {
+            @ResponseHeader(name = "ETag", description = "Entity tag of the todo version", response = String.class) }),
+        @ApiResponse(code = 304, message = "Todo not modified."),
         @ApiResponse(code = 404, message = "Todo not found.") })
     @RequestMapping(value = "/todos/{todo-id}",
         produces = { "application/json" }, 
@@ -112,12 +161,14 @@ public interface TodosApi {
     @ApiResponses(value = { 
         @ApiResponse(code = 200, message = "List of todos.", response = TodoList.class, responseContainer = "List"),
         @ApiResponse(code = 204, message = "Empty list of todos"),
-        @ApiResponse(code = 206, message = "Partial list of todos.", response = TodoList.class),
+        @ApiResponse(code = 206, message = "Partial list of todos.", response = TodoList.class, responseHeaders = {
+            @ResponseHeader(name = "X-Next-Cursor", description = "Cursor of the next page", response = String.class) }),
+        @ApiResponse(code = 304, message = "List of todos not modified"),
         @ApiResponse(code = 400, message = "Invalid query params", response = ErrorResponse.class, responseContainer = "List") })
     @RequestMapping(value = "/todos",
         produces = { "application/json" }, 
         method = RequestMethod.GET)
-    default ResponseEntity<List<TodoList>> getTodos(@ApiParam(value = "Filters all or unfinished todos in the response", allowableValues = "all, unfinished", defaultValue = "unfinished") @Valid @RequestParam(value = "state", required = false, defaultValue="unfinished") String state,@Min(0) @Max(10) @ApiParam(value = "Maximal number of todos in the response", defaultValue = "5") @Valid @RequestParam(value = "limit", required = false, defaultValue="5") Integer limit,@Min(0) @Max(100) @ApiParam(value = "Offset for the todos in the response") @Valid @RequestParam(value = "offset", required = false) Integer offset) {
+    default ResponseEntity<List<TodoList>> getTodos(@ApiParam(value = "Filters all or unfinished todos in the response", allowableValues = "all, unfinished", defaultValue = "unfinished") @Valid @RequestParam(value = "state", required = false, defaultValue="unfinished") String state,@Min(0) @Max(10) @ApiParam(value = "Maximal number of todos in the response", defaultValue = "5") @Valid @RequestParam(value = "limit", required = false, defaultValue="5") Integer limit,@Min(0) @Max(100) @ApiParam(value = "Offset for the todos in the response") @Valid @RequestParam(value = "offset", required = false) Integer offset,@ApiParam(value = "Cursor of the next page taken from the X-Next-Cursor header of a partial response, replaces offset") @Valid @RequestParam(value = "cursor", required = false) String cursor,@ApiParam(value = "Entity tag of a previous list, answered without body while the todos are unchanged."  ) @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
             if (getAcceptHeader().get().contains("application/json")) {
                 try {
@@ -134,16 +185,41 @@ public interface TodosApi {
     }
 
 
+    @ApiOperation(value = "Import Todos", nickname = "importTodos", notes = "Create new todos from newline-delimited JSON, one todo per line. Invalid lines are reported and skipped.", response = TodoImportReport.class, tags={ "Todos", })
+    @ApiResponses(value = { 
+        @ApiResponse(code = 200, message = "Import finished, lines which could not be imported are reported.", response = TodoImportReport.class) })
+    @RequestMapping(value = "/todos/import",
+        produces = { "application/json" }, 
+        consumes = { "application/x-ndjson" },
+        method = RequestMethod.POST)
+    default ResponseEntity<TodoImportReport> importTodos(@ApiParam(value = "The new todos."  ) InputStream body) {
+        if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
+            if (getAcceptHeader().get().contains("application/json")) {
+                try {
+                    return new ResponseEntity<>(getObjectMapper().get().readValue("{  \"imported\" : 2,  \"failed\" : 1,  \"errors\" : [ {  \"line\" : 2,  \"message\" : \"title: may not be empty\"} ]}", TodoImportReport.class), HttpStatus.NOT_IMPLEMENTED);
+                } catch (IOException e) {
+                    log.error("Couldn't serialize response for content type application/json", e);
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            }
+        } else {
+            log.warn("ObjectMapper or HttpServletRequest not configured in default TodosApi interface so no example is generated");
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
+    }
+
+
     @ApiOperation(value = "Update Todo", nickname = "updateTodo", notes = "Update an existing todo.", tags={ "Todos", })
     @ApiResponses(value = { 
         @ApiResponse(code = 204, message = "Todo updated."),
         @ApiResponse(code = 400, message = "Invalid modified todo.", response = ErrorResponse.class, responseContainer = "List"),
-        @ApiResponse(code = 404, message = "Todo not found.") })
+        @ApiResponse(code = 404, message = "Todo not found."),
+        @ApiResponse(code = 412, message = "Todo was modified.") })
     @RequestMapping(value = "/todos/{todo-id}",
         produces = { "application/json" }, 
         consumes = { "application/json" },
         method = RequestMethod.PUT)
-    default ResponseEntity<Void> updateTodo(@ApiParam(value = "The todo identifier.",required=true) @PathVariable("todo-id") Integer todoId,@ApiParam(value = "The modified todo."  )  @Valid @RequestBody TodoBase body) {
+    default ResponseEntity<Void> updateTodo(@ApiParam(value = "The todo identifier.",required=true) @PathVariable("todo-id") Integer todoId,@ApiParam(value = "The modified todo."  )  @Valid @RequestBody TodoBase body,@ApiParam(value = "Entity tag of the expected todo version."  ) @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if(getObjectMapper().isPresent() && getAcceptHeader().isPresent()) {
         } else {
             log.warn("ObjectMapper or HttpServletRequest not configured in default TodosApi interface so no example is generated");
@@ -3,29 +3,45 @@ package de.oberdoerfer.todolist.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
 import de.oberdoerfer.todolist.model.*;
+import de.oberdoerfer.todolist.service.TodoExportService;
+import de.oberdoerfer.todolist.service.TodoImportService;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @javax.annotation.Generated(value = "io.swagger.codegen.languages.SpringCodegen", date = "2019-03-15T19:21:55.765Z")
 
 @Controller
+@Profile("!async")
 public class TodosApiController implements TodosApi {
 
+    /**
+     * Maximum number of todos created in one transaction by POST /todos:batch
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
     /**
      * Enum class to define the state of a todo
      */
@@ -70,6 +86,21 @@ public class TodosApiController implements TodosApi {
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TodoExportService todoExportService;
+
+    @Autowired
+    private TodoImportService todoImportService;
+
+    @Autowired
+    private TodoRevision todoRevision;
+
+    @Autowired
+    private TodoPageCache todoPageCache;
+
     private final ObjectMapper objectMapper;
 
     private final HttpServletRequest request;
@@ -92,74 +123,232 @@ public class TodosApiController implements TodosApi {
 
     @Override
     public ResponseEntity<TodoFull> createTodo(@Valid @RequestBody TodoBase body) {
-        return new ResponseEntity<TodoFull>(this.todoRepository.save(new TodoFull(body)), HttpStatus.CREATED);
+        TodoFull todo = this.todoRepository.save(new TodoFull(body));
+        this.todoRevision.increment();
+        return new ResponseEntity<TodoFull>(todo, eTagHeaders(todo), HttpStatus.CREATED);
     }
 
     @Override
-    public ResponseEntity<Void> deleteTodo(@PathVariable("todo-id") Integer todoId) {
-        TodoFull todo = this.todoRepository.findOne(todoId);
-        if (todo == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<List<?>> createTodos(@Valid @RequestBody List<TodoBase> body) {
+        if (body.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(Collections.singletonList(new ErrorResponse().code("size")
+                .message("At most " + MAX_BATCH_SIZE + " todos per batch")), HttpStatus.PAYLOAD_TOO_LARGE);
         }
-        this.todoRepository.delete(todoId);
+
+        // Validate all todos before any of them is persisted
+        List<ErrorResponse> errors = new ArrayList<>();
+        for (int i = 0; i < body.size(); i++) {
+            TodoBase todoBase = body.get(i);
+            if (todoBase == null) {
+                errors.add(new ErrorResponse().code("[" + i + "]").message("may not be null"));
+                continue;
+            }
+            int index = i;
+            this.validator.validate(todoBase).stream()
+                .map(violation -> new ErrorResponse().code("[" + index + "]." + violation.getPropertyPath())
+                    .message(violation.getMessage()))
+                .sorted(Comparator.comparing(ErrorResponse::getCode))
+                .forEach(errors::add);
+        }
+        if (!errors.isEmpty()) {
+            return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+        }
+
+        // Persist all todos in one transaction, the inserts are sent in JDBC batches
+        List<TodoFull> todos = body.stream().map(TodoFull::new).collect(Collectors.toList());
+        List<Integer> ids = new ArrayList<>(todos.size());
+        for (TodoFull todo : this.todoRepository.save(todos)) {
+            ids.add(todo.getId());
+        }
+        this.todoRevision.increment();
+        return new ResponseEntity<>(ids, HttpStatus.CREATED);
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteTodo(@PathVariable("todo-id") Integer todoId, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        int deleted;
+        if (TodoETag.isUnconditional(ifMatch)) {
+            deleted = this.todoRepository.deleteById(todoId);
+        } else {
+            Integer version = TodoETag.parse(ifMatch);
+            deleted = version == null ? 0 : this.todoRepository.deleteByIdAndVersion(todoId, version);
+        }
+        if (deleted == 0) {
+            return this.notWritten(todoId, ifMatch);
+        }
+        this.todoRevision.increment();
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportTodos(@Valid @RequestParam(value = "state", required = false, defaultValue="all") String state) {
+        TodoState todoState = TodoState.getEnum(state);
+        if (todoState == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        // The todos are written after the handler returned, on a thread of the asynchronous request processing
+        Boolean done = todoState == TodoState.unfinished ? Boolean.FALSE : null;
+        StreamingResponseBody body = output -> this.todoExportService.export(done, output);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, TodoExportService.CONTENT_TYPE);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<TodoFull> getTodo(@PathVariable("todo-id") Integer todoId) {
         TodoFull todo = this.todoRepository.findOne(todoId);
         if (todo == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<TodoFull>(todo, HttpStatus.OK);
+        // Spring answers a matching If-None-Match with 304 and skips serializing the body
+        return new ResponseEntity<TodoFull>(todo, eTagHeaders(todo), HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<List<TodoList>> getTodos(@Valid @RequestParam(value = "state", required = false, defaultValue="unfinished") String state, @Valid @RequestParam(value = "limit", required = false, defaultValue="5") Integer limit, @Valid @RequestParam(value = "offset", required = false) Integer offset) {
-        // Handle limit and offset
+    public ResponseEntity<List<TodoList>> getTodos(@Valid @RequestParam(value = "state", required = false, defaultValue="unfinished") String state, @Valid @RequestParam(value = "limit", required = false, defaultValue="5") Integer limit, @Valid @RequestParam(value = "offset", required = false) Integer offset, @Valid @RequestParam(value = "cursor", required = false) String cursor, @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        // The revision is read before the todos, so a page read concurrently to a write is outdated once it completed
+        long revision = this.todoRevision.get();
+        ResponseEntity<List<TodoList>> response = this.findTodos(state, limit, offset, cursor, revision, ifNoneMatch);
         if (offset == null) {
-            offset = 0;
+            this.todoPageCache.put(state, limit, cursor, revision, response);
         }
-        Pageable pageable = new OffsetPageRequest(limit, offset);
+        return response;
+    }
 
-        // Get todoList with desired state
-        Page<TodoFull> todoListPage;
+    /**
+     * Reads a page of todos
+     *
+     * @param state       The state of the todos
+     * @param limit       The maximum number of todos
+     * @param offset      The offset of the page or null
+     * @param cursor      The cursor of the page or null
+     * @param revision    The revision of the todos read before reading them
+     * @param ifNoneMatch The value of the {@code If-None-Match} header
+     * @return The response of the page
+     */
+    @NotNull
+    private ResponseEntity<List<TodoList>> findTodos(@NotNull String state, @NotNull Integer limit,
+                                                     @Nullable Integer offset, @Nullable String cursor, long revision,
+                                                     @Nullable String ifNoneMatch) {
         TodoState todoState = TodoState.getEnum(state);
-        if (todoState == TodoState.unfinished) {
-            todoListPage = this.todoRepository.findAllByDone(false, pageable);
+        Integer lastId = null;
+        if (cursor != null) {
+            lastId = TodoCursor.decode(cursor);
+            if (lastId == null || offset != null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        // Answer an unchanged list before any todo is read, unknown states list all todos
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(TodoETag.ofList(this.todoRevision.getStart(), revision,
+            (todoState == TodoState.unfinished ? TodoState.unfinished : TodoState.all).getName(), limit, offset,
+            cursor));
+        if (TodoETag.matches(ifNoneMatch, headers.getETag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        // Get todoList with desired state
+        Slice<TodoList> todoListSlice;
+        if (lastId != null) {
+            // Keyset pagination continues behind the last todo of the previous page
+            Pageable pageable = new PageRequest(0, limit);
+            if (todoState == TodoState.unfinished) {
+                todoListSlice = this.todoRepository.findListByDoneAndIdGreaterThan(false, lastId, pageable);
+            } else {
+                todoListSlice = this.todoRepository.findListByIdGreaterThan(lastId, pageable);
+            }
         } else {
-            todoListPage = this.todoRepository.findAll(pageable);
+            // Handle limit and offset
+            if (offset == null) {
+                offset = 0;
+            }
+            Pageable pageable = new OffsetPageRequest(limit, offset);
+            if (todoState == TodoState.unfinished) {
+                todoListSlice = this.todoRepository.findListByDone(false, pageable);
+            } else {
+                todoListSlice = this.todoRepository.findListBy(pageable);
+            }
         }
 
-        // Convert result list of TodoFull items to list of TodoList items
-        List<TodoList> resultList = todoListPage.getContent().stream().map(TodoList::new).collect(Collectors.toList());
+        List<TodoList> resultList = todoListSlice.getContent();
 
         // Return 204 if empty
         if (resultList.isEmpty()) {
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
         }
 
         // Return 200 if end of list reached
-        if (todoListPage.isLast()) {
-            return new ResponseEntity<List<TodoList>>(resultList, HttpStatus.OK);
+        if (!todoListSlice.hasNext()) {
+            return new ResponseEntity<List<TodoList>>(resultList, headers, HttpStatus.OK);
         }
 
-        // Return 206 if there are more elements
-        return new ResponseEntity<List<TodoList>>(resultList, HttpStatus.PARTIAL_CONTENT);
+        // Return 206 if there are more elements, together with the cursor of the next page
+        headers.set(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(resultList.get(resultList.size() - 1).getId()));
+        return new ResponseEntity<List<TodoList>>(resultList, headers, HttpStatus.PARTIAL_CONTENT);
     }
 
     @Override
-    public ResponseEntity<Void> updateTodo(@PathVariable("todo-id") Integer todoId, @Valid @RequestBody TodoBase body) {
-        TodoFull todo = this.todoRepository.findOne(todoId);
-        if (todo == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<TodoImportReport> importTodos(InputStream body) {
+        try {
+            // Every stored chunk is visible to the listings, so it changes the revision right away
+            return new ResponseEntity<TodoImportReport>(
+                this.todoImportService.importTodos(body, this.todoRevision::increment), HttpStatus.OK);
+        } catch (IOException e) {
+            // The client aborted the upload, the chunks imported before stay stored
+            throw new UncheckedIOException(e);
         }
-        todo.setDone(body.isDone());
-        todo.setDueDate(body.getDueDate());
-        todo.setDescription(body.getDescription());
-        todo.setTitle(body.getTitle());
-        this.todoRepository.save(todo);
+    }
+
+    @Override
+    public ResponseEntity<Void> updateTodo(@PathVariable("todo-id") Integer todoId, @Valid @RequestBody TodoBase body, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        int updated;
+        if (TodoETag.isUnconditional(ifMatch)) {
+            updated = this.todoRepository.updateById(todoId, body.getTitle(), body.getDescription(),
+                body.getDueDate(), body.isDone());
+        } else {
+            Integer version = TodoETag.parse(ifMatch);
+            updated = version == null ? 0 : this.todoRepository.updateByIdAndVersion(todoId, version,
+                body.getTitle(), body.getDescription(), body.getDueDate(), body.isDone());
+        }
+        if (updated == 0) {
+            return this.notWritten(todoId, ifMatch);
+        }
+        this.todoRevision.increment();
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Creates the headers carrying the entity tag of a todo
+     *
+     * @param todo The persisted todo
+     * @return The headers with the entity tag
+     */
+    @NotNull
+    private static HttpHeaders eTagHeaders(@NotNull TodoFull todo) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(TodoETag.of(todo.getVersion()));
+        return headers;
+    }
+
+    /**
+     * Creates the response of a write that affected no todo
+     *
+     * @param todoId  The identifier of the todo
+     * @param ifMatch The value of the If-Match header
+     * @return 412 if the todo exists with a different version or If-Match is {@code *}, otherwise 404
+     */
+    @NotNull
+    private ResponseEntity<Void> notWritten(@NotNull Integer todoId, @Nullable String ifMatch) {
+        if (ifMatch == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // If-Match: * requires the todo to exist, so its absence fails the precondition (RFC 7232)
+        if (TodoETag.isUnconditional(ifMatch) || this.todoRepository.exists(todoId)) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
 }
@@ -0,0 +1,52 @@
+package de.oberdoerfer.todolist.configuration;
+
+import de.oberdoerfer.todolist.api.AsyncTodosApiController;
+import de.oberdoerfer.todolist.api.TodosApi;
+import org.springframework.boot.autoconfigure.web.WebMvcRegistrations;
+import org.springframework.boot.autoconfigure.web.WebMvcRegistrationsAdapter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Maps the handlers of the {@link AsyncTodosApiController} with the request mappings of {@link TodosApi} in the profile
+ * "async".
+ * <p>
+ * The handlers return deferred results, so the controller cannot implement the interface. Each handler gets the
+ * mapping of the interface method with the same name and parameter types instead, so both controllers serve the same
+ * contract.
+ */
+@Configuration
+@Profile("async")
+public class AsyncMappingConfiguration {
+
+    @Bean
+    public WebMvcRegistrations asyncTodosApiRegistrations() {
+        return new WebMvcRegistrationsAdapter() {
+
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestMappingHandlerMapping() {
+
+                    @Override
+                    protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+                        if (handlerType != AsyncTodosApiController.class) {
+                            return super.getMappingForMethod(method, handlerType);
+                        }
+                        Method apiMethod = ReflectionUtils.findMethod(TodosApi.class, method.getName(),
+                            method.getParameterTypes());
+                        return apiMethod == null ? null : super.getMappingForMethod(apiMethod, handlerType);
+                    }
+
+                };
+            }
+
+        };
+    }
+
+}
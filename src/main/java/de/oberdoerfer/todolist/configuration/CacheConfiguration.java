@@ -0,0 +1,130 @@
+package de.oberdoerfer.todolist.configuration;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enables the caches configured by the spring.cache properties and publishes their counters.
+ * <p>
+ * Puts and evictions within a transaction are deferred until it committed, so an eviction cannot be followed by a
+ * read of the todo before the write is visible. {@code @CacheEvict} evicts a single key or all entries, so the todo
+ * repository is wrapped in a proxy evicting the todos of its batch writes by identifier.
+ * <p>
+ * The actuator only publishes hit and miss ratios, the counters are published as
+ * {@code cache.<name>.hits}, {@code cache.<name>.misses} and {@code cache.<name>.evictions}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Bean
+    public static BeanPostProcessor transactionAwareCacheManagerPostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof CacheManager) || bean instanceof TransactionAwareCacheManagerProxy) {
+                    return bean;
+                }
+                return new TransactionAwareCacheManagerProxy((CacheManager) bean);
+            }
+
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor todoRepositoryEvictionPostProcessor(BeanFactory beanFactory) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof TodoRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addInterface(TodoRepository.class);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    String name = invocation.getMethod().getName();
+                    Object[] arguments = invocation.getArguments();
+                    if (!(arguments.length == 1 && arguments[0] instanceof Iterable
+                        && ("save".equals(name) || "restore".equals(name)))) {
+                        return invocation.proceed();
+                    }
+                    Iterable<?> todos = (Iterable<?>) arguments[0];
+                    try {
+                        Object result = invocation.proceed();
+                        if (result instanceof Iterable) {
+                            // Created todos are evicted by their new identifiers, since absent todos are cached
+                            todos = (Iterable<?>) result;
+                        }
+                        return result;
+                    } finally {
+                        // A restore commits batch by batch, so a failed one may have written some of the todos
+                        Cache cache = beanFactory.getBean(CacheManager.class).getCache(TodoRepository.CACHE);
+                        for (Object todo : todos) {
+                            Integer id = ((TodoFull) todo).getId();
+                            if (id != null) {
+                                cache.evict(id);
+                            }
+                        }
+                    }
+                });
+                return proxyFactory.getProxy();
+            }
+
+        };
+    }
+
+    @Bean
+    public PublicMetrics cacheCounterMetrics() {
+        return () -> {
+            List<Metric<?>> metrics = new ArrayList<>();
+            for (String name : this.cacheManager.getCacheNames()) {
+                Cache cache = this.cacheManager.getCache(name);
+                if (cache instanceof TransactionAwareCacheDecorator) {
+                    cache = ((TransactionAwareCacheDecorator) cache).getTargetCache();
+                }
+                if (cache instanceof CaffeineCache) {
+                    CacheStats stats = ((CaffeineCache) cache).getNativeCache().stats();
+                    metrics.add(new Metric<>("cache." + name + ".hits", stats.hitCount()));
+                    metrics.add(new Metric<>("cache." + name + ".misses", stats.missCount()));
+                    metrics.add(new Metric<>("cache." + name + ".evictions", stats.evictionCount()));
+                }
+            }
+            return metrics;
+        };
+    }
+
+}
@@ -0,0 +1,104 @@
+package de.oberdoerfer.todolist.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the HikariCP connection pool by the threads doing storage work and tracks it in the
+ * {@link ConnectionPoolMetrics}.
+ * <p>
+ * Each thread doing storage work gets a connection, so no request queues in the pool: the todolist.async.threads
+ * threads of the todo executor in the profile "async", otherwise the request threads of Tomcat. The embedded database
+ * runs on the threads of its callers, so a smaller pool does not relieve it, but only lengthens the tail latency since
+ * the pool does not hand its connections over in order, see PoolSizeLoadTest of the benchmarks. With
+ * todolist.virtual-threads.enabled the requests are not bounded by threads, so the pool gets as many connections as
+ * Tomcat has request threads otherwise and bounds the storage work itself. A connection is only held for a
+ * transaction, since spring.jpa.open-in-view is off and the export reads the todos page by page. Half of the
+ * connections are kept idle, so the pool shrinks when idle but a burst finds connections. An explicit
+ * spring.datasource.hikari.maximum-pool-size or minimum-idle takes precedence.
+ * <p>
+ * The beans are created before the placeholders of {@code @Value} can be resolved, so they read their properties from
+ * the environment.
+ */
+@Configuration
+public class ConnectionPoolConfiguration {
+
+    /**
+     * Default number of request threads of Tomcat
+     */
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    /**
+     * Connections Flyway holds while migrating the schema
+     */
+    private static final int MIN_POOL_SIZE = 2;
+
+    @Bean
+    public static ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    @Bean
+    public static BeanPostProcessor hikariDataSourcePostProcessor(ConnectionPoolMetrics connectionPoolMetrics,
+                                                                  Environment environment) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource)) {
+                    return bean;
+                }
+                // The properties of spring.datasource.hikari are already bound
+                HikariDataSource dataSource = (HikariDataSource) bean;
+                if (!environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+                    dataSource.setMaximumPoolSize(poolSize(environment));
+                }
+                if (!environment.containsProperty("spring.datasource.hikari.minimum-idle")) {
+                    dataSource.setMinimumIdle(minimumIdle(dataSource.getMaximumPoolSize()));
+                }
+                dataSource.setMetricsTrackerFactory(connectionPoolMetrics);
+                return dataSource;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+        };
+    }
+
+    /**
+     * Derives the size of the pool from the threads doing storage work
+     *
+     * @param environment The environment
+     * @return The number of connections
+     */
+    public static int poolSize(Environment environment) {
+        int threads;
+        if (environment.acceptsProfiles("async")) {
+            threads = environment.getProperty("todolist.async.threads", Integer.class, 10);
+        } else {
+            // Virtual threads replace the request threads, but not the bound of the storage work
+            threads = environment.getProperty("server.tomcat.max-threads", Integer.class, 0);
+            if (threads <= 0) {
+                threads = TOMCAT_MAX_THREADS;
+            }
+        }
+        return Math.max(threads, MIN_POOL_SIZE);
+    }
+
+    /**
+     * Gets the number of idle connections kept by the pool
+     *
+     * @param poolSize The number of connections
+     * @return Half of the connections, but at least one and fewer than all if possible
+     */
+    static int minimumIdle(int poolSize) {
+        return Math.max(poolSize / 2, 1);
+    }
+
+}
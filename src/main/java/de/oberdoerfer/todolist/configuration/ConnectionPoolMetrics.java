@@ -0,0 +1,124 @@
+package de.oberdoerfer.todolist.configuration;
+
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saturation of the HikariCP connection pool, tracked by the pool itself.
+ * <p>
+ * The active, idle and pending counts show whether requests wait for connections, the histogram of the acquire times
+ * how long they wait. The metrics are served at /metrics as pool.* and at /prometheus, the profile "memory" has no pool
+ * and no metrics. The quantiles are accurate to 1%.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, PublicMetrics {
+
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Histogram acquireNanos = new ConcurrentHistogram(HIGHEST_NANOS, 2);
+
+    private final LongAdder acquireSumNanos = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    @Override
+    public MetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new MetricsTracker() {
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                ConnectionPoolMetrics.this.acquireNanos.recordValue(Math.min(elapsedAcquiredNanos, HIGHEST_NANOS));
+                ConnectionPoolMetrics.this.acquireSumNanos.add(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                ConnectionPoolMetrics.this.timeouts.increment();
+            }
+
+        };
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        PoolStats poolStats = this.poolStats;
+        if (poolStats == null) {
+            return Collections.emptyList();
+        }
+        Histogram acquireNanos = this.acquireNanos.copy();
+        return Arrays.asList(
+            new Metric<>("pool.active", poolStats.getActiveConnections()),
+            new Metric<>("pool.idle", poolStats.getIdleConnections()),
+            new Metric<>("pool.pending", poolStats.getPendingThreads()),
+            new Metric<>("pool.total", poolStats.getTotalConnections()),
+            new Metric<>("pool.timeouts", this.timeouts.sum()),
+            new Metric<>("pool.acquire.count", acquireNanos.getTotalCount()),
+            new Metric<>("pool.acquire.p50-micros", micros(acquireNanos.getValueAtPercentile(50))),
+            new Metric<>("pool.acquire.p99-micros", micros(acquireNanos.getValueAtPercentile(99))),
+            new Metric<>("pool.acquire.max-micros", micros(acquireNanos.getMaxValue())));
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text format
+     *
+     * @return The gauges {@code todolist_pool_connections} by state and {@code todolist_pool_pending_threads}, the
+     * summary {@code todolist_pool_acquire_seconds} and the counter {@code todolist_pool_timeouts_total}, or nothing
+     * without a pool
+     */
+    @NotNull
+    public String toPrometheus() {
+        PoolStats poolStats = this.poolStats;
+        if (poolStats == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP todolist_pool_connections Connections of the pool by state\n");
+        text.append("# TYPE todolist_pool_connections gauge\n");
+        text.append("todolist_pool_connections{state=\"active\"} ").append(poolStats.getActiveConnections())
+            .append('\n');
+        text.append("todolist_pool_connections{state=\"idle\"} ").append(poolStats.getIdleConnections()).append('\n');
+        text.append("# HELP todolist_pool_pending_threads Threads waiting for a connection of the pool\n");
+        text.append("# TYPE todolist_pool_pending_threads gauge\n");
+        text.append("todolist_pool_pending_threads ").append(poolStats.getPendingThreads()).append('\n');
+
+        Histogram acquireNanos = this.acquireNanos.copy();
+        text.append("# HELP todolist_pool_acquire_seconds Time to acquire a connection of the pool\n");
+        text.append("# TYPE todolist_pool_acquire_seconds summary\n");
+        for (double quantile : QUANTILES) {
+            text.append("todolist_pool_acquire_seconds{quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(acquireNanos.getValueAtPercentile(quantile * 100))).append('\n');
+        }
+        text.append("todolist_pool_acquire_seconds_sum ").append(seconds(this.acquireSumNanos.sum())).append('\n');
+        text.append("todolist_pool_acquire_seconds_count ").append(acquireNanos.getTotalCount()).append('\n');
+        text.append("# HELP todolist_pool_timeouts_total Requests for a connection of the pool that timed out\n");
+        text.append("# TYPE todolist_pool_timeouts_total counter\n");
+        text.append("todolist_pool_timeouts_total ").append(this.timeouts.sum()).append('\n');
+        return text.toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @NotNull
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+}
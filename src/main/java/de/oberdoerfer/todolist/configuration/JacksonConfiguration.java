@@ -0,0 +1,21 @@
+package de.oberdoerfer.todolist.configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import de.oberdoerfer.todolist.RFC3339Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the Jackson modules of the application.
+ * <p>
+ * Spring Boot registers them after the Java time module, so their serializers take precedence.
+ */
+@Configuration
+public class JacksonConfiguration {
+
+    @Bean
+    public Module rfc3339Module() {
+        return new RFC3339Module();
+    }
+
+}
@@ -0,0 +1,48 @@
+package de.oberdoerfer.todolist.configuration;
+
+import de.oberdoerfer.todolist.api.TodoTimings;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Actuator endpoint /prometheus writing the {@link TodoTimings} and the {@link ConnectionPoolMetrics} in the Prometheus
+ * text format.
+ * <p>
+ * Enabled by endpoints.prometheus.enabled, it is sensitive like /metrics unless endpoints.prometheus.sensitive is
+ * false.
+ */
+@Component
+@ConfigurationProperties(prefix = "endpoints.prometheus")
+public class PrometheusEndpoint extends AbstractMvcEndpoint {
+
+    /**
+     * Content type of the Prometheus text format
+     */
+    static final String CONTENT_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+    private final TodoTimings todoTimings;
+
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    public PrometheusEndpoint(TodoTimings todoTimings, ConnectionPoolMetrics connectionPoolMetrics) {
+        super("/prometheus", true);
+        this.todoTimings = todoTimings;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<?> invoke() {
+        if (!this.isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE)
+            .body(this.todoTimings.toPrometheus() + this.connectionPoolMetrics.toPrometheus());
+    }
+
+}
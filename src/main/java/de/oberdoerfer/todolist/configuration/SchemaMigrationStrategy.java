@@ -0,0 +1,143 @@
+package de.oberdoerfer.todolist.configuration;
+
+import de.oberdoerfer.todolist.model.TodoIdGenerator;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Migrates the database schema on startup and verifies that the indexes required by the todo queries exist and that
+ * the identifier sequence matches the configured allocation size
+ */
+@Component
+public class SchemaMigrationStrategy implements FlywayMigrationStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationStrategy.class);
+
+    private static final String TABLE = "todo_full";
+
+    private static final String SEQUENCE = "todo_full_sequence";
+
+    /**
+     * Required indexes of the todo table by name with their columns in order
+     */
+    private static final Map<String, List<String>> REQUIRED_INDEXES = new LinkedHashMap<>();
+
+    static {
+        REQUIRED_INDEXES.put("todo_full_done_id", Arrays.asList("done", "id"));
+        REQUIRED_INDEXES.put("todo_full_done_due_date", Arrays.asList("done", "due_date"));
+    }
+
+    @Value("${todolist.id.allocation-size}")
+    private int allocationSize;
+
+    @Override
+    public void migrate(Flyway flyway) {
+        this.verifyAllocationSize();
+        flyway.migrate();
+        this.verifyIndexes(flyway.getDataSource());
+        this.verifySequence(flyway.getDataSource());
+    }
+
+    /**
+     * Verifies that all required indexes exist
+     *
+     * @param dataSource The migrated data source
+     * @throws IllegalStateException If an index is missing or has different columns
+     */
+    void verifyIndexes(DataSource dataSource) {
+        Map<String, List<String>> indexes;
+        try (Connection connection = dataSource.getConnection()) {
+            indexes = this.readIndexes(connection.getMetaData());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the indexes of table " + TABLE, e);
+        }
+        for (Map.Entry<String, List<String>> required : REQUIRED_INDEXES.entrySet()) {
+            List<String> columns = indexes.get(required.getKey());
+            if (!required.getValue().equals(columns)) {
+                throw new IllegalStateException("Index " + required.getKey() + " on " + TABLE + required.getValue()
+                    + " is missing, found " + columns);
+            }
+        }
+        log.info("Verified indexes {} on table {}", REQUIRED_INDEXES.keySet(), TABLE);
+    }
+
+    /**
+     * Verifies that the allocation size divides the identifiers, so the last block of a new sequence ends at the
+     * largest identifier instead of handing out identifiers the table rejects
+     *
+     * @throws IllegalStateException If the allocation size does not divide the identifiers
+     */
+    void verifyAllocationSize() {
+        if (this.allocationSize <= 0 || TodoIdGenerator.MAX_ID % this.allocationSize != 0) {
+            throw new IllegalStateException("Allocation size " + this.allocationSize + " must divide "
+                + TodoIdGenerator.MAX_ID);
+        }
+    }
+
+    /**
+     * Verifies that the identifier sequence increments by the allocation size of the identifier generator.
+     * <p>
+     * A smaller increment would let the generator hand out identifiers of blocks allocated by other instances.
+     *
+     * @param dataSource The migrated data source
+     * @throws IllegalStateException If the sequence is missing or has a different increment
+     */
+    void verifySequence(DataSource dataSource) {
+        Long increment = null;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT increment FROM information_schema.sequences WHERE UPPER(sequence_name) = ?")) {
+            statement.setString(1, SEQUENCE.toUpperCase(Locale.ROOT));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    increment = resultSet.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the sequence " + SEQUENCE, e);
+        }
+        if (increment == null || increment != this.allocationSize) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " must increment by " + this.allocationSize
+                + ", found " + increment);
+        }
+        log.info("Verified sequence {} with increment {}", SEQUENCE, increment);
+    }
+
+    /**
+     * Reads the indexes of the todo table
+     *
+     * @param metaData The database meta data
+     * @return The lower case index names with their lower case columns in order
+     */
+    private Map<String, List<String>> readIndexes(DatabaseMetaData metaData) throws SQLException {
+        String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT) : TABLE;
+        Map<String, SortedMap<Short, String>> columnsByIndex = new HashMap<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(null, null, table, false, false)) {
+            while (resultSet.next()) {
+                String indexName = resultSet.getString("INDEX_NAME");
+                String columnName = resultSet.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue;
+                }
+                columnsByIndex.computeIfAbsent(indexName.toLowerCase(Locale.ROOT), name -> new TreeMap<>())
+                    .put(resultSet.getShort("ORDINAL_POSITION"), columnName.toLowerCase(Locale.ROOT));
+            }
+        }
+        Map<String, List<String>> indexes = new HashMap<>();
+        columnsByIndex.forEach((name, columns) -> indexes.put(name, new ArrayList<>(columns.values())));
+        return indexes;
+    }
+
+}
@@ -0,0 +1,355 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Execution times of the JDBC statements by SQL and the most recent slow statements.
+ * <p>
+ * The connections wrapped by {@link #wrap(Connection)} time each execution of their statements up to the return of the
+ * execution, i.e. without fetching the rows of a result set. Executions of at least the threshold go to a ring buffer
+ * holding the latest of them. The SQL is recorded with its literals replaced by {@code ?}, and of the bind parameters
+ * only the types are recorded, so neither exposes the values of todos.
+ */
+public class StatementLog {
+
+    /**
+     * Largest number of distinct SQL strings with statistics, further ones are only logged if slow
+     */
+    private static final int MAX_STATEMENTS = 1000;
+
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final long thresholdNanos;
+
+    /**
+     * Statistics by redacted SQL
+     */
+    private final ConcurrentMap<String, Statistics> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics by executed SQL, so each SQL string is redacted once
+     */
+    private final ConcurrentMap<String, Statistics> executed = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<SlowStatement> slowStatements;
+
+    private final AtomicLong slowCount = new AtomicLong();
+
+    /**
+     * Creates a statement log
+     *
+     * @param thresholdMillis The execution time from which a statement is slow
+     * @param capacity        The number of slow statements kept
+     */
+    public StatementLog(long thresholdMillis, int capacity) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.slowStatements = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Execution statistics of an SQL string
+     */
+    public static final class Statistics {
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Statistics(String sql) {
+            this.sql = sql;
+        }
+
+        private void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public double getTotalMillis() {
+            return this.totalNanos.sum() / 1e6;
+        }
+
+        public double getMeanMillis() {
+            long count = this.count.sum();
+            return count == 0 ? 0 : this.totalNanos.sum() / 1e6 / count;
+        }
+
+        public double getMaxMillis() {
+            return this.maxNanos.get() / 1e6;
+        }
+
+    }
+
+    /**
+     * Execution of a statement taking at least the threshold
+     */
+    public static final class SlowStatement {
+
+        private final long sequence;
+
+        private final Instant time;
+
+        private final String sql;
+
+        private final List<String> bindTypes;
+
+        private final int batchSize;
+
+        private final long nanos;
+
+        private SlowStatement(long sequence, Instant time, String sql, List<String> bindTypes, int batchSize,
+                              long nanos) {
+            this.sequence = sequence;
+            this.time = time;
+            this.sql = sql;
+            this.bindTypes = bindTypes;
+            this.batchSize = batchSize;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the time the execution completed
+         *
+         * @return The time in ISO 8601
+         */
+        public String getTime() {
+            return this.time.toString();
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        /**
+         * Gets the types of the bind parameters, their values are redacted
+         *
+         * @return The simple class names of the values by parameter index, "null" for null values
+         */
+        public List<String> getBindTypes() {
+            return this.bindTypes;
+        }
+
+        /**
+         * Gets the number of parameter sets or statements executed as batch
+         *
+         * @return The batch size or 0 if the statement was not executed as batch
+         */
+        public int getBatchSize() {
+            return this.batchSize;
+        }
+
+        public double getMillis() {
+            return this.nanos / 1e6;
+        }
+
+    }
+
+    /**
+     * Replaces the string and numeric literals of an SQL string by {@code ?}
+     *
+     * @param sql The SQL
+     * @return The SQL without literals
+     */
+    @NotNull
+    static String redact(@NotNull String sql) {
+        return LITERALS.matcher(sql).replaceAll("?");
+    }
+
+    /**
+     * Records an execution
+     *
+     * @param sql       The executed SQL
+     * @param bindTypes The types of the bind parameters
+     * @param batchSize The batch size or 0 if the statement was not executed as batch
+     * @param nanos     The execution time
+     */
+    void record(@NotNull String sql, @NotNull List<String> bindTypes, int batchSize, long nanos) {
+        Statistics statistics = this.executed.get(sql);
+        if (statistics == null && this.executed.size() < MAX_STATEMENTS) {
+            statistics = this.statements.computeIfAbsent(redact(sql), Statistics::new);
+            this.executed.putIfAbsent(sql, statistics);
+        }
+        if (statistics != null) {
+            statistics.record(nanos);
+        }
+        if (nanos >= this.thresholdNanos) {
+            long sequence = this.slowCount.getAndIncrement();
+            this.slowStatements.set((int) (sequence % this.slowStatements.length()), new SlowStatement(sequence,
+                Instant.now(), statistics != null ? statistics.sql : redact(sql), bindTypes, batchSize, nanos));
+        }
+    }
+
+    /**
+     * Gets the statistics of all SQL strings
+     *
+     * @return The statistics, the SQL string with the longest total execution time first
+     */
+    @NotNull
+    public List<Statistics> getStatements() {
+        return this.statements.values().stream()
+            .sorted(Comparator.comparingDouble(Statistics::getTotalMillis).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the latest slow statements
+     *
+     * @return The slow statements, the latest first
+     */
+    @NotNull
+    public List<SlowStatement> getSlowStatements() {
+        List<SlowStatement> slowStatements = new ArrayList<>(this.slowStatements.length());
+        for (int index = 0; index < this.slowStatements.length(); index++) {
+            SlowStatement slowStatement = this.slowStatements.get(index);
+            if (slowStatement != null) {
+                slowStatements.add(slowStatement);
+            }
+        }
+        slowStatements.sort(Comparator.comparingLong((SlowStatement slow) -> slow.sequence).reversed());
+        return slowStatements;
+    }
+
+    /**
+     * Clears the statistics and the slow statements
+     */
+    public void clear() {
+        this.executed.clear();
+        this.statements.clear();
+        for (int index = 0; index < this.slowStatements.length(); index++) {
+            this.slowStatements.set(index, null);
+        }
+    }
+
+    /**
+     * Wraps a connection, so its statements are recorded
+     *
+     * @param connection The connection
+     * @return The wrapping connection
+     */
+    @NotNull
+    public Connection wrap(@NotNull Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof Statement) {
+                    String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                    Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, sql));
+                }
+                return result;
+            });
+    }
+
+    private static Object invoke(Object target, Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Times the executions of a statement and tracks the types of its bind parameters and its batch size
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        /**
+         * The SQL of a prepared statement or the first SQL of a batch of a plain statement
+         */
+        @Nullable
+        private String sql;
+
+        private final Map<Integer, String> bindTypes = new TreeMap<>();
+
+        private int batchSize;
+
+        StatementHandler(Statement statement, @Nullable String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                // A bind parameter, the setters of the statement itself take a single argument
+                Object value = name.equals("setNull") ? null : args[1];
+                this.bindTypes.put((Integer) args[0], value == null ? "null" : value.getClass().getSimpleName());
+            } else if (name.equals("clearParameters")) {
+                this.bindTypes.clear();
+            } else if (name.equals("addBatch")) {
+                if (args != null && this.sql == null) {
+                    this.sql = (String) args[0];
+                }
+                this.batchSize++;
+            } else if (name.equals("clearBatch")) {
+                this.batchSize = 0;
+            } else if (name.startsWith("execute")) {
+                return this.execute(method, args, name.endsWith("Batch"));
+            }
+            return StatementLog.invoke(this.statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args, boolean batch) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : this.sql;
+            long start = System.nanoTime();
+            try {
+                return StatementLog.invoke(this.statement, method, args);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                if (sql != null) {
+                    List<String> bindTypes = this.bindTypes.isEmpty() ? Collections.emptyList()
+                        : Collections.unmodifiableList(new ArrayList<>(this.bindTypes.values()));
+                    StatementLog.this.record(sql, bindTypes, batch ? this.batchSize : 0, nanos);
+                }
+                if (batch) {
+                    this.batchSize = 0;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Records the JDBC statements of the data source in the {@link StatementLog}, if todolist.statements.enabled is set.
+ * <p>
+ * The data source is wrapped in a proxy of its class, so it can still be injected as such. The profile "memory" has no
+ * data source, its statement log stays empty. The beans are created before the placeholders of
+ * {@code @Value} can be resolved, so they read their properties from the environment.
+ */
+@Configuration
+public class StatementLogConfiguration {
+
+    @Bean
+    public static StatementLog statementLog(Environment environment) {
+        return new StatementLog(environment.getProperty("todolist.statements.threshold-millis", Long.class, 50L),
+            environment.getProperty("todolist.statements.capacity", Integer.class, 100));
+    }
+
+    @Bean
+    public static BeanPostProcessor dataSourceStatementLogPostProcessor(StatementLog statementLog,
+                                                                        Environment environment) {
+        boolean enabled = environment.getProperty("todolist.statements.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !(bean instanceof DataSource)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    Object result = invocation.proceed();
+                    return result instanceof Connection ? statementLog.wrap((Connection) result) : result;
+                });
+                return proxyFactory.getProxy();
+            }
+
+        };
+    }
+
+}
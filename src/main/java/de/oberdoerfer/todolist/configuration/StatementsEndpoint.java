@@ -0,0 +1,115 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint /statements showing where the storage spends its time.
+ * <p>
+ * GET returns the Hibernate statistics with the statistics of each query, the execution statistics of each SQL
+ * statement and the latest slow statements of the {@link StatementLog}. The queries and statements come with the
+ * longest total time first, so the dominating one is on top. DELETE clears all statistics, e.g. before a measurement.
+ * The Hibernate statistics are only collected with hibernate.generate_statistics and missing without a database, their
+ * times are in milliseconds.
+ * <p>
+ * Enabled by endpoints.statements.enabled, it is sensitive unless endpoints.statements.sensitive is false.
+ */
+@Component
+@ConfigurationProperties(prefix = "endpoints.statements")
+public class StatementsEndpoint extends AbstractMvcEndpoint {
+
+    private final StatementLog statementLog;
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public StatementsEndpoint(StatementLog statementLog, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        super("/statements", true);
+        this.statementLog = statementLog;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<?> invoke() {
+        if (!this.isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        Statistics statistics = this.getHibernateStatistics();
+        body.put("hibernate", statistics == null ? null : hibernate(statistics));
+        body.put("statements", this.statementLog.getStatements());
+        body.put("slowStatements", this.statementLog.getSlowStatements());
+        return ResponseEntity.ok(body);
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE)
+    public ResponseEntity<?> clear() {
+        if (!this.isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        Statistics statistics = this.getHibernateStatistics();
+        if (statistics != null) {
+            statistics.clear();
+        }
+        this.statementLog.clear();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @Nullable
+    private Statistics getHibernateStatistics() {
+        EntityManagerFactory entityManagerFactory = this.entityManagerFactory.getIfAvailable();
+        return entityManagerFactory == null ? null
+            : entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static Map<String, Object> hibernate(Statistics statistics) {
+        Map<String, Object> hibernate = new LinkedHashMap<>();
+        hibernate.put("enabled", statistics.isStatisticsEnabled());
+        hibernate.put("sessionOpenCount", statistics.getSessionOpenCount());
+        hibernate.put("transactionCount", statistics.getTransactionCount());
+        hibernate.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        hibernate.put("entityLoadCount", statistics.getEntityLoadCount());
+        hibernate.put("entityFetchCount", statistics.getEntityFetchCount());
+        hibernate.put("entityInsertCount", statistics.getEntityInsertCount());
+        hibernate.put("entityUpdateCount", statistics.getEntityUpdateCount());
+        hibernate.put("entityDeleteCount", statistics.getEntityDeleteCount());
+        hibernate.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        hibernate.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        hibernate.put("queryExecutionMaxTimeQueryString", statistics.getQueryExecutionMaxTimeQueryString());
+
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", query);
+            entry.put("executionCount", queryStatistics.getExecutionCount());
+            entry.put("executionRowCount", queryStatistics.getExecutionRowCount());
+            entry.put("executionTotalTime",
+                queryStatistics.getExecutionCount() * queryStatistics.getExecutionAvgTime());
+            entry.put("executionAvgTime", queryStatistics.getExecutionAvgTime());
+            entry.put("executionMaxTime", queryStatistics.getExecutionMaxTime());
+            queries.add(entry);
+        }
+        queries.sort(Comparator.comparingLong((Map<String, Object> entry) -> (Long) entry.get("executionTotalTime"))
+            .reversed());
+        hibernate.put("queries", queries);
+        return hibernate;
+    }
+
+}
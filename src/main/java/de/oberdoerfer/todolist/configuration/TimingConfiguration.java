@@ -0,0 +1,83 @@
+package de.oberdoerfer.todolist.configuration;
+
+import de.oberdoerfer.todolist.api.AsyncTodosApiController;
+import de.oberdoerfer.todolist.api.TodoTimings;
+import de.oberdoerfer.todolist.api.TodosApi;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Marks the operation and the repository phase of the {@link TodoTimings.RequestTiming} of a request.
+ * <p>
+ * The operation is the name of the handler method of the todos API. The todo repository is wrapped in a proxy timing
+ * its calls, whichever storage implements it.
+ */
+@Configuration
+public class TimingConfiguration extends WebMvcConfigurerAdapter {
+
+    @Bean
+    public static BeanPostProcessor todoRepositoryTimingPostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof TodoRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addInterface(TodoRepository.class);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+                    if (timing == null) {
+                        return invocation.proceed();
+                    }
+                    timing.startRepository();
+                    try {
+                        return invocation.proceed();
+                    } finally {
+                        timing.stopRepository();
+                    }
+                });
+                return proxyFactory.getProxy();
+            }
+
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptorAdapter() {
+
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                TodoTimings.RequestTiming timing = TodoTimings.RequestTiming.current();
+                if (timing != null && handler instanceof HandlerMethod) {
+                    HandlerMethod handlerMethod = (HandlerMethod) handler;
+                    Class<?> beanType = handlerMethod.getBeanType();
+                    if (TodosApi.class.isAssignableFrom(beanType) || beanType == AsyncTodosApiController.class) {
+                        timing.setOperation(handlerMethod.getMethod().getName());
+                    }
+                }
+                return true;
+            }
+
+        });
+    }
+
+}
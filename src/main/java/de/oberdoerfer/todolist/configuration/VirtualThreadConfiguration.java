@@ -0,0 +1,108 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.apache.coyote.AbstractProtocol;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import javax.annotation.PreDestroy;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the requests on virtual threads if todolist.virtual-threads.enabled is set, which requires Java 21.
+ * <p>
+ * Tomcat handles each request on a new virtual thread instead of its pool of platform threads, so the repository calls
+ * of a request run on its virtual thread as well. The asynchronous request processing, e.g. of the export, uses
+ * virtual threads too. The application is compiled for Java 8, so the virtual thread API is called reflectively.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todolist.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration extends WebMvcConfigurerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    /**
+     * Checks whether the running JDK supports virtual threads
+     *
+     * @return True if virtual threads are supported
+     */
+    public static boolean isSupported() {
+        return newVirtualThreadPerTaskExecutor() != null;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task
+     *
+     * @return The executor
+     * @throws IllegalStateException If the running JDK does not support virtual threads
+     */
+    @NotNull
+    public static ExecutorService newExecutor() {
+        Method factory = newVirtualThreadPerTaskExecutor();
+        if (factory == null) {
+            throw new IllegalStateException("Virtual threads require Java 21, running on Java "
+                + System.getProperty("java.specification.version"));
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    private static Method newVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private final ExecutorService executor = newExecutor();
+
+    /**
+     * Gets the executor starting a virtual thread per task.
+     * <p>
+     * Shut down by {@link #shutdown()}, since the executor class of the JDK is not accessible to reflection.
+     *
+     * @return The executor
+     */
+    @Bean(destroyMethod = "")
+    public ExecutorService virtualThreadExecutor() {
+        return this.executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    @Bean
+    public EmbeddedServletContainerCustomizer virtualThreadContainerCustomizer() {
+        return container -> {
+            if (container instanceof TomcatEmbeddedServletContainerFactory) {
+                ((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(connector -> {
+                    ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(this.virtualThreadExecutor());
+                    log.info("Handling the requests of port {} on virtual threads", connector.getPort());
+                });
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(this.virtualThreadExecutor()));
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.oberdoerfer.todolist.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Stores date times as fixed-width UTC timestamp followed by the original offset, e.g.
+ * {@code 2019-03-17T16:06:38.445000000Z+02:00}.
+ * <p>
+ * The column sorts chronologically, so it can back an index, and reading it restores the original offset. The
+ * timestamp is only fixed in width for the UTC years 0000 to 9999, so other years are rejected on write and by the
+ * validation of {@link StorableDateTime} before. Reading
+ * locates the offset behind the UTC designator, so it does not depend on the width.
+ */
+@Converter(autoApply = true)
+public class OffsetDateTimeConverter implements AttributeConverter<OffsetDateTime, String> {
+
+    private static final DateTimeFormatter UTC_FORMATTER = new DateTimeFormatterBuilder()
+        .appendPattern("uuuu-MM-dd'T'HH:mm:ss")
+        .appendFraction(ChronoField.NANO_OF_SECOND, 9, 9, true)
+        .appendLiteral('Z')
+        .toFormatter();
+
+    private static final int MIN_YEAR = 0;
+
+    private static final int MAX_YEAR = 9999;
+
+    @Override
+    public String convertToDatabaseColumn(OffsetDateTime attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        if (!isStorable(attribute)) {
+            throw new IllegalArgumentException("Date time " + attribute + " is outside the UTC years " + MIN_YEAR
+                + " to " + MAX_YEAR);
+        }
+        LocalDateTime utc = attribute.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        return UTC_FORMATTER.format(utc) + attribute.getOffset().getId();
+    }
+
+    @Override
+    public OffsetDateTime convertToEntityAttribute(String dbData) {
+        if (dbData == null) {
+            return null;
+        }
+        // The timestamp contains no other Z, the offset itself may be Z
+        int utcLength = dbData.indexOf('Z') + 1;
+        LocalDateTime utc = LocalDateTime.parse(dbData.substring(0, utcLength), UTC_FORMATTER);
+        ZoneOffset offset = ZoneOffset.of(dbData.substring(utcLength));
+        return utc.atOffset(ZoneOffset.UTC).withOffsetSameInstant(offset);
+    }
+
+    /**
+     * Checks whether a date time lies within the UTC years of the fixed-width timestamp
+     *
+     * @param dateTime The date time
+     * @return True if the date time can be stored
+     */
+    public static boolean isStorable(OffsetDateTime dateTime) {
+        int year = dateTime.withOffsetSameInstant(ZoneOffset.UTC).getYear();
+        return year >= MIN_YEAR && year <= MAX_YEAR;
+    }
+
+}
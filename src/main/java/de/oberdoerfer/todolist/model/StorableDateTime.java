@@ -0,0 +1,27 @@
+package de.oberdoerfer.todolist.model;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated date time must be storable by the {@link OffsetDateTimeConverter}, so it must lie within the UTC years
+ * 0000 to 9999. Null is valid.
+ */
+@Documented
+@Constraint(validatedBy = StorableDateTimeValidator.class)
+@Target({ElementType.METHOD, ElementType.FIELD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StorableDateTime {
+
+    String message() default "must be within the UTC years 0000 to 9999";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+}
@@ -0,0 +1,21 @@
+package de.oberdoerfer.todolist.model;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.time.OffsetDateTime;
+
+/**
+ * Validates {@link StorableDateTime} with the range of the {@link OffsetDateTimeConverter}
+ */
+public class StorableDateTimeValidator implements ConstraintValidator<StorableDateTime, OffsetDateTime> {
+
+    @Override
+    public void initialize(StorableDateTime constraintAnnotation) {
+    }
+
+    @Override
+    public boolean isValid(OffsetDateTime value, ConstraintValidatorContext context) {
+        return value == null || OffsetDateTimeConverter.isStorable(value);
+    }
+
+}
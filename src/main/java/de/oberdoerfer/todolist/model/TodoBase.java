@@ -87,7 +87,7 @@ public class TodoBase   {
   **/
   @ApiModelProperty(required = true, value = "")
   @NotNull
-
+  @StorableDateTime
   @Valid
 
   public OffsetDateTime getDueDate() {
@@ -1,16 +1,19 @@
 package de.oberdoerfer.todolist.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.validation.annotation.Validated;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.time.OffsetDateTime;
 import java.util.Objects;
 
 /**
@@ -25,6 +28,8 @@ public class TodoFull extends TodoBase  {
   @JsonProperty("id")
   private Integer id = null;
 
+  private Integer version = null;
+
   public TodoFull() {
   }
 
@@ -40,6 +45,15 @@ public class TodoFull extends TodoBase  {
     this.setDone(todoBase.isDone());
   }
 
+  public TodoFull(Integer id, String title, String description, OffsetDateTime dueDate, Boolean done, Integer version) {
+    this.setId(id);
+    this.setTitle(title);
+    this.setDescription(description);
+    this.setDueDate(dueDate);
+    this.setDone(done);
+    this.setVersion(version);
+  }
+
   /**
    * Get id
    * minimum: 0
@@ -47,7 +61,8 @@ public class TodoFull extends TodoBase  {
    * @return id
   **/
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "todo_full_id")
+  @GenericGenerator(name = "todo_full_id", strategy = "de.oberdoerfer.todolist.model.TodoIdGenerator")
   @ApiModelProperty(required = true, value = "")
 
 @Min(0) @Max(1000000) 
@@ -59,6 +74,20 @@ public class TodoFull extends TodoBase  {
     this.id = id;
   }
 
+  /**
+   * Get version, incremented on every modification and only exposed as entity tag
+   * @return version
+  **/
+  @Version
+  @JsonIgnore
+  public Integer getVersion() {
+    return version;
+  }
+
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
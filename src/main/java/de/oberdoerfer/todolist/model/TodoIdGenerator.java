@@ -0,0 +1,50 @@
+package de.oberdoerfer.todolist.model;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Sequence based identifier generator allocating blocks of identifiers with the pooled-lo optimizer.
+ * <p>
+ * The block size is read from the Hibernate setting {@value #ALLOCATION_SIZE_SETTING} and must match the increment
+ * of the database sequence. A block may reach past {@value #MAX_ID}, the largest identifier the table accepts, so
+ * larger identifiers are rejected before they are inserted.
+ */
+public class TodoIdGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "todolist.id.allocation-size";
+
+    public static final String SEQUENCE_NAME = "todo_full_sequence";
+
+    public static final int MAX_ID = 1000000;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE_SETTING);
+        params.setProperty(SEQUENCE_PARAM, SEQUENCE_NAME);
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        if (allocationSize != null) {
+            params.setProperty(INCREMENT_PARAM, allocationSize.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SessionImplementor session, Object object) throws HibernateException {
+        Serializable id = super.generate(session, object);
+        if (((Number) id).longValue() > MAX_ID) {
+            throw new IdentifierGenerationException("No todo identifiers left");
+        }
+        return id;
+    }
+
+}
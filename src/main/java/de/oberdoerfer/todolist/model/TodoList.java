@@ -63,6 +63,13 @@ public class TodoList   {
     this.setDone(todoFull.isDone());
   }
 
+  public TodoList(Integer id, String title, OffsetDateTime dueDate, Boolean done) {
+    this.setId(id);
+    this.setTitle(title);
+    this.setDueDate(dueDate);
+    this.setDone(done);
+  }
+
   /**
    * Get title
    * @return title
@@ -1,15 +1,108 @@
 package de.oberdoerfer.todolist.model;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TodoRepository extends PagingAndSortingRepository<TodoFull, Integer> {
+public interface TodoRepository extends PagingAndSortingRepository<TodoFull, Integer>, TodoRepositoryCustom {
+
+    /**
+     * Cache of single todos by identifier
+     */
+    String CACHE = "todos";
+
+    // Single todos are read through the cache, absent todos are cached as well. Every write of a todo evicts it after
+    // its transaction committed, creating todos evicts absent ones. A read loads the todo while holding its cache
+    // entry, so an eviction waits for a concurrent read and removes the todo it read before the write committed.
+    // Batch writes evict their todos by identifier in the proxy of the CacheConfiguration.
+
+    @Cacheable(cacheNames = CACHE, sync = true)
+    TodoFull findOne(Integer id);
+
+    @CacheEvict(cacheNames = CACHE, key = "#result.id")
+    <S extends TodoFull> S save(S entity);
+
+    <S extends TodoFull> Iterable<S> save(Iterable<S> entities);
 
     Page<TodoFull> findAllByDone(Boolean done, Pageable pageable);
 
+    // Projections read only the todo list columns into unmanaged objects.
+    // Slices fetch one additional row to detect a next page instead of counting all rows.
+    // Ordering by the constant done column as well lets the database read the (done, id) index in order.
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoList(t.id, t.title, t.dueDate, t.done) from TodoFull t order by t.id")
+    Slice<TodoList> findListBy(Pageable pageable);
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoList(t.id, t.title, t.dueDate, t.done) from TodoFull t where t.done = ?1 order by t.done, t.id")
+    Slice<TodoList> findListByDone(Boolean done, Pageable pageable);
+
+    // Keyset pagination
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoList(t.id, t.title, t.dueDate, t.done) from TodoFull t where t.id > ?1 order by t.id")
+    Slice<TodoList> findListByIdGreaterThan(Integer id, Pageable pageable);
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoList(t.id, t.title, t.dueDate, t.done) from TodoFull t where t.done = ?1 and t.id > ?2 order by t.done, t.id")
+    Slice<TodoList> findListByDoneAndIdGreaterThan(Boolean done, Integer id, Pageable pageable);
+
+    // Full pages read the todos after an identifier into unmanaged objects, each page in a transaction of its own
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoFull(t.id, t.title, t.description, t.dueDate, t.done, t.version) from TodoFull t where t.id > ?1 order by t.id")
+    List<TodoFull> findPageByIdGreaterThan(Integer id, Pageable pageable);
+
+    @Query("select new de.oberdoerfer.todolist.model.TodoFull(t.id, t.title, t.description, t.dueDate, t.done, t.version) from TodoFull t where t.done = ?1 and t.id > ?2 order by t.done, t.id")
+    List<TodoFull> findPageByDoneAndIdGreaterThan(Boolean done, Integer id, Pageable pageable);
+
+    // Streams read the todos with a cursor into unmanaged objects, so the persistence context stays empty.
+    // They must be read in a transaction and closed.
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new de.oberdoerfer.todolist.model.TodoFull(t.id, t.title, t.description, t.dueDate, t.done, t.version) from TodoFull t order by t.id")
+    Stream<TodoFull> streamAll();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new de.oberdoerfer.todolist.model.TodoFull(t.id, t.title, t.description, t.dueDate, t.done, t.version) from TodoFull t where t.done = ?1 order by t.done, t.id")
+    Stream<TodoFull> streamAllByDone(Boolean done);
+
+    // Single statement writes return the number of affected rows instead of loading the entity first
+
+    @CacheEvict(cacheNames = CACHE, key = "#p0")
+    @Modifying
+    @Transactional
+    @Query("delete from TodoFull t where t.id = ?1")
+    int deleteById(Integer id);
+
+    @CacheEvict(cacheNames = CACHE, key = "#p0")
+    @Modifying
+    @Transactional
+    @Query("update TodoFull t set t.title = ?2, t.description = ?3, t.dueDate = ?4, t.done = ?5, t.version = t.version + 1 where t.id = ?1")
+    int updateById(Integer id, String title, String description, OffsetDateTime dueDate, Boolean done);
+
+    // Conditional writes only affect the todo if it still has the expected version
+
+    @CacheEvict(cacheNames = CACHE, key = "#p0")
+    @Modifying
+    @Transactional
+    @Query("delete from TodoFull t where t.id = ?1 and t.version = ?2")
+    int deleteByIdAndVersion(Integer id, Integer version);
+
+    @CacheEvict(cacheNames = CACHE, key = "#p0")
+    @Modifying
+    @Transactional
+    @Query("update TodoFull t set t.title = ?3, t.description = ?4, t.dueDate = ?5, t.done = ?6, t.version = t.version + 1 where t.id = ?1 and t.version = ?2")
+    int updateByIdAndVersion(Integer id, Integer version, String title, String description, OffsetDateTime dueDate, Boolean done);
+
 }
@@ -0,0 +1,19 @@
+package de.oberdoerfer.todolist.model;
+
+/**
+ * Todo repository methods that are not derived from queries
+ */
+public interface TodoRepositoryCustom {
+
+    /**
+     * Inserts or replaces todos with their identifiers and versions, e.g. from a snapshot.
+     * <p>
+     * Identifiers up to the largest restored one are never assigned again. The restored todos are evicted from the
+     * cache by identifier.
+     *
+     * @param todos The todos to restore
+     * @return The number of restored todos
+     */
+    int restore(Iterable<TodoFull> todos);
+
+}
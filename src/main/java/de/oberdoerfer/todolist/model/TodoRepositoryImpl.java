@@ -0,0 +1,69 @@
+package de.oberdoerfer.todolist.model;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements the custom todo repository methods of the database storage with JDBC
+ */
+public class TodoRepositoryImpl implements TodoRepositoryCustom {
+
+    /**
+     * Number of todos written per JDBC batch
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String RESTART_SEQUENCE = "alter sequence " + TodoIdGenerator.SEQUENCE_NAME
+        + " restart with (select coalesce(max(id), 0) + 1 from todo_full)";
+
+    private static final String MERGE =
+        "merge into todo_full (id, title, description, due_date, done, version) key (id) values (?, ?, ?, ?, ?, ?)";
+
+    private final OffsetDateTimeConverter converter = new OffsetDateTimeConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The identifiers are checked before anything is written, then every batch is committed on its own, restoring the
+     * same todos again is idempotent. The identifier sequence is restarted behind the largest identifier, so once
+     * {@value TodoIdGenerator#MAX_ID} is restored the generator rejects the next identifier and no todos can be created.
+     * Identifier blocks already allocated by running instances are not affected, so todos should be restored before
+     * todos are created.
+     *
+     * @throws IllegalArgumentException If an identifier is not between 1 and {@value TodoIdGenerator#MAX_ID}
+     */
+    @Override
+    public int restore(Iterable<TodoFull> todos) {
+        for (TodoFull todo : todos) {
+            Integer id = todo.getId();
+            if (id == null || id < 1 || id > TodoIdGenerator.MAX_ID) {
+                throw new IllegalArgumentException(
+                    "The identifier " + id + " is not between 1 and " + TodoIdGenerator.MAX_ID);
+            }
+        }
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int count = 0;
+        for (TodoFull todo : todos) {
+            batch.add(new Object[] { todo.getId(), todo.getTitle(), todo.getDescription(),
+                this.converter.convertToDatabaseColumn(todo.getDueDate()), todo.isDone(), todo.getVersion() });
+            if (batch.size() == BATCH_SIZE) {
+                this.jdbcTemplate.batchUpdate(MERGE, batch);
+                count += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(MERGE, batch);
+            count += batch.size();
+        }
+        this.jdbcTemplate.update(RESTART_SEQUENCE);
+        return count;
+    }
+
+}
@@ -0,0 +1,160 @@
+package de.oberdoerfer.todolist.service;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Executor running the storage work of the asynchronous controller in the profile "async".
+ * <p>
+ * The request threads only hand the work over, so slow storage pins the threads and the queue of this executor instead
+ * of the connector threads. Work is answered with 503 if the queue is full or if it did not start within the timeout,
+ * and is skipped then. Work that already started may commit a write, so a timeout waits for its response instead of
+ * answering 503 for a write of unknown outcome. The time work waits in the queue is tracked in a histogram accurate to
+ * 1%, so its count and quantiles tell whether the threads keep up.
+ */
+@Component
+@Profile("async")
+public class TodoExecutor implements PublicMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(TodoExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMillis;
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final Histogram waitHistogram;
+
+    private final long highestWaitNanos;
+
+    public TodoExecutor(@Value("${todolist.async.threads:10}") int threads,
+                        @Value("${todolist.async.queue-capacity:100}") int queueCapacity,
+                        @Value("${todolist.async.timeout-millis:5000}") long timeoutMillis) {
+        AtomicInteger number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "todo-storage-" + number.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.timeoutMillis = timeoutMillis;
+        // Work waiting longer than the timeout is skipped, so longer waits are recorded as the timeout
+        this.highestWaitNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(timeoutMillis), 2);
+        this.waitHistogram = new ConcurrentHistogram(this.highestWaitNanos, 2);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(this.timeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Storage work still running after {} ms", this.timeoutMillis);
+        }
+    }
+
+    /**
+     * Runs storage work
+     *
+     * @param work The work creating the response, exceptions are resolved like those of a handler
+     * @param <T>  The type of the response body
+     * @return The result completed with the response of the work or with 503 if the work did not start
+     */
+    @NotNull
+    public <T> DeferredResult<ResponseEntity<T>> submit(@NotNull Supplier<ResponseEntity<T>> work) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(this.timeoutMillis);
+        // Either the timeout claims the work before it started or the work runs and completes the result
+        AtomicBoolean claimed = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        result.onTimeout(() -> {
+            this.timedOut.incrementAndGet();
+            if (claimed.compareAndSet(false, true)) {
+                result.setResult(new ResponseEntity<T>(HttpStatus.SERVICE_UNAVAILABLE));
+                return;
+            }
+            // Completing the result while the timeout is handled dispatches the response of the work
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        long queued = System.nanoTime();
+        try {
+            this.executor.execute(() -> {
+                long waited = System.nanoTime() - queued;
+                this.waitNanos.addAndGet(waited);
+                this.waitHistogram.recordValue(Math.min(waited, this.highestWaitNanos));
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    result.setResult(work.get());
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                } finally {
+                    done.countDown();
+                }
+                this.completed.incrementAndGet();
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            result.setResult(new ResponseEntity<T>(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Histogram waitHistogram = this.waitHistogram.copy();
+        return Arrays.asList(
+            new Metric<>("async.queue.size", this.executor.getQueue().size()),
+            new Metric<>("async.queue.wait.count", waitHistogram.getTotalCount()),
+            new Metric<>("async.queue.wait.total-millis", TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get())),
+            new Metric<>("async.queue.wait.p50-micros", micros(waitHistogram.getValueAtPercentile(50))),
+            new Metric<>("async.queue.wait.p99-micros", micros(waitHistogram.getValueAtPercentile(99))),
+            new Metric<>("async.queue.wait.max-micros", micros(waitHistogram.getMaxValue())),
+            new Metric<>("async.active", this.executor.getActiveCount()),
+            new Metric<>("async.completed", this.completed.get()),
+            new Metric<>("async.rejected", this.rejected.get()),
+            new Metric<>("async.timeouts", this.timedOut.get()));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+}
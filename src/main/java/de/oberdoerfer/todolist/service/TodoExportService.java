@@ -0,0 +1,116 @@
+package de.oberdoerfer.todolist.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes todos as newline-delimited JSON, one todo per line like the response of GET /todos/{todo-id}.
+ * <p>
+ * The todos are read in pages of {@value #PAGE_SIZE} after the last exported identifier and written one by one, so the
+ * memory does not depend on the number of todos. Each page is read in a transaction of its own, so an export holds a
+ * database connection only while reading a page and not while the client receives the todos. Every todo is exported
+ * at most once, a todo written during the export is exported in its state when its page was read. The number of exported todos and the throughput of the last export are published
+ * as {@code export.todos} and {@code export.todos-per-second}.
+ */
+@Service
+public class TodoExportService implements PublicMetrics {
+
+    /**
+     * Media type of newline delimited JSON
+     */
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    /**
+     * Number of todos read at once
+     */
+    static final int PAGE_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(TodoExportService.class);
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes single todos without flushing the output after each of them
+     */
+    private final ObjectWriter writer;
+
+    private final AtomicLong exported = new AtomicLong();
+
+    private volatile long todosPerSecond;
+
+    @Autowired
+    public TodoExportService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(TodoFull.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Exports todos
+     *
+     * @param done   The state of done of the exported todos or null to export all todos
+     * @param output The output, not closed
+     * @return The number of exported todos
+     * @throws IOException If the output could not be written
+     */
+    public long export(@Nullable Boolean done, @NotNull OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        long count = 0;
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Pageable pageable = new PageRequest(0, PAGE_SIZE);
+            int lastId = 0;
+            List<TodoFull> page;
+            do {
+                page = done == null ? this.todoRepository.findPageByIdGreaterThan(lastId, pageable)
+                    : this.todoRepository.findPageByDoneAndIdGreaterThan(done, lastId, pageable);
+                for (TodoFull todo : page) {
+                    this.writer.writeValue(generator, todo);
+                    generator.writeRaw('\n');
+                    count++;
+                    lastId = todo.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+        }
+
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        this.exported.addAndGet(count);
+        this.todosPerSecond = count * TimeUnit.SECONDS.toNanos(1) / nanos;
+        log.info("Exported {} todos in {} ms, {} todos/s", count, TimeUnit.NANOSECONDS.toMillis(nanos),
+            this.todosPerSecond);
+        return count;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+            new Metric<>("export.todos", this.exported.get()),
+            new Metric<>("export.todos-per-second", this.todosPerSecond));
+    }
+
+}
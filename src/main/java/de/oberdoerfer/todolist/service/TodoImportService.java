@@ -0,0 +1,360 @@
+package de.oberdoerfer.todolist.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.oberdoerfer.todolist.model.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports todos from newline delimited JSON, see {@link TodoExportService} for the format.
+ * <p>
+ * The lines are read in chunks, so the memory is bounded by the chunk size and not by the size of the import. The
+ * lines of a chunk are parsed and validated in parallel and the valid todos of a chunk are stored in one transaction.
+ * Invalid lines do not stop the import but are reported with their line number, as are lines longer than
+ * {@value #MAX_LINE_LENGTH} characters, which are skipped without being buffered.
+ */
+@Service
+public class TodoImportService implements PublicMetrics {
+
+    /**
+     * Maximum number of reported errors, further invalid lines are only counted
+     */
+    static final int MAX_ERRORS = 1000;
+
+    /**
+     * Maximum number of characters of a line, a valid todo with all characters escaped takes less than half of it
+     */
+    static final int MAX_LINE_LENGTH = 8192;
+
+    private static final Logger log = LoggerFactory.getLogger(TodoImportService.class);
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private Validator validator;
+
+    private final ObjectReader reader;
+
+    private final int chunkSize;
+
+    /**
+     * Pool parsing and validating the lines of a chunk
+     */
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLong imported = new AtomicLong();
+
+    private volatile long todosPerSecond;
+
+    @Autowired
+    public TodoImportService(ObjectMapper objectMapper, @Value("${todolist.import.chunk-size:1000}") int chunkSize) {
+        this.reader = objectMapper.readerFor(TodoBase.class);
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Imports todos, blank lines are skipped
+     *
+     * @param input  The newline delimited JSON of the new todos in UTF-8, not closed
+     * @param stored Called after each chunk whose todos are stored
+     * @return The report of the import
+     * @throws IOException If the input could not be read
+     */
+    @NotNull
+    public TodoImportReport importTodos(@NotNull InputStream input, @NotNull Runnable stored) throws IOException {
+        long start = System.nanoTime();
+        TodoImportReport report = new TodoImportReport().imported(0L).failed(0L);
+        LineReader lines = new LineReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Chunk chunk = new Chunk(this.chunkSize);
+        long number = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            if (lines.tooLong) {
+                chunk.fail(number, "Line longer than " + MAX_LINE_LENGTH + " characters");
+            } else if (!line.trim().isEmpty()) {
+                chunk.add(number, line);
+            }
+            if (chunk.size == this.chunkSize) {
+                this.importChunk(chunk, report, stored);
+            }
+        }
+        this.importChunk(chunk, report, stored);
+
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        this.imported.addAndGet(report.getImported());
+        this.todosPerSecond = report.getImported() * TimeUnit.SECONDS.toNanos(1) / nanos;
+        log.info("Imported {} todos in {} ms, {} todos/s, {} lines failed", report.getImported(),
+            TimeUnit.NANOSECONDS.toMillis(nanos), this.todosPerSecond, report.getFailed());
+        return report;
+    }
+
+    /**
+     * Imports the lines of a chunk and clears it
+     *
+     * @param chunk  The chunk to import
+     * @param report The report receiving the result of the chunk
+     * @param stored Called if the todos of the chunk are stored
+     */
+    private void importChunk(@NotNull Chunk chunk, @NotNull TodoImportReport report, @NotNull Runnable stored) {
+        if (chunk.size == 0) {
+            return;
+        }
+
+        this.pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, chunk.size).parallel().forEach(chunk::parse)));
+
+        List<TodoFull> todos = Arrays.stream(chunk.todos, 0, chunk.size).filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (!todos.isEmpty()) {
+            try {
+                this.todoRepository.save(todos);
+                report.setImported(report.getImported() + todos.size());
+                stored.run();
+            } catch (DataAccessException | IllegalStateException e) {
+                // The database rolls back the transaction of the chunk and the memory storage checks all todos of
+                // the chunk before storing any, so none of its todos is stored
+                String message = "Todo not stored: " + e.getMessage();
+                for (int i = 0; i < chunk.size; i++) {
+                    if (chunk.todos[i] != null) {
+                        chunk.errors[i] = message;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.errors[i] != null) {
+                report.setFailed(report.getFailed() + 1);
+                if (report.getErrors().size() < MAX_ERRORS) {
+                    report.addErrorsItem(new TodoImportError(chunk.numbers[i], chunk.errors[i]));
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Lines of an import which are imported together
+     */
+    private final class Chunk {
+
+        private final long[] numbers;
+
+        private final String[] lines;
+
+        /**
+         * The parsed and valid todo of each line or null
+         */
+        private final TodoFull[] todos;
+
+        /**
+         * The error of each line or null
+         */
+        private final String[] errors;
+
+        private int size;
+
+        private Chunk(int capacity) {
+            this.numbers = new long[capacity];
+            this.lines = new String[capacity];
+            this.todos = new TodoFull[capacity];
+            this.errors = new String[capacity];
+        }
+
+        private void add(long number, @NotNull String line) {
+            this.numbers[this.size] = number;
+            this.lines[this.size] = line;
+            this.size++;
+        }
+
+        private void fail(long number, @NotNull String error) {
+            this.numbers[this.size] = number;
+            this.errors[this.size] = error;
+            this.size++;
+        }
+
+        /**
+         * Parses and validates a line, the lines are parsed concurrently
+         *
+         * @param index The index of the line in the chunk
+         */
+        private void parse(int index) {
+            if (this.errors[index] != null) {
+                return;
+            }
+            TodoBase todoBase;
+            try {
+                todoBase = TodoImportService.this.reader.readValue(this.lines[index]);
+            } catch (JsonProcessingException e) {
+                this.errors[index] = e.getOriginalMessage();
+                return;
+            } catch (IOException e) {
+                this.errors[index] = e.getMessage();
+                return;
+            }
+
+            String error = validate(todoBase);
+            if (error == null) {
+                this.todos[index] = new TodoFull(todoBase);
+            } else {
+                this.errors[index] = error;
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(this.lines, 0, this.size, null);
+            Arrays.fill(this.todos, 0, this.size, null);
+            Arrays.fill(this.errors, 0, this.size, null);
+            this.size = 0;
+        }
+
+    }
+
+    /**
+     * Reads lines terminated by {@code \n} or {@code \r\n} like a {@link java.io.BufferedReader}, but buffers at most
+     * {@value TodoImportService#MAX_LINE_LENGTH} characters of a line
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+
+        private final char[] buffer = new char[8192];
+
+        private int position;
+
+        private int limit;
+
+        private final StringBuilder line = new StringBuilder();
+
+        /**
+         * Whether the line read last is longer than {@value TodoImportService#MAX_LINE_LENGTH} characters, it is read
+         * as empty then
+         */
+        private boolean tooLong;
+
+        private LineReader(@NotNull Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next line
+         *
+         * @return The line without its terminator or null at the end of the input
+         * @throws IOException If the input could not be read
+         */
+        @Nullable
+        private String readLine() throws IOException {
+            this.line.setLength(0);
+            this.tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (this.position == this.limit) {
+                    int count = this.reader.read(this.buffer);
+                    if (count < 0) {
+                        return read ? this.line() : null;
+                    }
+                    this.position = 0;
+                    this.limit = count;
+                }
+                read = true;
+                int start = this.position;
+                while (this.position < this.limit && this.buffer[this.position] != '\n') {
+                    this.position++;
+                }
+                this.append(start, this.position);
+                if (this.position < this.limit) {
+                    this.position++;
+                    return this.line();
+                }
+            }
+        }
+
+        private void append(int start, int end) {
+            if (this.tooLong) {
+                return;
+            }
+            // One more character for a trailing carriage return
+            if (this.line.length() + end - start > MAX_LINE_LENGTH + 1) {
+                this.tooLong = true;
+                this.line.setLength(0);
+            } else {
+                this.line.append(this.buffer, start, end - start);
+            }
+        }
+
+        @NotNull
+        private String line() {
+            int length = this.line.length();
+            if (length > 0 && this.line.charAt(length - 1) == '\r') {
+                this.line.setLength(--length);
+            }
+            if (length > MAX_LINE_LENGTH) {
+                this.tooLong = true;
+                return "";
+            }
+            return this.line.toString();
+        }
+
+    }
+
+    /**
+     * Validates a new todo
+     *
+     * @param todoBase The new todo
+     * @return The violated constraints ordered by property or null if the todo is valid
+     */
+    @Nullable
+    private String validate(@Nullable TodoBase todoBase) {
+        if (todoBase == null) {
+            return "Todo missing";
+        }
+        Set<ConstraintViolation<TodoBase>> violations = this.validator.validate(todoBase);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+            new Metric<>("import.todos", this.imported.get()),
+            new Metric<>("import.todos-per-second", this.todosPerSecond));
+    }
+
+}
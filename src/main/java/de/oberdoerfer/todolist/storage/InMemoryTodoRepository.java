@@ -0,0 +1,941 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.*;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Todo repository keeping all todos in memory, selected by the profile "memory".
+ * <p>
+ * The todos are stored by identifier in a concurrent sorted map. For each state of done, sorted secondary indexes
+ * hold the identifiers and the due dates like the indexes of the database schema. Writes are serialized, reads are
+ * lock-free and verify the todos found by an index, since an index may briefly lag behind a concurrent write.
+ * <p>
+ * Stored todos are never modified but replaced, callers always get copies. If a {@link TodoJournal} is configured,
+ * every write is journaled while the write lock is held and awaited after releasing it. Journaled writes stay pending
+ * until they are durable: further writes already see them, reads only see them once they are published in journal
+ * order. A write the journal could not persist is dropped and never seen by reads.
+ * <p>
+ * A {@link TodoSnapshot} configured by {@code todolist.snapshot.file} is mounted as immutable base: its todos are
+ * decoded from the mapping when they are read. Writes of snapshot todos go to the map and shadow the snapshot todos,
+ * reads merge the todos of the snapshot and of the map in index order.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryTodoRepository implements TodoRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryTodoRepository.class);
+
+    /**
+     * Largest todo identifier, like the maximum of the identifier sequence
+     */
+    private static final int MAX_ID = 1000000;
+
+    /**
+     * Sort using the due date index
+     */
+    private static final Sort DUE_DATE_SORT = new Sort("dueDate");
+
+    private static final Comparator<TodoFull> ID_ORDER = Comparator.comparing(TodoFull::getId);
+
+    private static final Comparator<TodoFull> DUE_DATE_ORDER =
+        Comparator.comparing((TodoFull todo) -> todo.getDueDate().toInstant()).thenComparing(TodoFull::getId);
+
+    /**
+     * Secondary indexes and size of the todos with one state of done
+     */
+    private static final class Partition {
+
+        private final NavigableSet<Integer> ids = new ConcurrentSkipListSet<>();
+
+        private final NavigableSet<DueDateKey> dueDates = new ConcurrentSkipListSet<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+    }
+
+    /**
+     * Journaled write of a todo, published once it is durable
+     */
+    private static final class PendingWrite {
+
+        private final int id;
+
+        private final TodoFull todo;
+
+        private final CompletableFuture<Void> durable;
+
+        PendingWrite(int id, @Nullable TodoFull todo, @NotNull CompletableFuture<Void> durable) {
+            this.id = id;
+            this.todo = todo;
+            this.durable = durable;
+        }
+
+    }
+
+    /**
+     * Entry of the due date index, ordered by due date and identifier
+     */
+    private static final class DueDateKey implements Comparable<DueDateKey> {
+
+        private final Instant dueDate;
+
+        private final int id;
+
+        DueDateKey(@NotNull TodoFull todo) {
+            this.dueDate = todo.getDueDate().toInstant();
+            this.id = todo.getId();
+        }
+
+        @Override
+        public int compareTo(@NotNull DueDateKey other) {
+            int result = this.dueDate.compareTo(other.dueDate);
+            return result != 0 ? result : Integer.compare(this.id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DueDateKey && this.compareTo((DueDateKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.dueDate, this.id);
+        }
+
+    }
+
+    private final ConcurrentNavigableMap<Integer, TodoFull> todos = new ConcurrentSkipListMap<>();
+
+    private final Partition unfinished = new Partition();
+
+    private final Partition finished = new Partition();
+
+    private final Object writeLock = new Object();
+
+    /**
+     * Journaled writes that are not published yet in journal order, guarded by the write lock
+     */
+    private final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+
+    /**
+     * Latest pending write by identifier, guarded by the write lock
+     */
+    private final Map<Integer, PendingWrite> pendingById = new HashMap<>();
+
+    /**
+     * Immutable base of todos, overridden by the todos in the map
+     */
+    private volatile TodoSnapshot snapshot = TodoSnapshot.EMPTY;
+
+    /**
+     * Identifiers of snapshot todos that have been updated or deleted
+     */
+    private final Set<Integer> shadowed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The last assigned identifier, guarded by the write lock
+     */
+    private int lastId;
+
+    /**
+     * Journal of all writes or null if the todos are not persisted
+     */
+    private TodoJournal journal;
+
+    /**
+     * Snapshot file to mount on startup or empty
+     */
+    private String snapshotFile = "";
+
+    // Reads
+
+    @Override
+    public TodoFull findOne(Integer id) {
+        TodoFull todo = this.lookup(id);
+        return todo == null ? null : copy(todo);
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        return this.lookup(id) != null;
+    }
+
+    @Override
+    public long count() {
+        return this.unfinished.size.get() + this.finished.size.get();
+    }
+
+    @Override
+    public Iterable<TodoFull> findAll() {
+        return this.all(0).map(InMemoryTodoRepository::copy).collect(Collectors.toList());
+    }
+
+    @Override
+    public Iterable<TodoFull> findAll(Iterable<Integer> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+            .map(this::lookup)
+            .filter(Objects::nonNull)
+            .map(InMemoryTodoRepository::copy)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Iterable<TodoFull> findAll(Sort sort) {
+        return sorted(this.all(0), sort).map(InMemoryTodoRepository::copy).collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<TodoFull> findAll(Pageable pageable) {
+        if (pageable == null) {
+            return new PageImpl<>((List<TodoFull>) this.findAll());
+        }
+        return page(sorted(this.all(0), pageable.getSort()), pageable, this.count());
+    }
+
+    @Override
+    public Page<TodoFull> findAllByDone(Boolean done, Pageable pageable) {
+        Partition partition = this.partition(done);
+        Stream<TodoFull> todos;
+        if (DUE_DATE_SORT.equals(pageable.getSort())) {
+            todos = this.byDueDate(done);
+        } else {
+            todos = sorted(this.byDone(done, 0), pageable.getSort());
+        }
+        return page(todos, pageable, partition.size.get());
+    }
+
+    @Override
+    public Slice<TodoList> findListBy(Pageable pageable) {
+        return slice(this.all(0), pageable);
+    }
+
+    @Override
+    public Slice<TodoList> findListByDone(Boolean done, Pageable pageable) {
+        return slice(this.byDone(done, 0), pageable);
+    }
+
+    @Override
+    public Slice<TodoList> findListByIdGreaterThan(Integer id, Pageable pageable) {
+        return slice(this.all(id), pageable);
+    }
+
+    @Override
+    public Slice<TodoList> findListByDoneAndIdGreaterThan(Boolean done, Integer id, Pageable pageable) {
+        return slice(this.byDone(done, id), pageable);
+    }
+
+    @Override
+    public List<TodoFull> findPageByIdGreaterThan(Integer id, Pageable pageable) {
+        return this.all(id).limit(pageable.getPageSize()).map(InMemoryTodoRepository::copy)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TodoFull> findPageByDoneAndIdGreaterThan(Boolean done, Integer id, Pageable pageable) {
+        return this.byDone(done, id).limit(pageable.getPageSize()).map(InMemoryTodoRepository::copy)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<TodoFull> streamAll() {
+        return this.all(0).map(InMemoryTodoRepository::copy);
+    }
+
+    @Override
+    public Stream<TodoFull> streamAllByDone(Boolean done) {
+        return this.byDone(done, 0).map(InMemoryTodoRepository::copy);
+    }
+
+    // Writes
+
+    @Override
+    public <S extends TodoFull> S save(S entity) {
+        CompletableFuture<Void> durable;
+        synchronized (this.writeLock) {
+            durable = this.store(entity);
+        }
+        this.await(durable);
+        return entity;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All todos are checked before any is stored, so either all todos are stored or none.
+     */
+    @Override
+    public <S extends TodoFull> Iterable<S> save(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(saved::add);
+        CompletableFuture<Void> durable = null;
+        synchronized (this.writeLock) {
+            this.checkStore(saved);
+            for (S entity : saved) {
+                durable = this.store(entity);
+            }
+        }
+        this.await(durable);
+        return saved;
+    }
+
+    @Override
+    public void delete(Integer id) {
+        if (this.deleteById(id) == 0) {
+            throw new EmptyResultDataAccessException(
+                String.format("No %s entity with id %s exists!", TodoFull.class, id), 1);
+        }
+    }
+
+    @Override
+    public void delete(TodoFull entity) {
+        CompletableFuture<Void> durable = null;
+        synchronized (this.writeLock) {
+            TodoFull stored = this.latest(entity.getId());
+            if (stored != null) {
+                checkVersion(stored, entity.getVersion());
+                durable = this.write(stored.getId(), null);
+            }
+        }
+        this.await(durable);
+    }
+
+    @Override
+    public void delete(Iterable<? extends TodoFull> entities) {
+        for (TodoFull entity : entities) {
+            this.delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        CompletableFuture<Void> durable = null;
+        synchronized (this.writeLock) {
+            this.settle();
+            for (TodoFull todo : this.all(0).collect(Collectors.toList())) {
+                durable = this.write(todo.getId(), null);
+            }
+        }
+        this.await(durable);
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        return this.deleteByIdAndVersion(id, null);
+    }
+
+    @Override
+    public int updateById(Integer id, String title, String description, OffsetDateTime dueDate, Boolean done) {
+        return this.updateByIdAndVersion(id, null, title, description, dueDate, done);
+    }
+
+    @Override
+    public int deleteByIdAndVersion(Integer id, Integer version) {
+        CompletableFuture<Void> durable;
+        synchronized (this.writeLock) {
+            TodoFull stored = this.latest(id);
+            if (stored == null || (version != null && !version.equals(stored.getVersion()))) {
+                return 0;
+            }
+            durable = this.write(id, null);
+        }
+        this.await(durable);
+        return 1;
+    }
+
+    @Override
+    public int updateByIdAndVersion(Integer id, Integer version, String title, String description, OffsetDateTime dueDate, Boolean done) {
+        CompletableFuture<Void> durable;
+        synchronized (this.writeLock) {
+            TodoFull stored = this.latest(id);
+            if (stored == null || (version != null && !version.equals(stored.getVersion()))) {
+                return 0;
+            }
+            TodoFull updated = copy(stored);
+            updated.setTitle(title);
+            updated.setDescription(description);
+            updated.setDueDate(dueDate);
+            updated.setDone(done);
+            updated.setVersion(stored.getVersion() + 1);
+            durable = this.write(id, updated);
+        }
+        this.await(durable);
+        return 1;
+    }
+
+    // Journal
+
+    /**
+     * Journals all writes and restores the journaled todos
+     *
+     * @param journal The journal of the profile "wal"
+     */
+    @Autowired(required = false)
+    void setJournal(@NotNull TodoJournal journal) {
+        journal.open(new TodoJournal.Todos() {
+
+            @Override
+            public void restore(int id, @Nullable TodoFull todo) {
+                synchronized (InMemoryTodoRepository.this.writeLock) {
+                    InMemoryTodoRepository.this.swap(InMemoryTodoRepository.this.lookup(id), todo);
+                    InMemoryTodoRepository.this.lastId = Math.max(InMemoryTodoRepository.this.lastId, id);
+                }
+            }
+
+            @Override
+            public void snapshot(@NotNull ObjIntConsumer<Collection<TodoFull>> capture) {
+                synchronized (InMemoryTodoRepository.this.writeLock) {
+                    // The log segment of the pending writes is replaced by the snapshot
+                    InMemoryTodoRepository.this.settle();
+                    capture.accept(InMemoryTodoRepository.this.todos.values(), InMemoryTodoRepository.this.lastId);
+                }
+            }
+
+        });
+        this.journal = journal;
+    }
+
+    /**
+     * Configures the snapshot to mount on startup
+     *
+     * @param snapshotFile The snapshot file or empty
+     */
+    @Value("${todolist.snapshot.file:}")
+    void setSnapshotFile(@NotNull String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Mounts the configured snapshot
+     *
+     * @throws IOException           If the snapshot could not be mapped
+     * @throws IllegalStateException If a journal is configured as well
+     */
+    @PostConstruct
+    void mountSnapshotFile() throws IOException {
+        if (this.snapshotFile.isEmpty()) {
+            return;
+        }
+        if (this.journal != null) {
+            // The journal only knows the writes, so a compacted journal would lose deletions of snapshot todos
+            throw new IllegalStateException("A snapshot cannot be mounted with a journal, import it instead");
+        }
+        long start = System.nanoTime();
+        this.mount(TodoSnapshot.map(Paths.get(this.snapshotFile)));
+        log.info("Mounted snapshot {} with {} todos in {} ms", this.snapshotFile, this.count(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Mounts a snapshot as base of the todos
+     *
+     * @param snapshot The snapshot
+     * @throws IllegalStateException If the repository is not empty
+     */
+    void mount(@NotNull TodoSnapshot snapshot) {
+        synchronized (this.writeLock) {
+            if (this.lastId != 0 || this.snapshot.size() != 0) {
+                throw new IllegalStateException("A snapshot can only be mounted into an empty repository");
+            }
+            this.unfinished.size.addAndGet(snapshot.size(false));
+            this.finished.size.addAndGet(snapshot.size(true));
+            this.lastId = snapshot.lastId();
+            this.snapshot = snapshot;
+        }
+    }
+
+    @Override
+    public int restore(Iterable<TodoFull> todos) {
+        int count = 0;
+        CompletableFuture<Void> durable = null;
+        try {
+            synchronized (this.writeLock) {
+                for (TodoFull todo : todos) {
+                    durable = this.write(todo.getId(), copy(todo));
+                    this.lastId = Math.max(this.lastId, todo.getId());
+                    count++;
+                }
+            }
+        } finally {
+            this.await(durable);
+        }
+        return count;
+    }
+
+    /**
+     * Waits until a write is durable and publishes it with all writes journaled before
+     *
+     * @param durable The completion of the journal entry or null if there is no journal or nothing was written
+     * @throws DataAccessResourceFailureException If the journal could not write the entry
+     */
+    private void await(@Nullable CompletableFuture<Void> durable) {
+        if (durable == null) {
+            return;
+        }
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            throw new DataAccessResourceFailureException("Could not journal the todo", e.getCause());
+        } finally {
+            synchronized (this.writeLock) {
+                this.publish();
+            }
+        }
+    }
+
+    /**
+     * Publishes the durable writes at the head of the pending writes and drops the failed ones, the write lock must be
+     * held.
+     * <p>
+     * The journal completes its entries in order, so the writes are published in the order they were journaled.
+     */
+    private void publish() {
+        PendingWrite pending;
+        while ((pending = this.pendingWrites.peek()) != null && pending.durable.isDone()) {
+            this.pendingWrites.remove();
+            if (this.pendingById.get(pending.id) == pending) {
+                this.pendingById.remove(pending.id);
+            }
+            if (!pending.durable.isCompletedExceptionally()) {
+                this.swap(this.lookup(pending.id), pending.todo);
+            }
+        }
+    }
+
+    /**
+     * Waits until all pending writes are durable or failed and publishes them, the write lock must be held
+     */
+    private void settle() {
+        for (PendingWrite pending : this.pendingWrites) {
+            try {
+                pending.durable.join();
+            } catch (CompletionException e) {
+                // Dropped by publishing
+            }
+        }
+        this.publish();
+    }
+
+    /**
+     * Checks that todos can be stored one after the other without storing any, the write lock must be held
+     *
+     * @param entities The todos to save
+     * @throws IllegalStateException                   If there are not enough todo identifiers left
+     * @throws ObjectOptimisticLockingFailureException If a todo has been modified since it was read
+     */
+    private void checkStore(@NotNull List<? extends TodoFull> entities) {
+        int lastId = this.lastId;
+        // Versions of the todos stored by the previous entities
+        Map<Integer, Integer> versions = new HashMap<>();
+        for (TodoFull entity : entities) {
+            Integer id = entity.getId();
+            Integer version = null;
+            if (id != null) {
+                TodoFull stored = this.latest(id);
+                version = versions.containsKey(id) ? versions.get(id) : stored == null ? null : stored.getVersion();
+            }
+            if (version == null) {
+                if (lastId >= MAX_ID) {
+                    throw new IllegalStateException("No todo identifiers left");
+                }
+                versions.put(++lastId, 0);
+            } else {
+                if (entity.getVersion() != null && !entity.getVersion().equals(version)) {
+                    throw new ObjectOptimisticLockingFailureException(TodoFull.class, id);
+                }
+                versions.put(id, version + 1);
+            }
+        }
+    }
+
+    /**
+     * Inserts a new todo or replaces an existing one, the write lock must be held
+     *
+     * @param entity The todo to save, gets its identifier and version
+     * @return The completion of the journal entry or null if there is no journal
+     * @throws ObjectOptimisticLockingFailureException If the todo has been modified since it was read
+     */
+    @Nullable
+    private CompletableFuture<Void> store(@NotNull TodoFull entity) {
+        TodoFull stored = entity.getId() == null ? null : this.latest(entity.getId());
+        if (stored == null) {
+            if (this.lastId >= MAX_ID) {
+                throw new IllegalStateException("No todo identifiers left");
+            }
+            entity.setId(++this.lastId);
+            entity.setVersion(0);
+        } else {
+            checkVersion(stored, entity.getVersion());
+            entity.setVersion(stored.getVersion() + 1);
+        }
+        return this.write(entity.getId(), copy(entity));
+    }
+
+    /**
+     * Writes a todo, the write lock must be held.
+     * <p>
+     * Without a journal the todo is replaced right away, otherwise the write is journaled and stays pending.
+     *
+     * @param id   The identifier of the todo
+     * @param todo The new todo or null to delete
+     * @return The completion of the journal entry or null if there is no journal
+     */
+    @Nullable
+    private CompletableFuture<Void> write(int id, @Nullable TodoFull todo) {
+        if (this.journal == null) {
+            this.swap(this.lookup(id), todo);
+            return null;
+        }
+        CompletableFuture<Void> durable = todo == null ? this.journal.delete(id) : this.journal.put(todo);
+        PendingWrite pending = new PendingWrite(id, todo, durable);
+        this.pendingWrites.add(pending);
+        this.pendingById.put(id, pending);
+        return durable;
+    }
+
+    /**
+     * Replaces a todo without journaling, the write lock must be held.
+     * <p>
+     * A snapshot todo is shadowed after its replacement has been added, so a lock-free read that sees the shadow also
+     * sees the replacement.
+     *
+     * @param stored The stored todo or null to insert
+     * @param todo   The new todo or null to delete
+     */
+    private void swap(@Nullable TodoFull stored, @Nullable TodoFull todo) {
+        boolean fromSnapshot = stored != null && this.todos.get(stored.getId()) != stored;
+        if (stored != null && !fromSnapshot) {
+            this.remove(stored);
+        }
+        if (todo != null) {
+            this.add(todo);
+        }
+        if (fromSnapshot) {
+            this.partition(stored.isDone()).size.decrementAndGet();
+            this.shadowed.add(stored.getId());
+        }
+    }
+
+    /**
+     * Adds a todo and its index entries, the write lock must be held
+     *
+     * @param todo The todo to add
+     */
+    private void add(@NotNull TodoFull todo) {
+        Partition partition = this.partition(todo.isDone());
+        this.todos.put(todo.getId(), todo);
+        partition.ids.add(todo.getId());
+        partition.dueDates.add(new DueDateKey(todo));
+        partition.size.incrementAndGet();
+    }
+
+    /**
+     * Removes a todo and its index entries, the write lock must be held
+     *
+     * @param todo The stored todo to remove
+     */
+    private void remove(@NotNull TodoFull todo) {
+        Partition partition = this.partition(todo.isDone());
+        partition.size.decrementAndGet();
+        partition.dueDates.remove(new DueDateKey(todo));
+        partition.ids.remove(todo.getId());
+        this.todos.remove(todo.getId());
+    }
+
+    /**
+     * Checks the version of a todo to save or delete like the optimistic locking of JPA
+     *
+     * @param stored  The stored todo
+     * @param version The version the todo was read with or null if unknown
+     * @throws ObjectOptimisticLockingFailureException If the todo has been modified since it was read
+     */
+    private static void checkVersion(@NotNull TodoFull stored, @Nullable Integer version) {
+        if (version != null && !version.equals(stored.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(TodoFull.class, stored.getId());
+        }
+    }
+
+    @NotNull
+    private Partition partition(@NotNull Boolean done) {
+        return done ? this.finished : this.unfinished;
+    }
+
+    /**
+     * Looks up a todo including the pending writes, the write lock must be held
+     *
+     * @param id The identifier
+     * @return The todo of the latest pending write or the stored todo or null if there is none
+     */
+    @Nullable
+    private TodoFull latest(int id) {
+        PendingWrite pending = this.pendingById.get(id);
+        return pending != null ? pending.todo : this.lookup(id);
+    }
+
+    /**
+     * Looks up a todo in the map and in the snapshot
+     *
+     * @param id The identifier
+     * @return The stored todo, a todo decoded from the snapshot or null if there is none
+     */
+    @Nullable
+    private TodoFull lookup(int id) {
+        TodoFull todo = this.todos.get(id);
+        if (todo != null) {
+            return todo;
+        }
+        if (this.shadowed.contains(id)) {
+            // Updated since the first lookup or deleted
+            return this.todos.get(id);
+        }
+        TodoSnapshot snapshot = this.snapshot;
+        int entry = snapshot.find(id);
+        return entry < 0 ? null : snapshot.todo(entry);
+    }
+
+    /**
+     * Streams all todos
+     *
+     * @param afterId The identifier after which to start
+     * @return The todos in identifier order
+     */
+    @NotNull
+    private Stream<TodoFull> all(int afterId) {
+        TodoSnapshot snapshot = this.snapshot;
+        return this.merge(IntStream.range(snapshot.after(afterId), snapshot.size()), snapshot,
+            this.todos.tailMap(afterId, false).values().stream(), ID_ORDER);
+    }
+
+    /**
+     * Streams the todos with a state of done
+     *
+     * @param done    The state of done
+     * @param afterId The identifier after which to start
+     * @return The todos in identifier order
+     */
+    @NotNull
+    private Stream<TodoFull> byDone(boolean done, int afterId) {
+        TodoSnapshot snapshot = this.snapshot;
+        return this.merge(
+            IntStream.range(snapshot.after(done, afterId), snapshot.size(done)).map(position -> snapshot.idOrder(done, position)),
+            snapshot, this.resolve(this.partition(done).ids.tailSet(afterId, false).stream(), done), ID_ORDER);
+    }
+
+    /**
+     * Streams the todos with a state of done by due date
+     *
+     * @param done The state of done
+     * @return The todos in due date order
+     */
+    @NotNull
+    private Stream<TodoFull> byDueDate(boolean done) {
+        TodoSnapshot snapshot = this.snapshot;
+        return this.merge(IntStream.range(0, snapshot.size(done)).map(position -> snapshot.dueDateOrder(done, position)),
+            snapshot, this.resolve(this.partition(done).dueDates.stream().map(key -> key.id), done), DUE_DATE_ORDER);
+    }
+
+    /**
+     * Merges the todos of the snapshot with the todos of the map
+     *
+     * @param entries  The positions of the snapshot todos in order
+     * @param snapshot The snapshot
+     * @param todos    The todos of the map in order
+     * @param order    The order of both streams
+     * @return The todos of the snapshot that are not shadowed and the todos of the map in order
+     */
+    @NotNull
+    private Stream<TodoFull> merge(@NotNull IntStream entries, @NotNull TodoSnapshot snapshot,
+                                   @NotNull Stream<TodoFull> todos, @NotNull Comparator<TodoFull> order) {
+        if (snapshot.size() == 0) {
+            return todos;
+        }
+        Iterator<TodoFull> left = entries.filter(entry -> !this.shadowed.contains(snapshot.id(entry)))
+            .mapToObj(snapshot::todo).iterator();
+        Iterator<TodoFull> right = todos.iterator();
+        Iterator<TodoFull> merged = new Iterator<TodoFull>() {
+
+            private TodoFull nextLeft;
+
+            private TodoFull nextRight;
+
+            @Override
+            public boolean hasNext() {
+                if (this.nextLeft == null && left.hasNext()) {
+                    this.nextLeft = left.next();
+                }
+                if (this.nextRight == null && right.hasNext()) {
+                    this.nextRight = right.next();
+                }
+                return this.nextLeft != null || this.nextRight != null;
+            }
+
+            @Override
+            public TodoFull next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TodoFull next;
+                if (this.nextRight == null || (this.nextLeft != null && order.compare(this.nextLeft, this.nextRight) < 0)) {
+                    next = this.nextLeft;
+                    this.nextLeft = null;
+                } else {
+                    next = this.nextRight;
+                    this.nextRight = null;
+                }
+                return next;
+            }
+
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Resolves the identifiers of an index to the todos that are still stored with the given state
+     *
+     * @param ids  The identifiers of an index
+     * @param done The state of the index
+     * @return The todos in index order
+     */
+    @NotNull
+    private Stream<TodoFull> resolve(@NotNull Stream<Integer> ids, @NotNull Boolean done) {
+        return ids.map(this.todos::get).filter(todo -> todo != null && done.equals(todo.isDone()));
+    }
+
+    /**
+     * Copies a todo, so the stored todos cannot be modified by callers
+     *
+     * @param todo The todo to copy
+     * @return The copy
+     */
+    @NotNull
+    private static TodoFull copy(@NotNull TodoFull todo) {
+        TodoFull copy = new TodoFull(todo);
+        copy.setId(todo.getId());
+        copy.setVersion(todo.getVersion());
+        return copy;
+    }
+
+    /**
+     * Creates a slice of todo list projections
+     *
+     * @param todos    All matching todos in order
+     * @param pageable The requested slice
+     * @return The slice, which has a next slice if there is at least one more todo
+     */
+    @NotNull
+    private static Slice<TodoList> slice(@NotNull Stream<TodoFull> todos, @NotNull Pageable pageable) {
+        List<TodoList> content = todos.skip(pageable.getOffset())
+            .limit(pageable.getPageSize() + 1L)
+            .map(TodoList::new)
+            .collect(Collectors.toList());
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(content.size() - 1);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Creates a page of todos
+     *
+     * @param todos    All matching todos in order
+     * @param pageable The requested page
+     * @param total    The number of all matching todos
+     * @return The page
+     */
+    @NotNull
+    private static Page<TodoFull> page(@NotNull Stream<TodoFull> todos, @NotNull Pageable pageable, long total) {
+        List<TodoFull> content = todos.skip(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .map(InMemoryTodoRepository::copy)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Sorts todos like the database, null values are lower than all other values
+     *
+     * @param todos The todos in identifier order
+     * @param sort  The sort or null to keep the identifier order
+     * @return The sorted todos
+     * @throws org.springframework.data.mapping.PropertyReferenceException If a sorted property does not exist
+     */
+    @NotNull
+    private static Stream<TodoFull> sorted(@NotNull Stream<TodoFull> todos, @Nullable Sort sort) {
+        if (sort == null) {
+            return todos;
+        }
+        Comparator<TodoFull> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<TodoFull> orderComparator = comparator(order);
+            comparator = comparator == null ? orderComparator : comparator.thenComparing(orderComparator);
+        }
+        return comparator == null ? todos : todos.sorted(comparator.thenComparing(TodoFull::getId));
+    }
+
+    /**
+     * Creates the comparator of a sort order
+     *
+     * @param order The sort order
+     * @return The comparator of todos by the ordered property
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static Comparator<TodoFull> comparator(@NotNull Sort.Order order) {
+        String path = PropertyPath.from(order.getProperty(), TodoFull.class).toDotPath();
+        Function<TodoFull, Object> property = todo -> new DirectFieldAccessor(todo).getPropertyValue(path);
+        Comparator<Object> values = order.isIgnoreCase()
+            ? (a, b) -> ((String) a).compareToIgnoreCase((String) b)
+            : (a, b) -> ((Comparable<Object>) a).compareTo(b);
+        if (order.isDescending()) {
+            values = values.reversed();
+        }
+        switch (order.getNullHandling()) {
+            case NULLS_LAST:
+                values = Comparator.nullsLast(values);
+                break;
+            case NULLS_FIRST:
+                values = Comparator.nullsFirst(values);
+                break;
+            default:
+                values = order.isAscending() ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+        }
+        return Comparator.comparing(property, values);
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Journal persisting the writes of the {@link InMemoryTodoRepository}.
+ * <p>
+ * Entries are appended in the order of the writes, since the repository appends them while holding its write lock.
+ * The returned futures complete once an entry is durable.
+ */
+public interface TodoJournal {
+
+    /**
+     * Access of a journal to the todos of the repository
+     */
+    interface Todos {
+
+        /**
+         * Restores a journaled todo while opening the journal.
+         * <p>
+         * Identifiers up to the given one are never assigned again.
+         *
+         * @param id   The identifier of the todo
+         * @param todo The todo or null if it has been deleted
+         */
+        void restore(int id, @Nullable TodoFull todo);
+
+        /**
+         * Captures all todos while no todo is written
+         *
+         * @param capture Receives all stored todos and the last assigned identifier, must not block
+         */
+        void snapshot(@NotNull ObjIntConsumer<Collection<TodoFull>> capture);
+
+    }
+
+    /**
+     * Restores all journaled todos and starts journaling
+     *
+     * @param todos The todos of the repository
+     */
+    void open(@NotNull Todos todos);
+
+    /**
+     * Appends an inserted or updated todo
+     *
+     * @param todo The stored todo
+     * @return The completion once the entry is durable
+     */
+    @NotNull
+    CompletableFuture<Void> put(@NotNull TodoFull todo);
+
+    /**
+     * Appends a deleted todo
+     *
+     * @param id The identifier of the deleted todo
+     * @return The completion once the entry is durable
+     */
+    @NotNull
+    CompletableFuture<Void> delete(int id);
+
+}
@@ -0,0 +1,417 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of todos in a compact binary file, read through a memory mapping.
+ * <p>
+ * Only the header is read when a snapshot is mapped, every todo is decoded from the mapping when it is read, so mapping
+ * takes the same time for any number of todos and the todos take no heap until they are read.
+ * <p>
+ * Layout of format version 1, all numbers are big-endian:
+ * <ol>
+ * <li>Header of 64 bytes: magic "TODO" (int), format version (short), reserved (short), number of todos (int),
+ * number of unfinished todos (int), number of finished todos (int), offset of the entries (int), reserved</li>
+ * <li>Texts: for every todo its title and description, each as UTF-8 length (int, -1 for null) and bytes</li>
+ * <li>Entries of 32 bytes in identifier order: identifier (int), version (int), due date as epoch milliseconds (long),
+ * nanoseconds of the millisecond (int), offset seconds (int), offset of the texts (int), done (byte), reserved</li>
+ * <li>Positions of the entries of the unfinished and the finished todos in identifier order (ints)</li>
+ * <li>Positions of the entries of the unfinished and the finished todos in due date order (ints)</li>
+ * </ol>
+ * The sorted positions back the same queries as the indexes of the database schema.
+ */
+public final class TodoSnapshot {
+
+    private static final int MAGIC = 0x544f444f;
+
+    private static final short FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 64;
+
+    private static final int ENTRY_LENGTH = 32;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Snapshot without todos
+     */
+    static final TodoSnapshot EMPTY = new TodoSnapshot(ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC)
+        .putShort(FORMAT_VERSION).putShort((short) 0).putInt(0).putInt(0).putInt(0).putInt(HEADER_LENGTH), "empty");
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final int entries;
+
+    private final int[] sizes = new int[2];
+
+    private final int[] idOrders = new int[2];
+
+    private final int[] dueDateOrders = new int[2];
+
+    /**
+     * Reads the header of a snapshot
+     *
+     * @param buffer The snapshot, only accessed by absolute positions
+     * @param name   The name of the snapshot used in error messages
+     * @throws IllegalArgumentException If the buffer is no snapshot of a supported format version
+     */
+    private TodoSnapshot(@NotNull ByteBuffer buffer, @NotNull String name) {
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(name + " is no todo snapshot");
+        }
+        if (buffer.getShort(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException(name + " has the unsupported format version " + buffer.getShort(4));
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.sizes[0] = buffer.getInt(12);
+        this.sizes[1] = buffer.getInt(16);
+        this.entries = buffer.getInt(20);
+        this.idOrders[0] = this.entries + this.size * ENTRY_LENGTH;
+        this.idOrders[1] = this.idOrders[0] + this.sizes[0] * Integer.BYTES;
+        this.dueDateOrders[0] = this.idOrders[1] + this.sizes[1] * Integer.BYTES;
+        this.dueDateOrders[1] = this.dueDateOrders[0] + this.sizes[0] * Integer.BYTES;
+        if (this.dueDateOrders[1] + this.sizes[1] * Integer.BYTES != buffer.limit()) {
+            throw new IllegalArgumentException(name + " is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Maps a snapshot file
+     *
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException              If the file could not be mapped
+     * @throws IllegalArgumentException If the file is no snapshot of a supported format version
+     */
+    @NotNull
+    public static TodoSnapshot map(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is larger than 2 GB");
+            }
+            // The mapping stays valid after closing the channel
+            return new TodoSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /**
+     * Writes a snapshot file.
+     * <p>
+     * The snapshot is written to a temporary file first, which then replaces the file.
+     *
+     * @param file  The snapshot file
+     * @param todos The todos in ascending identifier order
+     * @return The number of written todos
+     * @throws IOException              If the file could not be written
+     * @throws IllegalArgumentException If the todos are not in ascending identifier order or exceed 2 GB
+     */
+    public static int write(@NotNull Path file, @NotNull Iterator<TodoFull> todos) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Entries entries = new Entries();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_LENGTH);
+            DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            long position = HEADER_LENGTH;
+            while (todos.hasNext()) {
+                TodoFull todo = todos.next();
+                entries.add(todo, (int) position);
+                position += writeText(output, todo.getTitle()) + writeText(output, todo.getDescription());
+                if (position > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("The todos exceed the maximum snapshot size of 2 GB");
+                }
+            }
+            int entriesOffset = (int) position;
+            entries.write(output);
+            output.flush();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The todos exceed the maximum snapshot size of 2 GB");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0).putInt(entries.size)
+                .putInt(entries.sizes[0]).putInt(entries.sizes[1]).putInt(entriesOffset).clear();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries.size;
+    }
+
+    /**
+     * Gets the number of todos
+     *
+     * @return The number of todos
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of todos with a state of done
+     *
+     * @param done The state of done
+     * @return The number of todos with the state
+     */
+    int size(boolean done) {
+        return this.sizes[done ? 1 : 0];
+    }
+
+    /**
+     * Gets the largest identifier
+     *
+     * @return The identifier of the last todo or 0 if there are none
+     */
+    int lastId() {
+        return this.size == 0 ? 0 : this.id(this.size - 1);
+    }
+
+    /**
+     * Gets the identifier of a todo
+     *
+     * @param entry The position of the todo in identifier order
+     * @return The identifier
+     */
+    int id(int entry) {
+        return this.buffer.getInt(this.entries + entry * ENTRY_LENGTH);
+    }
+
+    /**
+     * Decodes a todo
+     *
+     * @param entry The position of the todo in identifier order
+     * @return A new todo
+     */
+    @NotNull
+    TodoFull todo(int entry) {
+        int offset = this.entries + entry * ENTRY_LENGTH;
+        TodoFull todo = new TodoFull();
+        todo.setId(this.buffer.getInt(offset));
+        todo.setVersion(this.buffer.getInt(offset + 4));
+        Instant dueDate = Instant.ofEpochMilli(this.buffer.getLong(offset + 8)).plusNanos(this.buffer.getInt(offset + 16));
+        todo.setDueDate(OffsetDateTime.ofInstant(dueDate, ZoneOffset.ofTotalSeconds(this.buffer.getInt(offset + 20))));
+        int text = this.buffer.getInt(offset + 24);
+        todo.setDone(this.buffer.get(offset + 28) != 0);
+        ByteBuffer texts = this.buffer.duplicate();
+        texts.position(text);
+        todo.setTitle(readText(texts));
+        todo.setDescription(readText(texts));
+        return todo;
+    }
+
+    /**
+     * Decodes all todos
+     *
+     * @return The todos in identifier order
+     */
+    @NotNull
+    public Stream<TodoFull> todos() {
+        return IntStream.range(0, this.size).mapToObj(this::todo);
+    }
+
+    /**
+     * Finds the first todo with an identifier greater than the given one
+     *
+     * @param id The identifier
+     * @return The position of the todo in identifier order or the number of todos if there is none
+     */
+    int after(int id) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.id(middle) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds a todo by identifier
+     *
+     * @param id The identifier
+     * @return The position of the todo in identifier order or -1 if there is none
+     */
+    int find(int id) {
+        int entry = this.after(id) - 1;
+        return entry >= 0 && this.id(entry) == id ? entry : -1;
+    }
+
+    /**
+     * Gets a todo of a state of done in identifier order
+     *
+     * @param done     The state of done
+     * @param position The position among the todos of the state in identifier order
+     * @return The position of the todo among all todos
+     */
+    int idOrder(boolean done, int position) {
+        return this.buffer.getInt(this.idOrders[done ? 1 : 0] + position * Integer.BYTES);
+    }
+
+    /**
+     * Gets a todo of a state of done in due date order
+     *
+     * @param done     The state of done
+     * @param position The position among the todos of the state in due date order
+     * @return The position of the todo among all todos
+     */
+    int dueDateOrder(boolean done, int position) {
+        return this.buffer.getInt(this.dueDateOrders[done ? 1 : 0] + position * Integer.BYTES);
+    }
+
+    /**
+     * Finds the first todo of a state of done with an identifier greater than the given one
+     *
+     * @param done The state of done
+     * @param id   The identifier
+     * @return The position among the todos of the state in identifier order or their number if there is none
+     */
+    int after(boolean done, int id) {
+        int low = 0;
+        int high = this.size(done);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.id(this.idOrder(done, middle)) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int writeText(@NotNull DataOutputStream output, @Nullable String text) throws IOException {
+        if (text == null) {
+            output.writeInt(-1);
+            return Integer.BYTES;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+
+    @Nullable
+    private static String readText(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entries collected while writing the texts
+     */
+    private static final class Entries {
+
+        private static final byte[] PADDING = new byte[3];
+
+        private int size;
+
+        private final int[] sizes = new int[2];
+
+        private int[] ids = new int[1024];
+
+        private int[] versions = new int[1024];
+
+        private long[] dueDates = new long[1024];
+
+        private int[] nanos = new int[1024];
+
+        private int[] offsets = new int[1024];
+
+        private int[] texts = new int[1024];
+
+        private boolean[] done = new boolean[1024];
+
+        void add(@NotNull TodoFull todo, int text) {
+            if (this.size > 0 && todo.getId() <= this.ids[this.size - 1]) {
+                throw new IllegalArgumentException("Todo " + todo.getId() + " is not in ascending identifier order");
+            }
+            if (this.size == this.ids.length) {
+                int length = this.size * 2;
+                this.ids = Arrays.copyOf(this.ids, length);
+                this.versions = Arrays.copyOf(this.versions, length);
+                this.dueDates = Arrays.copyOf(this.dueDates, length);
+                this.nanos = Arrays.copyOf(this.nanos, length);
+                this.offsets = Arrays.copyOf(this.offsets, length);
+                this.texts = Arrays.copyOf(this.texts, length);
+                this.done = Arrays.copyOf(this.done, length);
+            }
+            Instant dueDate = todo.getDueDate().toInstant();
+            this.ids[this.size] = todo.getId();
+            this.versions[this.size] = todo.getVersion() == null ? 0 : todo.getVersion();
+            this.dueDates[this.size] = dueDate.toEpochMilli();
+            this.nanos[this.size] = dueDate.getNano() % 1000000;
+            this.offsets[this.size] = todo.getDueDate().getOffset().getTotalSeconds();
+            this.texts[this.size] = text;
+            this.done[this.size] = todo.isDone();
+            this.sizes[todo.isDone() ? 1 : 0]++;
+            this.size++;
+        }
+
+        void write(@NotNull DataOutputStream output) throws IOException {
+            for (int entry = 0; entry < this.size; entry++) {
+                output.writeInt(this.ids[entry]);
+                output.writeInt(this.versions[entry]);
+                output.writeLong(this.dueDates[entry]);
+                output.writeInt(this.nanos[entry]);
+                output.writeInt(this.offsets[entry]);
+                output.writeInt(this.texts[entry]);
+                output.writeByte(this.done[entry] ? 1 : 0);
+                output.write(PADDING);
+            }
+            for (boolean state : new boolean[] { false, true }) {
+                for (int entry = 0; entry < this.size; entry++) {
+                    if (this.done[entry] == state) {
+                        output.writeInt(entry);
+                    }
+                }
+            }
+            for (boolean state : new boolean[] { false, true }) {
+                // Stable, so todos with the same due date stay in identifier order
+                Integer[] order = IntStream.range(0, this.size).filter(entry -> this.done[entry] == state)
+                    .boxed().toArray(Integer[]::new);
+                Arrays.sort(order, (a, b) -> this.dueDates[a] != this.dueDates[b]
+                    ? Long.compare(this.dueDates[a], this.dueDates[b])
+                    : Integer.compare(this.nanos[a], this.nanos[b]));
+                for (int entry : order) {
+                    output.writeInt(entry);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Exports the todos of the configured storage to a {@link TodoSnapshot} and imports snapshots into it
+ */
+@Component
+public class TodoSnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(TodoSnapshots.class);
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Checks whether the configured storage outlives the application, i.e. the profile {@code wal} is active or the
+     * database of {@code spring.datasource.url} is not held in memory
+     *
+     * @param environment The environment of the application
+     * @return True if the storage is persistent, false otherwise
+     */
+    public static boolean isPersistent(@NotNull Environment environment) {
+        if (environment.acceptsProfiles("memory")) {
+            return environment.acceptsProfiles("wal");
+        }
+        String url = environment.getProperty("spring.datasource.url", "");
+        return !url.isEmpty() && !url.contains(":mem:");
+    }
+
+    /**
+     * Verifies that a command exporting or importing a snapshot works on a persistent storage, as the todos of a
+     * storage in memory are gone once the command exits
+     *
+     * @param command The name of the command
+     * @throws IllegalStateException If the configured storage is not persistent
+     */
+    public void verifyPersistent(@NotNull String command) {
+        if (!isPersistent(this.environment)) {
+            throw new IllegalStateException("The command " + command + " requires a persistent storage, run it with "
+                + "--spring.profiles.active=wal or a spring.datasource.url of a database that is not in memory");
+        }
+    }
+
+    /**
+     * Exports all todos
+     *
+     * @param file The snapshot file to write
+     * @return The number of exported todos
+     * @throws IOException If the snapshot could not be written
+     */
+    @Transactional(readOnly = true)
+    public int export(@NotNull Path file) throws IOException {
+        long start = System.nanoTime();
+        int count;
+        try (Stream<TodoFull> todos = this.todoRepository.streamAll()) {
+            count = TodoSnapshot.write(file, todos.iterator());
+        }
+        log.info("Exported {} todos to {} in {} ms", count, file,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+
+    /**
+     * Imports all todos of a snapshot, existing todos with the same identifiers are replaced
+     *
+     * @param file The snapshot file to read
+     * @return The number of imported todos
+     * @throws IOException If the snapshot could not be read
+     */
+    public int importSnapshot(@NotNull Path file) throws IOException {
+        long start = System.nanoTime();
+        TodoSnapshot snapshot = TodoSnapshot.map(file);
+        int count = this.todoRepository.restore(() -> snapshot.todos().iterator());
+        log.info("Imported {} todos from {} in {} ms", count, file,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+
+}
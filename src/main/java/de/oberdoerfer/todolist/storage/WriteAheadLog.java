@@ -0,0 +1,683 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the todo writes, selected by the profile "wal".
+ * <p>
+ * Every write is appended as a checksummed record to the current log segment. A single writer thread drains all
+ * pending records, writes them with one gathering write and forces them to disk once (group commit), so concurrent
+ * writers share the cost of a sync. If a group cannot be written, the segment is truncated to the end of the last
+ * written group, so no partial record stays in the middle of the log. If it cannot be truncated, the log fails all
+ * further writes.
+ * <p>
+ * Periodic snapshots compact the log: while writes are blocked the log is rotated to a new segment and the todos are
+ * captured, then the snapshot is written and replaces all older segments. The directory is forced after a segment
+ * is created and after the snapshot is renamed into place, before the replaced files are deleted. Opening the log
+ * replays the latest snapshot and all following segments, a torn record at the end of the last segment is truncated
+ * and writing continues in the last segment.
+ * <p>
+ * Record format: payload length (int), CRC32 of the payload (int), payload. A put payload consists of the type,
+ * identifier, version, done, due date (epoch second, nano, offset seconds), title and description, a delete payload of
+ * the type and identifier.
+ */
+@Component
+@Profile("wal")
+public class WriteAheadLog implements TodoJournal, PublicMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int HEADER_LENGTH = 2 * Integer.BYTES;
+
+    /**
+     * Upper bound of a payload, the title and description of a todo are limited to 530 characters
+     */
+    private static final int MAX_PAYLOAD_LENGTH = 1 << 16;
+
+    private static final int SNAPSHOT_MAGIC = 0x54444f53;
+
+    private static final int MAX_BATCH = 1024;
+
+    private static final Pattern SEGMENT = Pattern.compile("todos-(\\d+)\\.log");
+
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    /**
+     * Pending record or control entry of the writer thread
+     */
+    private static final class Entry {
+
+        private final ByteBuffer record;
+
+        private final long rotateTo;
+
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        Entry(@Nullable ByteBuffer record, long rotateTo) {
+            this.record = record;
+            this.rotateTo = rotateTo;
+        }
+
+    }
+
+    private final Path directory;
+
+    private final boolean sync;
+
+    private final long snapshotIntervalSeconds;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Number of the current segment, the next rotation is numbered one higher
+     */
+    private final AtomicLong segment = new AtomicLong();
+
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+
+    private volatile boolean open;
+
+    /**
+     * The failure that left the current segment in an unknown state or null, fails all further writes
+     */
+    private volatile IOException failure;
+
+    /**
+     * Size of the current segment up to the last written group, only accessed by the writer thread after opening
+     */
+    private long committed;
+
+    private Todos todos;
+
+    private FileChannel channel;
+
+    private Thread writer;
+
+    private ScheduledExecutorService snapshots;
+
+    private long recoveryMillis;
+
+    private long recoveredRecords;
+
+    private long snapshotMillis;
+
+    /**
+     * Creates the log
+     *
+     * @param directory               The directory of the log segments and snapshots
+     * @param sync                    Whether every group commit is forced to disk
+     * @param snapshotIntervalSeconds The interval of snapshots or 0 to only snapshot on close
+     */
+    public WriteAheadLog(@Value("${todolist.wal.directory}") String directory,
+                         @Value("${todolist.wal.sync:true}") boolean sync,
+                         @Value("${todolist.wal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) {
+        this.directory = Paths.get(directory);
+        this.sync = sync;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    @Override
+    public synchronized void open(@NotNull Todos todos) {
+        if (this.open) {
+            throw new IllegalStateException("The write-ahead log is already open");
+        }
+        this.todos = todos;
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(this.directory);
+            long snapshotSegment = this.latest(SNAPSHOT);
+            long restored = snapshotSegment == 0 ? 0 : this.readSnapshot(snapshotSegment);
+            List<Long> segments = this.list(SEGMENT);
+            segments.removeIf(number -> number < snapshotSegment);
+            long records = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                records += this.replay(segments.get(i), i == segments.size() - 1);
+            }
+            long lastSegment = segments.isEmpty() ? snapshotSegment : segments.get(segments.size() - 1);
+            this.segment.set(Math.max(lastSegment, 1));
+            this.channel = FileChannel.open(this.segmentPath(this.segment.get()),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.committed = this.channel.size();
+            this.forceDirectory();
+            this.deleteObsolete(snapshotSegment);
+            this.recoveredRecords = records;
+            this.recordsSinceSnapshot.set(records);
+            this.recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Recovered {} todos from the snapshot and {} records from {} log segments in {} ms",
+                restored, records, segments.size(), this.recoveryMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the write-ahead log in " + this.directory, e);
+        }
+
+        this.open = true;
+        this.writer = new Thread(this::write, "todo-wal-writer");
+        this.writer.start();
+        if (this.snapshotIntervalSeconds > 0) {
+            this.snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "todo-wal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.snapshots.scheduleWithFixedDelay(this::snapshotSafely, this.snapshotIntervalSeconds,
+                this.snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Void> put(@NotNull TodoFull todo) {
+        return this.append(putPayload(todo));
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Void> delete(int id) {
+        return this.append(ByteBuffer.allocate(1 + Integer.BYTES).put(DELETE).putInt(id));
+    }
+
+    /**
+     * Writes a snapshot of all todos and deletes the log segments it replaces
+     *
+     * @throws IOException If the snapshot could not be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        List<TodoFull> captured = new ArrayList<>();
+        int[] lastId = new int[1];
+        Entry[] rotation = new Entry[1];
+        long[] records = new long[1];
+        this.todos.snapshot((todos, id) -> {
+            captured.addAll(todos);
+            lastId[0] = id;
+            records[0] = this.recordsSinceSnapshot.getAndSet(0);
+            rotation[0] = new Entry(null, this.segment.incrementAndGet());
+            this.queue.add(rotation[0]);
+        });
+        long snapshotSegment = rotation[0].rotateTo;
+        rotation[0].completion.join();
+
+        Path temporary = this.directory.resolve(String.format("snapshot-%019d.tmp", snapshotSegment));
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + 2 * Integer.BYTES);
+            header.putInt(SNAPSHOT_MAGIC).putLong(snapshotSegment).putInt(lastId[0]).putInt(captured.size()).flip();
+            OutputStream output = new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16);
+            output.write(header.array());
+            for (TodoFull todo : captured) {
+                ByteBuffer record = frame(putPayload(todo));
+                output.write(record.array(), 0, record.limit());
+            }
+            output.flush();
+            out.force(true);
+        }
+        Files.move(temporary, this.snapshotPath(snapshotSegment), StandardCopyOption.ATOMIC_MOVE);
+        // The rename must be durable before the files it replaces are deleted
+        this.forceDirectory();
+        this.deleteObsolete(snapshotSegment);
+        this.snapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Wrote snapshot of {} todos replacing {} log records in {} ms", captured.size(), records[0],
+            this.snapshotMillis);
+    }
+
+    /**
+     * Writes a final snapshot if there are new records and closes the log
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (!this.open) {
+            return;
+        }
+        if (this.snapshots != null) {
+            this.snapshots.shutdownNow();
+        }
+        if (this.recordsSinceSnapshot.get() > 0) {
+            this.snapshotSafely();
+        }
+        this.open = false;
+        Entry close = new Entry(null, -1);
+        this.queue.add(close);
+        close.completion.join();
+        try {
+            this.writer.join();
+            this.channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close the write-ahead log", e);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+            new Metric<>("wal.recovery.millis", this.recoveryMillis),
+            new Metric<>("wal.recovery.records", this.recoveredRecords),
+            new Metric<>("wal.records", this.recordsSinceSnapshot.get()),
+            new Metric<>("wal.snapshot.millis", this.snapshotMillis));
+    }
+
+    // Writer thread
+
+    /**
+     * Frames a payload as record and queues it for the writer thread
+     *
+     * @param payload The payload with its position at its end
+     * @return The completion once the record is durable
+     */
+    @NotNull
+    private CompletableFuture<Void> append(@NotNull ByteBuffer payload) {
+        if (!this.open) {
+            throw new IllegalStateException("The write-ahead log is closed");
+        }
+        IOException failure = this.failure;
+        if (failure != null) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(failure);
+            return failed;
+        }
+        Entry entry = new Entry(frame(payload), 0);
+        this.recordsSinceSnapshot.incrementAndGet();
+        this.queue.add(entry);
+        return entry.completion;
+    }
+
+    /**
+     * Writes the queued records in groups until the log is closed
+     */
+    private void write() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        List<Entry> records = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            this.queue.drainTo(batch, MAX_BATCH - 1);
+            for (Entry entry : batch) {
+                if (entry.record != null) {
+                    records.add(entry);
+                    continue;
+                }
+                this.commit(records);
+                if (entry.rotateTo < 0) {
+                    entry.completion.complete(null);
+                    return;
+                }
+                this.rotate(entry);
+            }
+            this.commit(records);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes records with one gathering write, forces them and completes them
+     *
+     * @param records The pending records, cleared afterwards
+     */
+    private void commit(@NotNull List<Entry> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (this.failure != null) {
+            records.forEach(entry -> entry.completion.completeExceptionally(this.failure));
+            records.clear();
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = records.get(i).record;
+        }
+        try {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                this.channel.write(buffers);
+            }
+            if (this.sync) {
+                this.channel.force(false);
+            }
+            this.committed = this.channel.position();
+            records.forEach(entry -> entry.completion.complete(null));
+        } catch (IOException e) {
+            log.error("Could not write to the write-ahead log", e);
+            this.discard(e);
+            records.forEach(entry -> entry.completion.completeExceptionally(e));
+        }
+        records.clear();
+    }
+
+    /**
+     * Truncates the current segment to the end of the last written group after a failed write
+     *
+     * @param cause The failure of the write
+     */
+    private void discard(@NotNull IOException cause) {
+        try {
+            this.channel.truncate(this.committed);
+            this.channel.force(true);
+        } catch (IOException e) {
+            log.error("Could not truncate the write-ahead log, failing all further writes", e);
+            cause.addSuppressed(e);
+            this.failure = cause;
+        }
+    }
+
+    /**
+     * Closes the current segment and continues with the next one
+     *
+     * @param rotation The rotation entry
+     */
+    private void rotate(@NotNull Entry rotation) {
+        if (this.failure != null) {
+            rotation.completion.completeExceptionally(this.failure);
+            return;
+        }
+        try {
+            this.channel.force(true);
+            this.channel.close();
+            this.channel = FileChannel.open(this.segmentPath(rotation.rotateTo),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.committed = 0;
+            // Records forced into the new segment are only durable with its directory entry
+            this.forceDirectory();
+            rotation.completion.complete(null);
+        } catch (IOException e) {
+            log.error("Could not rotate the write-ahead log, failing all further writes", e);
+            this.failure = e;
+            rotation.completion.completeExceptionally(e);
+        }
+    }
+
+    private void snapshotSafely() {
+        try {
+            this.snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write a snapshot of the write-ahead log", e);
+        }
+    }
+
+    // Recovery
+
+    /**
+     * Restores the todos of a snapshot
+     *
+     * @param number The number of the first segment following the snapshot
+     * @return The number of restored todos
+     * @throws IOException If the snapshot could not be read
+     */
+    private long readSnapshot(long number) throws IOException {
+        Path path = this.snapshotPath(number);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readLong() != number) {
+                throw new IllegalStateException("Invalid snapshot " + path);
+            }
+            this.todos.restore(input.readInt(), null);
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                ByteBuffer payload = readRecord(input);
+                if (payload == null) {
+                    throw new IllegalStateException("Corrupt snapshot " + path);
+                }
+                this.apply(payload);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Replays the records of a log segment
+     *
+     * @param number The number of the segment
+     * @param last   Whether it is the last segment, which may end with a torn record
+     * @return The number of replayed records
+     * @throws IOException If the segment could not be read
+     */
+    private long replay(long number, boolean last) throws IOException {
+        Path path = this.segmentPath(number);
+        long records = 0;
+        long valid = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            ByteBuffer payload;
+            while ((payload = readRecord(input)) != null) {
+                this.apply(payload);
+                records++;
+                valid += HEADER_LENGTH + payload.capacity();
+            }
+            if (valid < channel.size()) {
+                if (!last) {
+                    throw new IllegalStateException("Corrupt record at position " + valid + " of " + path);
+                }
+                log.warn("Truncating torn record at position {} of {}", valid, path);
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads the next record
+     *
+     * @param input The input positioned at a record
+     * @return The payload or null at the end of the input or at an invalid record
+     * @throws IOException If the input could not be read
+     */
+    @Nullable
+    private static ByteBuffer readRecord(@NotNull DataInputStream input) throws IOException {
+        try {
+            int length = input.readInt();
+            int checksum = input.readInt();
+            if (length <= 0 || length > MAX_PAYLOAD_LENGTH) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? ByteBuffer.wrap(payload) : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Restores the todo of a record payload
+     *
+     * @param payload The payload
+     */
+    private void apply(@NotNull ByteBuffer payload) {
+        byte type = payload.get();
+        int id = payload.getInt();
+        if (type == DELETE) {
+            this.todos.restore(id, null);
+            return;
+        }
+        if (type != PUT) {
+            throw new IllegalStateException("Unknown record type " + type);
+        }
+        TodoFull todo = new TodoFull();
+        todo.setId(id);
+        todo.setVersion(payload.getInt());
+        todo.setDone(payload.get() != 0);
+        long epochSecond = payload.getLong();
+        int nano = payload.getInt();
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(payload.getInt());
+        todo.setDueDate(OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), offset));
+        todo.setTitle(decode(payload));
+        todo.setDescription(decode(payload));
+        this.todos.restore(id, todo);
+    }
+
+    // Files
+
+    /**
+     * Deletes the segments and snapshots replaced by a snapshot and temporary files of interrupted snapshots
+     *
+     * @param snapshotSegment The number of the first segment following the latest snapshot
+     * @throws IOException If the directory could not be listed
+     */
+    private void deleteObsolete(long snapshotSegment) throws IOException {
+        for (long number : this.list(SEGMENT)) {
+            if (number < snapshotSegment) {
+                Files.delete(this.segmentPath(number));
+            }
+        }
+        for (long number : this.list(SNAPSHOT)) {
+            if (number < snapshotSegment) {
+                Files.delete(this.snapshotPath(number));
+            }
+        }
+        try (DirectoryStream<Path> temporaries = Files.newDirectoryStream(this.directory, "snapshot-*.tmp")) {
+            for (Path temporary : temporaries) {
+                Files.delete(temporary);
+            }
+        }
+    }
+
+    /**
+     * Forces the entries of the directory to disk, so created, renamed and deleted files survive a crash
+     *
+     * @throws IOException If the directory could not be forced
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    /**
+     * Lists the numbers of the segment or snapshot files
+     *
+     * @param pattern The file name pattern with the number as group
+     * @return The numbers in ascending order
+     * @throws IOException If the directory could not be listed
+     */
+    @NotNull
+    private List<Long> list(@NotNull Pattern pattern) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.valueOf(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private long latest(@NotNull Pattern pattern) throws IOException {
+        List<Long> numbers = this.list(pattern);
+        return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+    }
+
+    @NotNull
+    private Path segmentPath(long number) {
+        return this.directory.resolve(String.format("todos-%019d.log", number));
+    }
+
+    @NotNull
+    private Path snapshotPath(long number) {
+        return this.directory.resolve(String.format("snapshot-%019d.bin", number));
+    }
+
+    // Encoding
+
+    /**
+     * Encodes the payload of a put record
+     *
+     * @param todo The todo
+     * @return The payload with its position at its end
+     */
+    @NotNull
+    private static ByteBuffer putPayload(@NotNull TodoFull todo) {
+        byte[] title = encode(todo.getTitle());
+        byte[] description = encode(todo.getDescription());
+        OffsetDateTime dueDate = todo.getDueDate();
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 * Integer.BYTES + 1 + Long.BYTES + 2 * Integer.BYTES
+            + length(title) + length(description));
+        payload.put(PUT).putInt(todo.getId()).putInt(todo.getVersion()).put((byte) (todo.isDone() ? 1 : 0))
+            .putLong(dueDate.toEpochSecond()).putInt(dueDate.getNano()).putInt(dueDate.getOffset().getTotalSeconds());
+        put(payload, title);
+        put(payload, description);
+        return payload;
+    }
+
+    /**
+     * Prefixes a payload with its length and checksum
+     *
+     * @param payload The payload with its position at its end
+     * @return The record ready to be written
+     */
+    @NotNull
+    private static ByteBuffer frame(@NotNull ByteBuffer payload) {
+        int length = payload.position();
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_LENGTH + length);
+        record.putInt(length).putInt((int) crc.getValue()).put(payload.array(), 0, length).flip();
+        return record;
+    }
+
+    @Nullable
+    private static byte[] encode(@Nullable String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(@Nullable byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void put(@NotNull ByteBuffer buffer, @Nullable byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    @Nullable
+    private static String decode(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+}
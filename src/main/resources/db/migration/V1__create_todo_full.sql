@@ -0,0 +1,8 @@
+create table todo_full (
+    id integer generated by default as identity check (id >= 0 and id <= 1000000),
+    description varchar(500),
+    done boolean not null,
+    due_date varchar(40) not null,
+    title varchar(30) not null,
+    primary key (id)
+);
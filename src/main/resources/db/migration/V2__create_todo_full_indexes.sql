@@ -0,0 +1,5 @@
+-- Unfinished todos ordered by id, used by the offset and keyset pagination of the todo list
+create index todo_full_done_id on todo_full (done, id);
+
+-- Unfinished todos ordered by due date
+create index todo_full_done_due_date on todo_full (done, due_date);
@@ -0,0 +1,7 @@
+-- Identifiers are allocated in blocks from a sequence instead of an identity column,
+-- so an insert needs no database round trip for its identifier and inserts can be batched
+alter table todo_full alter column id set default null;
+
+-- The allocation size of the application must match the increment
+create sequence todo_full_sequence start with 1 increment by ${todo_id_allocation_size} maxvalue 1000000;
+alter sequence todo_full_sequence restart with (select coalesce(max(id), 0) + 1 from todo_full);
@@ -0,0 +1,2 @@
+-- Version for optimistic concurrency, incremented on every modification and exposed as entity tag
+alter table todo_full add column version integer default 0 not null;
@@ -0,0 +1,3 @@
+-- A restore of the largest identifier restarts the sequence behind it, the identifier generator
+-- and the check of the id column reject the identifiers past the largest one
+alter sequence todo_full_sequence no maxvalue;
@@ -0,0 +1,161 @@
+package de.oberdoerfer.todolist;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RFC3339ModuleTest {
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper javaTimeObjectMapper;
+
+    @Before
+    public void setUp() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.registerModule(new RFC3339Module());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.javaTimeObjectMapper = new ObjectMapper();
+        this.javaTimeObjectMapper.registerModule(new JavaTimeModule());
+        this.javaTimeObjectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private String write(OffsetDateTime value) throws IOException {
+        return this.objectMapper.writeValueAsString(value);
+    }
+
+    private OffsetDateTime read(String json) throws IOException {
+        return this.objectMapper.readValue(json, OffsetDateTime.class);
+    }
+
+    // Serialize
+
+    @Test
+    public void testSerializeUtc() throws IOException {
+        // 2. Action
+        String json = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+
+        // 3. Assert
+        assertThat(json, is("\"2019-03-17T16:06:38.445Z\""));
+    }
+
+    @Test
+    public void testSerializeMillisecondsAlwaysWritten() throws IOException {
+        // 2. Action
+        String json = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 0, 0, ZoneOffset.UTC));
+
+        // 3. Assert
+        assertThat(json, is("\"2019-03-17T16:06:00.000Z\""));
+    }
+
+    @Test
+    public void testSerializeNanosecondsTruncated() throws IOException {
+        // 2. Action
+        String json = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445999999, ZoneOffset.UTC));
+
+        // 3. Assert
+        assertThat(json, is("\"2019-03-17T16:06:38.445Z\""));
+    }
+
+    @Test
+    public void testSerializeOffset() throws IOException {
+        // 2. Action
+        String positive = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.ofHours(2)));
+        String negative = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000,
+            ZoneOffset.ofHoursMinutes(-9, -30)));
+
+        // 3. Assert
+        assertThat(positive, is("\"2019-03-17T16:06:38.445+02:00\""));
+        assertThat(negative, is("\"2019-03-17T16:06:38.445-09:30\""));
+    }
+
+    @Test
+    public void testSerializeOutOfFastPath() throws IOException {
+        // 2. Action
+        String year = this.write(OffsetDateTime.of(12019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC));
+        String offset = this.write(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000,
+            ZoneOffset.ofHoursMinutesSeconds(2, 0, 30)));
+
+        // 3. Assert
+        assertThat(year, is("\"+12019-03-17T16:06:38.445Z\""));
+        assertThat(offset, is("\"2019-03-17T16:06:38.445+02:00:30\""));
+    }
+
+    @Test
+    public void testSerializeTimestamp() throws IOException {
+        // 1. Arrange
+        this.objectMapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.javaTimeObjectMapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        OffsetDateTime value = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC);
+
+        // 2. Action
+        String json = this.write(value);
+
+        // 3. Assert
+        assertThat(json, is(this.javaTimeObjectMapper.writeValueAsString(value)));
+    }
+
+    // Deserialize
+
+    @Test
+    public void testDeserializeLikeJavaTimeModule() throws IOException {
+        for (String json : new String[]{"\"2019-03-17T16:06:38.445Z\"", "\"2019-03-17T16:06:38Z\"",
+            "\"2019-03-17T16:06:38.4Z\"", "\"2019-03-17T16:06:38.123456789Z\"", "\"2019-03-17T16:06:38.445+02:00\"",
+            "\"2019-03-17T16:06Z\"", "1552838798.445"}) {
+            // 2. Action
+            OffsetDateTime value = this.read(json);
+
+            // 3. Assert
+            assertThat(json, value, is(this.javaTimeObjectMapper.readValue(json, OffsetDateTime.class)));
+        }
+    }
+
+    @Test
+    public void testDeserializeNotAdjusted() throws IOException {
+        // 1. Arrange
+        this.objectMapper.disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+
+        // 2. Action
+        OffsetDateTime value = this.read("\"2019-03-17T16:06:38.445+02:00\"");
+
+        // 3. Assert
+        assertThat(value.getOffset(), is(ZoneOffset.ofHours(2)));
+    }
+
+    @Test
+    public void testDeserializeInBody() throws IOException {
+        // 2. Action
+        OffsetDateTime[] values = this.objectMapper.readValue("[\"2019-03-17T16:06:38.445Z\", "
+            + "\"2020-01-01T00:00:00.000Z\"]", OffsetDateTime[].class);
+
+        // 3. Assert
+        assertThat(values[0], is(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.UTC)));
+        assertThat(values[1], is(OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testDeserializeInvalidDate() throws IOException {
+        // 2. Action
+        this.read("\"2019-02-30T16:06:38.445Z\"");
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testDeserializeInvalid() throws IOException {
+        // 2. Action
+        this.read("\"test\"");
+    }
+
+}
@@ -0,0 +1,269 @@
+package de.oberdoerfer.todolist.api;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import de.oberdoerfer.todolist.service.TodoExecutor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("async")
+@TestPropertySource(properties = {"todolist.async.threads=1", "todolist.async.queue-capacity=1"})
+public class AsyncTodosApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoExecutor todoExecutor;
+
+    @Autowired
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private TodoFull todo(int id) {
+        TodoFull todo = new TodoFull();
+        todo.setId(id);
+        todo.setTitle("Test Title");
+        todo.setDone(false);
+        todo.setVersion(0);
+        return todo;
+    }
+
+    /**
+     * Lets the repository block reading the given todo until the returned latch is counted down
+     *
+     * @param id      The identifier of the todo
+     * @param started Counted down once the repository blocks
+     */
+    private CountDownLatch block(int id, CountDownLatch started) {
+        CountDownLatch latch = new CountDownLatch(1);
+        given(this.todoRepository.findOne(id)).willAnswer(invocation -> {
+            started.countDown();
+            latch.await();
+            return this.todo(id);
+        });
+        return latch;
+    }
+
+    private MvcResult getAsync(int id) throws Exception {
+        return mockMvc.perform(get("/todos/" + id))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
+
+    private long metric(String name) {
+        return this.todoExecutor.metrics().stream().filter(metric -> metric.getName().equals(name))
+            .map(Metric::getValue).findFirst().orElseThrow(AssertionError::new).longValue();
+    }
+
+    @Test
+    public void testRequestMappings() {
+        // 2. Action
+        Map<String, String> mappings = new TreeMap<>();
+        this.handlerMapping.getHandlerMethods().forEach((mapping, handlerMethod) -> {
+            if (handlerMethod.getBeanType() == AsyncTodosApiController.class) {
+                mappings.put(handlerMethod.getMethod().getName(), mapping.toString());
+            }
+        });
+
+        // 3. Assert
+        Map<String, String> apiMappings = new TreeMap<>();
+        for (Method method : TodosApi.class.getDeclaredMethods()) {
+            RequestMapping requestMapping = method.getAnnotation(RequestMapping.class);
+            if (requestMapping != null) {
+                apiMappings.put(method.getName(), Arrays.toString(requestMapping.method()) + " "
+                    + Arrays.toString(requestMapping.value()));
+            }
+        }
+        assertThat(mappings.keySet(), is(apiMappings.keySet()));
+        mappings.forEach((name, mapping) -> {
+            String apiMapping = apiMappings.get(name);
+            String path = apiMapping.substring(apiMapping.indexOf(' ') + 1);
+            assertThat(mapping, containsString("{" + path));
+            assertThat(mapping, containsString("methods=" + apiMapping.substring(0, apiMapping.indexOf(' '))));
+        });
+    }
+
+    @Test
+    public void testGetTodo() throws Exception {
+        // 1. Arrange
+        given(this.todoRepository.findOne(1)).willReturn(this.todo(1));
+
+        // 2. Action
+        MvcResult result = this.getAsync(1);
+
+        // 3. Assert
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"0\""))
+            .andExpect(jsonPath("id").value(1));
+    }
+
+    @Test
+    public void testGetTodoNotFound() throws Exception {
+        // 2. Action
+        MvcResult result = this.getAsync(2);
+
+        // 3. Assert
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    private static void timeout(MvcResult result) throws IOException {
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+    }
+
+    @Test
+    public void testGetTodoTimeoutStarted() throws Exception {
+        // 1. Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = this.block(3, started);
+        MvcResult result = this.getAsync(3);
+        started.await();
+        long timeouts = this.metric("async.timeouts");
+
+        // 2. Action
+        // The timeout waits for the started work, so it is handled on a thread of its own
+        CompletableFuture<Void> timedOut = CompletableFuture.runAsync(() -> {
+            try {
+                timeout(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        while (this.metric("async.timeouts") == timeouts) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertThat(timedOut.isDone(), is(false));
+        latch.countDown();
+        timedOut.get(10, TimeUnit.SECONDS);
+
+        // 3. Assert
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("id").value(3));
+    }
+
+    @Test
+    public void testGetTodoTimeoutQueued() throws Exception {
+        // 1. Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = this.block(8, started);
+        MvcResult running = this.getAsync(8);
+        started.await();
+        MvcResult queued = this.getAsync(9);
+
+        // 2. Action
+        timeout(queued);
+
+        // 3. Assert
+        mockMvc.perform(asyncDispatch(queued))
+            .andExpect(status().isServiceUnavailable());
+        latch.countDown();
+        mockMvc.perform(asyncDispatch(running))
+            .andExpect(status().isOk());
+        verify(this.todoRepository, never()).findOne(9);
+    }
+
+    @Test
+    public void testGetTodoQueueFull() throws Exception {
+        // 1. Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = this.block(4, started);
+        given(this.todoRepository.findOne(5)).willReturn(this.todo(5));
+        MvcResult running = this.getAsync(4);
+        started.await();
+        MvcResult queued = this.getAsync(5);
+
+        // 2. Action
+        MvcResult rejected = this.getAsync(6);
+
+        // 3. Assert
+        mockMvc.perform(asyncDispatch(rejected))
+            .andExpect(status().isServiceUnavailable());
+        latch.countDown();
+        mockMvc.perform(asyncDispatch(running))
+            .andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(queued))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testQueueWaitMetrics() throws Exception {
+        // 1. Arrange
+        given(this.todoRepository.findOne(7)).willReturn(this.todo(7));
+        long count = this.metric("async.queue.wait.count");
+
+        // 2. Action
+        mockMvc.perform(asyncDispatch(this.getAsync(7)))
+            .andExpect(status().isOk());
+
+        // 3. Assert
+        assertThat(this.metric("async.queue.wait.count"), is(count + 1));
+        assertThat(this.metric("async.queue.wait.max-micros"),
+            greaterThanOrEqualTo(this.metric("async.queue.wait.p50-micros")));
+    }
+
+    @Test
+    public void testCreateTodoInvalid() throws Exception {
+        // 2. Action
+        mockMvc.perform(post("/todos")
+            .content("{\"title\":\"\"}")
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+
+        // 3. Assert
+        verifyZeroInteractions(this.todoRepository);
+    }
+
+}
@@ -16,16 +16,29 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 
 import java.text.ParseException;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -93,6 +106,33 @@ public class TodosApiControllerIntegrationTest {
         return JsonPath.parse(response).read("id");
     }
 
+    /**
+     * Authenticates a request with the role required by the sensitive actuator endpoints
+     */
+    private static RequestPostProcessor actuator() {
+        return request -> {
+            request.addUserRole("ACTUATOR");
+            return request;
+        };
+    }
+
+    private long readMetric(String name) throws Exception {
+        String response = mockMvc.perform(get("/metrics").with(actuator()))
+            .andReturn().getResponse().getContentAsString();
+        return JsonPath.parse(response).read("['" + name + "']", Long.class);
+    }
+
+    private String[] export(String query) throws Exception {
+        MvcResult result = mockMvc.perform(get("/todos/export" + query))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn();
+        // The todos are streamed into the response of the initial request, waiting for the result waits for them
+        result.getAsyncResult();
+        String response = result.getResponse().getContentAsString();
+        return response.isEmpty() ? new String[0] : response.split("\n");
+    }
+
     private void remove(int id) throws Exception {
         mockMvc.perform(delete("/todos/" + id))
             .andExpect(status().isNoContent());
@@ -110,6 +150,7 @@ public class TodosApiControllerIntegrationTest {
             .content(json)
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isCreated())
+            .andExpect(header().string("ETag", "\"0\""))
             .andExpect(jsonPath("description", is(this.description)))
             .andExpect(jsonPath("done", is(this.done)))
             .andExpect(jsonPath("dueDate", is(this.dueDate)))
@@ -222,6 +263,34 @@ public class TodosApiControllerIntegrationTest {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testCreateTodos() throws Exception {
+        // 1. Arrange
+        String json = this.objectMapper.writeValueAsString(Arrays.asList(this.todoBase, this.todoBase, this.todoBase));
+
+        // 2. Action
+        MvcResult result = mockMvc.perform(post("/todos:batch")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andReturn();
+        List<Integer> ids = JsonPath.parse(result.getResponse().getContentAsString()).read("$");
+
+        // 3. Assert
+        for (Integer id : ids) {
+            mockMvc.perform(get("/todos/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id", is(id)))
+                .andExpect(jsonPath("title", is(this.title)));
+        }
+
+        // 4. Annihilate
+        for (Integer id : ids) {
+            this.remove(id);
+        }
+    }
+
     // Delete
 
     @Test
@@ -232,6 +301,10 @@ public class TodosApiControllerIntegrationTest {
         // 2. Action
         mockMvc.perform(delete("/todos/" + id))
             .andExpect(status().isNoContent());
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isNotFound());
     }
 
     @Test
@@ -248,8 +321,253 @@ public class TodosApiControllerIntegrationTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testDeleteTodoIfMatchModified() throws Exception {
+        // 1. Arrange
+        int id = this.create(true);
+        mockMvc.perform(put("/todos/" + id)
+            .content(this.objectMapper.writeValueAsString(this.todoBase))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // 2. Action
+        mockMvc.perform(delete("/todos/" + id)
+            .header("If-Match", "\"0\""))
+            .andExpect(status().isPreconditionFailed());
+
+        // 3. Assert
+        mockMvc.perform(delete("/todos/" + id)
+            .header("If-Match", "\"1\""))
+            .andExpect(status().isNoContent());
+    }
+
+    // Export
+
+    @Test
+    public void testExportTodos() throws Exception {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+
+        // 2. Action
+        String[] lines = this.export("");
+
+        // 3. Assert
+        assertThat(lines.length, is(2));
+        assertThat(JsonPath.parse(lines[0]).read("id"), is(id1));
+        assertThat(JsonPath.parse(lines[0]).read("description"), is(this.description));
+        assertThat(JsonPath.parse(lines[0]).read("dueDate"), is(this.dueDate));
+        assertThat(JsonPath.parse(lines[1]).read("id"), is(id2));
+        assertThat(JsonPath.parse(lines[1]).read("done"), is(true));
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+    }
+
+    @Test
+    public void testExportTodosUnfinished() throws Exception {
+        // 1. Arrange
+        int id1 = this.create(true);
+        int id2 = this.create(false);
+
+        // 2. Action
+        String[] lines = this.export("?state=unfinished");
+
+        // 3. Assert
+        assertThat(lines.length, is(1));
+        assertThat(JsonPath.parse(lines[0]).read("id"), is(id2));
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+    }
+
+    @Test
+    public void testExportTodosEmpty() throws Exception {
+        // 2. Action
+        String[] lines = this.export("");
+
+        // 3. Assert
+        assertThat(lines.length, is(0));
+    }
+
+    @Test
+    public void testExportTodosInvalidState() throws Exception {
+        // 2. Action
+        mockMvc.perform(get("/todos/export?state=done"))
+            .andExpect(status().isBadRequest());
+    }
+
+    // Import
+
+    @Test
+    public void testImportTodos() throws Exception {
+        // 1. Arrange
+        String valid = "{\"title\":\"" + this.title + "\",\"description\":\"" + this.description
+            + "\",\"dueDate\":\"" + this.dueDate + "\",\"done\":false}";
+        String invalid = "{\"title\":\"\",\"dueDate\":\"" + this.dueDate + "\",\"done\":false}";
+        String ndjson = valid + "\n" + invalid + "\n\n" + "{\"title\":" + "\n" + valid + "\n";
+
+        // 2. Action
+        mockMvc.perform(post("/todos/import")
+            .content(ndjson)
+            .contentType("application/x-ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("imported").value(2))
+            .andExpect(jsonPath("failed").value(2))
+            .andExpect(jsonPath("errors", hasSize(2)))
+            .andExpect(jsonPath("errors[0].line").value(2))
+            .andExpect(jsonPath("errors[0].message").value(containsString("title")))
+            .andExpect(jsonPath("errors[1].line").value(4));
+
+        // 3. Assert
+        String[] lines = this.export("");
+        assertThat(lines.length, is(2));
+        assertThat(JsonPath.parse(lines[0]).read("title"), is(this.title));
+        assertThat(JsonPath.parse(lines[1]).read("description"), is(this.description));
+
+        // 4. Annihilate
+        this.remove(JsonPath.parse(lines[0]).read("id"));
+        this.remove(JsonPath.parse(lines[1]).read("id"));
+    }
+
+    @Test
+    public void testImportTodosLineTooLong() throws Exception {
+        // 1. Arrange
+        String valid = "{\"title\":\"" + this.title + "\",\"dueDate\":\"" + this.dueDate + "\",\"done\":false}";
+        StringBuilder tooLong = new StringBuilder("{\"title\":\"");
+        for (int i = 0; i < 10000; i++) {
+            tooLong.append('a');
+        }
+        String ndjson = tooLong + "\r\n" + valid + "\r\n";
+
+        // 2. Action
+        mockMvc.perform(post("/todos/import")
+            .content(ndjson)
+            .contentType("application/x-ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("imported").value(1))
+            .andExpect(jsonPath("failed").value(1))
+            .andExpect(jsonPath("errors[0].line").value(1))
+            .andExpect(jsonPath("errors[0].message").value(containsString("longer than")));
+
+        // 3. Assert
+        String[] lines = this.export("");
+        assertThat(lines.length, is(1));
+        assertThat(JsonPath.parse(lines[0]).read("title"), is(this.title));
+
+        // 4. Annihilate
+        this.remove(JsonPath.parse(lines[0]).read("id"));
+    }
+
+    @Test
+    public void testImportTodosEmpty() throws Exception {
+        // 2. Action
+        mockMvc.perform(post("/todos/import")
+            .content("")
+            .contentType("application/x-ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("imported").value(0))
+            .andExpect(jsonPath("failed").value(0))
+            .andExpect(jsonPath("errors", hasSize(0)));
+    }
+
     // Get
 
+    @Test
+    public void testGetTodoCachedUpdated() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(jsonPath("done", is(false)));
+
+        // 2. Action
+        mockMvc.perform(put("/todos/" + id)
+            .content(this.objectMapper.writeValueAsString(this.todoBase))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""))
+            .andExpect(jsonPath("done", is(true)));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodoCachedDeleted() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk());
+
+        // 2. Action
+        this.remove(id);
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetTodoCachedAbsentCreated() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        mockMvc.perform(get("/todos/" + (id + 1)))
+            .andExpect(status().isNotFound());
+
+        // 2. Action
+        mockMvc.perform(post("/todos:batch")
+            .content(this.objectMapper.writeValueAsString(Collections.singletonList(this.todoBase)))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$[0]", is(id + 1)));
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + (id + 1)))
+            .andExpect(status().isOk());
+
+        // 4. Annihilate
+        this.remove(id);
+        this.remove(id + 1);
+    }
+
+    @Test
+    public void testGetTodoCacheMetrics() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        long hits = this.readMetric("cache.todos.hits");
+
+        // 2. Action
+        mockMvc.perform(get("/todos/" + id));
+        mockMvc.perform(get("/todos/" + id));
+
+        // 3. Assert
+        assertThat(this.readMetric("cache.todos.hits"), greaterThan(hits));
+        assertThat(this.readMetric("cache.todos.misses"), greaterThan(0L));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodoIfNoneMatch() throws Exception {
+        // 1. Arrange
+        int id = this.create(true);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/" + id)
+            .header("If-None-Match", "\"0\""))
+            .andExpect(status().isNotModified());
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
     @Test
     public void testGetTodo() throws Exception {
         // 1. Arrange
@@ -462,8 +780,197 @@ public class TodosApiControllerIntegrationTest {
         this.remove(id3);
     }
 
+    @Test
+    public void testGetTodosCursor() throws Exception {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(true);
+        int id3 = this.create(false);
+        int id4 = this.create(false);
+        int id5 = this.create(false);
+
+        // 2. Action
+        MvcResult result = mockMvc.perform(get("/todos/?limit=2"))
+            .andExpect(status().isPartialContent())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].id", is(id1)))
+            .andExpect(jsonPath("$[1].id", is(id3)))
+            .andReturn();
+        String cursor = result.getResponse().getHeader(TodoCursor.NEXT_CURSOR_HEADER);
+
+        // A todo deleted before the cursor must not shift the next page
+        this.remove(id1);
+
+        mockMvc.perform(get("/todos/?limit=2&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(TodoCursor.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].id", is(id4)))
+            .andExpect(jsonPath("$[1].id", is(id5)));
+
+        // 4. Annihilate
+        this.remove(id2);
+        this.remove(id3);
+        this.remove(id4);
+        this.remove(id5);
+    }
+
+    @Test
+    public void testGetTodosCursorEmpty() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/?cursor=" + TodoCursor.encode(id)))
+            .andExpect(status().isNoContent());
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodosCached() throws Exception {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(false);
+        String page = mockMvc.perform(get("/todos/"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        long hits = this.readMetric("cache.pages.hits");
+
+        // 2. Action
+        mockMvc.perform(get("/todos"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(content().string(page));
+        mockMvc.perform(put("/todos/" + id1)
+            .content(this.objectMapper.writeValueAsString(this.todoBase))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // 3. Assert
+        assertThat(this.readMetric("cache.pages.hits"), is(hits + 1));
+        mockMvc.perform(get("/todos/"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(id2)));
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+    }
+
+    @Test
+    public void testGetTodosCachedCursor() throws Exception {
+        // 1. Arrange
+        int id1 = this.create(false);
+        int id2 = this.create(false);
+        int id3 = this.create(false);
+        String cursor = TodoCursor.encode(id1);
+        mockMvc.perform(get("/todos/?limit=1&cursor=" + cursor))
+            .andExpect(status().isPartialContent());
+
+        // 2. Action
+        mockMvc.perform(get("/todos/?limit=1&cursor=" + cursor))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(id2)))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(id2)));
+        this.remove(id3);
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/?limit=1&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(TodoCursor.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$[0].id", is(id2)));
+
+        // 4. Annihilate
+        this.remove(id1);
+        this.remove(id2);
+    }
+
+    @Test
+    public void testGetTodosIfNoneMatch() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        String eTag = mockMvc.perform(get("/todos/"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", startsWith("W/\"")))
+            .andReturn().getResponse().getHeader("ETag");
+
+        // 2. Action
+        mockMvc.perform(get("/todos/")
+            .header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(content().string(""));
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/")
+            .header("If-None-Match", "\"other\", " + eTag.substring(2)))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/todos/?state=all")
+            .header("If-None-Match", eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", not(eTag)));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testGetTodosIfNoneMatchModified() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        String eTag = mockMvc.perform(get("/todos/"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        // 2. Action
+        mockMvc.perform(put("/todos/" + id)
+            .content(this.objectMapper.writeValueAsString(this.todoBase))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/")
+            .header("If-None-Match", eTag))
+            .andExpect(status().is(not(304)))
+            .andExpect(header().string("ETag", not(eTag)));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
     // Update
 
+    @Test
+    public void testUpdateTodoIfMatchConcurrent() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/" + id)
+            .header("If-Match", "\"0\"")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+        mockMvc.perform(put("/todos/" + id)
+            .header("If-Match", "\"0\"")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
     @Test
     public void testUpdateTodo() throws Exception {
         // 1. Arrange
@@ -476,6 +983,14 @@ public class TodosApiControllerIntegrationTest {
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isNoContent());
 
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("description", is(this.description)))
+            .andExpect(jsonPath("done", is(this.done)))
+            .andExpect(jsonPath("dueDate", is(this.dueDate)))
+            .andExpect(jsonPath("title", is(this.title)));
+
         // 4. Annihilate
         this.remove(id);
     }
@@ -622,4 +1137,110 @@ public class TodosApiControllerIntegrationTest {
         this.remove(id);
     }
 
+    // Timings
+
+    @Test
+    public void testGetTodoServerTiming() throws Exception {
+        // 1. Arrange
+        int id = this.create(true);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/" + id)
+            .header(TodoTimingFilter.SERVER_TIMING_REQUEST_HEADER, "true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Server-Timing", containsString("repository;dur=")))
+            .andExpect(header().string("Server-Timing", containsString("serialization;dur=")))
+            .andExpect(header().string("Server-Timing", containsString("total;dur=")))
+            .andExpect(jsonPath("id", is(id)));
+
+        // 3. Assert
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Server-Timing"));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testExportTodosServerTiming() throws Exception {
+        // 1. Arrange
+        int id = this.create(true);
+
+        // 2. Action
+        MvcResult result = mockMvc.perform(get("/todos/export")
+            .header(TodoTimingFilter.SERVER_TIMING_REQUEST_HEADER, "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult();
+
+        // 3. Assert
+        // The todos are written to the response itself instead of a buffer copied after the request completed
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines.length, is(1));
+        assertThat(JsonPath.parse(lines[0]).read("id"), is(id));
+        assertThat(result.getResponse().getHeader("Server-Timing"), is(nullValue()));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testPrometheus() throws Exception {
+        // 1. Arrange
+        int id = this.create(true);
+        mockMvc.perform(get("/todos/" + id))
+            .andExpect(status().isOk());
+
+        // 2. Action
+        mockMvc.perform(get("/prometheus").with(actuator()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+            .andExpect(content().string(containsString(
+                "todolist_request_seconds_count{operation=\"createTodo\",phase=\"parse\"}")))
+            .andExpect(content().string(not(containsString(
+                "todolist_request_seconds_count{operation=\"createTodo\",phase=\"parse\"} 0\n"))))
+            .andExpect(content().string(containsString(
+                "todolist_request_seconds{operation=\"getTodo\",phase=\"repository\",quantile=\"0.99\"}")))
+            .andExpect(content().string(containsString(
+                "todolist_request_seconds_max{operation=\"getTodo\",phase=\"total\"}")));
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testStatements() throws Exception {
+        // 1. Arrange
+        int id = this.create(false);
+        mockMvc.perform(get("/todos?state=unfinished"))
+            .andExpect(status().isOk());
+
+        // 2. Action
+        mockMvc.perform(get("/statements").with(actuator()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.statements").isArray())
+            .andExpect(jsonPath("$.slowStatements").isArray());
+        mockMvc.perform(delete("/statements").with(actuator()))
+            .andExpect(status().isNoContent());
+
+        // 4. Annihilate
+        this.remove(id);
+    }
+
+    @Test
+    public void testActuatorEndpointsUnauthorized() throws Exception {
+        // 2. Action
+        // 3. Assert
+        mockMvc.perform(get("/metrics"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/prometheus"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/statements"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/statements"))
+            .andExpect(status().isUnauthorized());
+    }
+
 }
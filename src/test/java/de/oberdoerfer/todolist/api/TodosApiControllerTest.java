@@ -7,30 +7,45 @@ import de.oberdoerfer.todolist.RFC3339DateFormat;
 import de.oberdoerfer.todolist.model.OffsetPageRequest;
 import de.oberdoerfer.todolist.model.TodoBase;
 import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoImportReport;
+import de.oberdoerfer.todolist.model.TodoList;
 import de.oberdoerfer.todolist.model.TodoRepository;
+import de.oberdoerfer.todolist.service.TodoExportService;
+import de.oberdoerfer.todolist.service.TodoImportService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.text.ParseException;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,10 +59,26 @@ public class TodosApiControllerTest {
     @MockBean
     private TodoRepository todoRepository;
 
+    @MockBean
+    private TodoExportService todoExportService;
+
+    @MockBean
+    private TodoImportService todoImportService;
+
+    @MockBean
+    private TodoRevision todoRevision;
+
+    @MockBean
+    private TodoPageCache todoPageCache;
+
+    @MockBean
+    private TodoTimings todoTimings;
+
     private ObjectMapper objectMapper;
     private RFC3339DateFormat rfc3339DateFormat = new RFC3339DateFormat();
 
     private Integer id = 1;
+    private Integer version = 3;
     private String description = "Test Description";
     private Boolean done = true;
     private String dueDate = "2019-03-17T16:06:38.445Z";
@@ -91,6 +122,7 @@ public class TodosApiControllerTest {
     private void setUpTodoFull() {
         todoFull = new TodoFull(this.todoBase);
         todoFull.setId(id);
+        todoFull.setVersion(this.version);
     }
 
     private TodoFull generateTodoFull(int id, Boolean done) {
@@ -103,6 +135,10 @@ public class TodosApiControllerTest {
         return todoFull;
     }
 
+    private TodoList generateTodoList(int id, Boolean done) {
+        return new TodoList(this.generateTodoFull(id, done));
+    }
+
     // Create
 
     @Test
@@ -116,6 +152,7 @@ public class TodosApiControllerTest {
                 .content(json)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("id", is(this.id)))
                 .andExpect(jsonPath("description", is(this.description)))
                 .andExpect(jsonPath("done", is(this.done)))
@@ -181,6 +218,21 @@ public class TodosApiControllerTest {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testCreateTodoDueDateAfter9999() throws Exception {
+        // 1. Arrange
+        String json = "{  \"title\" : \"" + this.title + "\",  \"dueDate\" : \"9999-12-31T23:00:00-05:00\",  \"done\" : " + this.done + "}";
+
+        // 2. Action
+        mockMvc.perform(post("/todos/")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+
+        // 3. Assert
+        verifyZeroInteractions(todoRepository);
+    }
+
     @Test
     public void testCreateTodoMissingTitle() throws Exception {
         // 1. Arrange
@@ -220,12 +272,70 @@ public class TodosApiControllerTest {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testCreateTodos() throws Exception {
+        // 1. Arrange
+        TodoFull secondTodoFull = new TodoFull(this.todoBase);
+        secondTodoFull.setId(2);
+        given(todoRepository.save(Arrays.asList(new TodoFull(this.todoBase), new TodoFull(this.todoBase))))
+            .willReturn(Arrays.asList(this.todoFull, secondTodoFull));
+        String json = this.objectMapper.writeValueAsString(Arrays.asList(this.todoBase, this.todoBase));
+
+        // 2. Action
+        mockMvc.perform(post("/todos:batch")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0]", is(1)))
+            .andExpect(jsonPath("$[1]", is(2)));
+    }
+
+    @Test
+    public void testCreateTodosInvalidTodo() throws Exception {
+        // 1. Arrange
+        TodoBase invalidTodoBase = new TodoBase();
+        invalidTodoBase.setDone(this.done);
+        invalidTodoBase.setDueDate(getOffsetDateTime(this.dueDate));
+        invalidTodoBase.setTitle("");
+        String json = this.objectMapper.writeValueAsString(Arrays.asList(this.todoBase, invalidTodoBase));
+
+        // 2. Action
+        mockMvc.perform(post("/todos:batch")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].code", is("[1].title")))
+            .andExpect(jsonPath("$[0].message", notNullValue()));
+
+        // 3. Assert
+        verifyZeroInteractions(todoRepository);
+    }
+
+    @Test
+    public void testCreateTodosTooMany() throws Exception {
+        // 1. Arrange
+        String json = this.objectMapper.writeValueAsString(
+            Collections.nCopies(TodosApiController.MAX_BATCH_SIZE + 1, this.todoBase));
+
+        // 2. Action
+        mockMvc.perform(post("/todos:batch")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPayloadTooLarge())
+            .andExpect(jsonPath("$[0].code", is("size")));
+
+        // 3. Assert
+        verifyZeroInteractions(todoRepository);
+    }
+
     // Delete
 
     @Test
     public void testDeleteTodo() throws Exception {
         // 1. Arrange
-        given(todoRepository.findOne(1)).willReturn(todoFull);
+        given(todoRepository.deleteById(1)).willReturn(1);
 
         // 2. Action
         mockMvc.perform(delete("/todos/1"))
@@ -242,13 +352,71 @@ public class TodosApiControllerTest {
     @Test
     public void testDeleteTodoNotExisting() throws Exception {
         // 1. Arrange
-        given(todoRepository.findOne(1)).willReturn(null);
+        given(todoRepository.deleteById(1)).willReturn(0);
 
         // 2. Action
         mockMvc.perform(delete("/todos/1"))
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testDeleteTodoIfMatch() throws Exception {
+        // 1. Arrange
+        given(todoRepository.deleteByIdAndVersion(1, 3)).willReturn(1);
+
+        // 2. Action
+        mockMvc.perform(delete("/todos/1")
+            .header("If-Match", "\"3\""))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testDeleteTodoIfMatchModified() throws Exception {
+        // 1. Arrange
+        given(todoRepository.deleteByIdAndVersion(1, 3)).willReturn(0);
+        given(todoRepository.exists(1)).willReturn(true);
+
+        // 2. Action
+        mockMvc.perform(delete("/todos/1")
+            .header("If-Match", "\"3\""))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testDeleteTodoIfMatchAnyNotExisting() throws Exception {
+        // 1. Arrange
+        given(todoRepository.deleteById(1)).willReturn(0);
+
+        // 2. Action
+        mockMvc.perform(delete("/todos/1")
+            .header("If-Match", "*"))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testDeleteTodoIfMatchNotExisting() throws Exception {
+        // 1. Arrange
+        given(todoRepository.deleteByIdAndVersion(1, 3)).willReturn(0);
+        given(todoRepository.exists(1)).willReturn(false);
+
+        // 2. Action
+        mockMvc.perform(delete("/todos/1")
+            .header("If-Match", "\"3\""))
+            .andExpect(status().isNotFound());
+    }
+
+    // Export
+
+    @Test
+    public void testExportTodosInvalidState() throws Exception {
+        // 2. Action
+        mockMvc.perform(get("/todos/export?state=done"))
+            .andExpect(status().isBadRequest());
+
+        // 3. Assert
+        verifyZeroInteractions(todoExportService);
+    }
+
     // Get
 
     @Test
@@ -259,6 +427,8 @@ public class TodosApiControllerTest {
         // 2. Action
         mockMvc.perform(get("/todos/1"))
             .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"3\""))
+            .andExpect(jsonPath("version").doesNotExist())
             .andExpect(jsonPath("id", is(this.id)))
             .andExpect(jsonPath("description", is(this.description)))
             .andExpect(jsonPath("done", is(this.done)))
@@ -266,6 +436,30 @@ public class TodosApiControllerTest {
             .andExpect(jsonPath("title", is(this.title)));
     }
 
+    @Test
+    public void testGetTodoIfNoneMatch() throws Exception {
+        // 1. Arrange
+        given(todoRepository.findOne(1)).willReturn(todoFull);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/1")
+            .header("If-None-Match", "\"3\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetTodoIfNoneMatchModified() throws Exception {
+        // 1. Arrange
+        given(todoRepository.findOne(1)).willReturn(todoFull);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/1")
+            .header("If-None-Match", "\"2\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"3\""));
+    }
+
     @Test
     public void testGetTodoNotExisting() throws Exception {
         // 1. Arrange
@@ -280,8 +474,8 @@ public class TodosApiControllerTest {
     public void testGetTodosEmptyList() throws Exception {
         // 1. Arrange
         Pageable pageable = new OffsetPageRequest(5, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(new ArrayList<>());
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(new ArrayList<>());
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/"))
@@ -291,13 +485,13 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosUnfinished() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(1, false));
-        todoFullList.add(this.generateTodoFull(2, false));
-        todoFullList.add(this.generateTodoFull(3, false));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, false));
+        todoList.add(this.generateTodoList(3, false));
         Pageable pageable = new OffsetPageRequest(5, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList);
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/?state=unfinished"))
@@ -320,13 +514,13 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosAll() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(1, false));
-        todoFullList.add(this.generateTodoFull(2, true));
-        todoFullList.add(this.generateTodoFull(3, false));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, true));
+        todoList.add(this.generateTodoList(3, false));
         Pageable pageable = new OffsetPageRequest(5, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList);
-        given(todoRepository.findAll(pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList);
+        given(todoRepository.findListBy(pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/?state=all"))
@@ -349,13 +543,13 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosNoState() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(1, false));
-        todoFullList.add(this.generateTodoFull(2, false));
-        todoFullList.add(this.generateTodoFull(3, false));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, false));
+        todoList.add(this.generateTodoList(3, false));
         Pageable pageable = new OffsetPageRequest(5, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList);
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/"))
@@ -378,12 +572,12 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosLimit() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(1, false));
-        todoFullList.add(this.generateTodoFull(2, true));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, true));
         Pageable pageable = new OffsetPageRequest(2, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList);
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/?limit=2"))
@@ -403,12 +597,12 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosOffset() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(2, true));
-        todoFullList.add(this.generateTodoFull(3, false));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(2, true));
+        todoList.add(this.generateTodoList(3, false));
         Pageable pageable = new OffsetPageRequest(5, 1);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList);
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/?offset=1"))
@@ -428,12 +622,12 @@ public class TodosApiControllerTest {
     @Test
     public void testGetTodosRemaining() throws Exception {
         // 1. Arrange
-        List<TodoFull> todoFullList = new ArrayList<>();
-        todoFullList.add(this.generateTodoFull(1, false));
-        todoFullList.add(this.generateTodoFull(2, true));
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, true));
         Pageable pageable = new OffsetPageRequest(2, 0);
-        PageImpl<TodoFull> page = new PageImpl<>(todoFullList, pageable, 3);
-        given(todoRepository.findAllByDone(false, pageable)).willReturn(page);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList, pageable, true);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
 
         // 2. Action
         mockMvc.perform(get("/todos/?limit=2"))
@@ -449,13 +643,114 @@ public class TodosApiControllerTest {
             .andExpect(jsonPath("$[1].title", is(this.title)));
     }
 
+    @Test
+    public void testGetTodosRemainingCursor() throws Exception {
+        // 1. Arrange
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(1, false));
+        todoList.add(this.generateTodoList(2, true));
+        Pageable pageable = new OffsetPageRequest(2, 0);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList, pageable, true);
+        given(todoRepository.findListByDone(false, pageable)).willReturn(slice);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/?limit=2"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(2)));
+    }
+
+    @Test
+    public void testGetTodosCursor() throws Exception {
+        // 1. Arrange
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(3, false));
+        todoList.add(this.generateTodoList(5, false));
+        Pageable pageable = new PageRequest(0, 2);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList, pageable, true);
+        given(todoRepository.findListByDoneAndIdGreaterThan(false, 2, pageable)).willReturn(slice);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/?limit=2&cursor=" + TodoCursor.encode(2)))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(TodoCursor.NEXT_CURSOR_HEADER, TodoCursor.encode(5)))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].id", is(3)))
+            .andExpect(jsonPath("$[1].id", is(5)));
+    }
+
+    @Test
+    public void testGetTodosCursorEnd() throws Exception {
+        // 1. Arrange
+        List<TodoList> todoList = new ArrayList<>();
+        todoList.add(this.generateTodoList(3, true));
+        Pageable pageable = new PageRequest(0, 5);
+        SliceImpl<TodoList> slice = new SliceImpl<>(todoList, pageable, false);
+        given(todoRepository.findListByIdGreaterThan(2, pageable)).willReturn(slice);
+
+        // 2. Action
+        mockMvc.perform(get("/todos/?state=all&cursor=" + TodoCursor.encode(2)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(TodoCursor.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(3)));
+    }
+
+    @Test
+    public void testGetTodosInvalidCursor() throws Exception {
+        // 2. Action
+        mockMvc.perform(get("/todos/?cursor=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetTodosCursorAndOffset() throws Exception {
+        // 2. Action
+        mockMvc.perform(get("/todos/?offset=1&cursor=" + TodoCursor.encode(2)))
+            .andExpect(status().isBadRequest());
+    }
+
+    // Import
+
+    @Test
+    public void testImportTodosRevisionPerChunk() throws Exception {
+        // 1. Arrange
+        given(todoImportService.importTodos(any(InputStream.class), any(Runnable.class))).willAnswer(invocation -> {
+            Runnable stored = invocation.getArgumentAt(1, Runnable.class);
+            stored.run();
+            stored.run();
+            return new TodoImportReport().imported(2000L).failed(0L);
+        });
+
+        // 2. Action
+        mockMvc.perform(post("/todos/import")
+            .content("{}")
+            .contentType("application/x-ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("imported").value(2000));
+
+        // 3. Assert
+        verify(todoRevision, times(2)).increment();
+    }
+
+    @Test
+    public void testImportTodosUnsupportedMediaType() throws Exception {
+        // 2. Action
+        mockMvc.perform(post("/todos/import")
+            .content("[]")
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnsupportedMediaType());
+
+        // 3. Assert
+        verifyZeroInteractions(todoImportService);
+    }
+
     // Update
 
     @Test
     public void testUpdateTodo() throws Exception {
         // 1. Arrange
-        given(todoRepository.findOne(1)).willReturn(todoFull);
-        given(todoRepository.save(new TodoFull(todoBase))).willReturn(todoFull);
+        given(todoRepository.updateById(1, todoBase.getTitle(), todoBase.getDescription(), todoBase.getDueDate(),
+            todoBase.isDone())).willReturn(1);
         String json = this.objectMapper.writeValueAsString(this.todoBase);
 
         // 2. Action
@@ -480,7 +775,8 @@ public class TodosApiControllerTest {
     @Test
     public void testUpdateTodoNotExisting() throws Exception {
         // 1. Arrange
-        given(todoRepository.findOne(1)).willReturn(null);
+        given(todoRepository.updateById(1, todoBase.getTitle(), todoBase.getDescription(), todoBase.getDueDate(),
+            todoBase.isDone())).willReturn(0);
         String json = this.objectMapper.writeValueAsString(this.todoBase);
 
         // 2. Action
@@ -490,13 +786,88 @@ public class TodosApiControllerTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testUpdateTodoIfMatch() throws Exception {
+        // 1. Arrange
+        given(todoRepository.updateByIdAndVersion(1, 3, todoBase.getTitle(), todoBase.getDescription(),
+            todoBase.getDueDate(), todoBase.isDone())).willReturn(1);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .header("If-Match", "\"3\"")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchModified() throws Exception {
+        // 1. Arrange
+        given(todoRepository.updateByIdAndVersion(1, 3, todoBase.getTitle(), todoBase.getDescription(),
+            todoBase.getDueDate(), todoBase.isDone())).willReturn(0);
+        given(todoRepository.exists(1)).willReturn(true);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .header("If-Match", "\"3\"")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchWeak() throws Exception {
+        // 1. Arrange
+        given(todoRepository.exists(1)).willReturn(true);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .header("If-Match", "W/\"3\"")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchAny() throws Exception {
+        // 1. Arrange
+        given(todoRepository.updateById(1, todoBase.getTitle(), todoBase.getDescription(), todoBase.getDueDate(),
+            todoBase.isDone())).willReturn(1);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .header("If-Match", "*")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testUpdateTodoIfMatchAnyNotExisting() throws Exception {
+        // 1. Arrange
+        given(todoRepository.updateById(1, todoBase.getTitle(), todoBase.getDescription(), todoBase.getDueDate(),
+            todoBase.isDone())).willReturn(0);
+        String json = this.objectMapper.writeValueAsString(this.todoBase);
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .header("If-Match", "*")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     public void testUpdateTodoMissingDescription() throws Exception {
         // 1. Arrange
         this.todoBase.setDescription(null);
         this.setUpTodoFull();
-        given(todoRepository.findOne(1)).willReturn(todoFull);
-        given(todoRepository.save(new TodoFull(todoBase))).willReturn(todoFull);
+        given(todoRepository.updateById(1, todoBase.getTitle(), todoBase.getDescription(), todoBase.getDueDate(),
+            todoBase.isDone())).willReturn(1);
         String json = this.objectMapper.writeValueAsString(this.todoBase);
 
         // 2. Action
@@ -544,6 +915,21 @@ public class TodosApiControllerTest {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testUpdateTodoDueDateAfter9999() throws Exception {
+        // 1. Arrange
+        String json = "{  \"title\" : \"" + this.title + "\",  \"dueDate\" : \"9999-12-31T23:00:00-05:00\",  \"done\" : " + this.done + "}";
+
+        // 2. Action
+        mockMvc.perform(put("/todos/1")
+            .content(json)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+
+        // 3. Assert
+        verifyZeroInteractions(todoRepository);
+    }
+
     @Test
     public void testUpdateTodoMissingTitle() throws Exception {
         // 1. Arrange
@@ -0,0 +1,82 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ConnectionPoolConfigurationTest {
+
+    @Test
+    public void testPoolSizeRequestThreads() {
+        // 1. Arrange
+        MockEnvironment environment = new MockEnvironment();
+
+        // 2. Action
+        int poolSize = ConnectionPoolConfiguration.poolSize(environment);
+
+        // 3. Assert
+        assertThat(poolSize, is(200));
+    }
+
+    @Test
+    public void testPoolSizeConfiguredRequestThreads() {
+        // 1. Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("server.tomcat.max-threads", "50");
+
+        // 2. Action
+        int poolSize = ConnectionPoolConfiguration.poolSize(environment);
+
+        // 3. Assert
+        assertThat(poolSize, is(50));
+    }
+
+    @Test
+    public void testPoolSizeVirtualThreads() {
+        // 1. Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("todolist.virtual-threads.enabled", "true");
+
+        // 2. Action
+        int poolSize = ConnectionPoolConfiguration.poolSize(environment);
+
+        // 3. Assert
+        assertThat(poolSize, is(200));
+    }
+
+    @Test
+    public void testPoolSizeAsyncThreads() {
+        // 1. Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("todolist.async.threads", "20");
+        environment.setActiveProfiles("async");
+
+        // 2. Action
+        int poolSize = ConnectionPoolConfiguration.poolSize(environment);
+
+        // 3. Assert
+        assertThat(poolSize, is(20));
+    }
+
+    @Test
+    public void testPoolSizeMinimum() {
+        // 1. Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("todolist.async.threads", "1");
+        environment.setActiveProfiles("async");
+
+        // 2. Action
+        int poolSize = ConnectionPoolConfiguration.poolSize(environment);
+
+        // 3. Assert
+        assertThat(poolSize, is(2));
+    }
+
+    @Test
+    public void testMinimumIdle() {
+        // 2. Action
+        // 3. Assert
+        assertThat(ConnectionPoolConfiguration.minimumIdle(200), is(100));
+        assertThat(ConnectionPoolConfiguration.minimumIdle(3), is(1));
+        assertThat(ConnectionPoolConfiguration.minimumIdle(2), is(1));
+    }
+
+}
@@ -0,0 +1,33 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SchemaMigrationStrategyTest {
+
+    private static SchemaMigrationStrategy schemaMigrationStrategy(int allocationSize) {
+        SchemaMigrationStrategy schemaMigrationStrategy = new SchemaMigrationStrategy();
+        ReflectionTestUtils.setField(schemaMigrationStrategy, "allocationSize", allocationSize);
+        return schemaMigrationStrategy;
+    }
+
+    @Test
+    public void testVerifyAllocationSize() {
+        // 2. Action
+        schemaMigrationStrategy(50).verifyAllocationSize();
+        schemaMigrationStrategy(1).verifyAllocationSize();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVerifyAllocationSizeNotDividing() {
+        // 2. Action
+        schemaMigrationStrategy(3).verifyAllocationSize();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVerifyAllocationSizeNotPositive() {
+        // 2. Action
+        schemaMigrationStrategy(0).verifyAllocationSize();
+    }
+
+}
@@ -0,0 +1,149 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class StatementLogTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:statementLogTest");
+        this.connection = dataSource.getConnection();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.connection.close();
+    }
+
+    @Test
+    public void testRedact() {
+        // 2. Action
+        String sql = StatementLog.redact("SELECT id FROM todo_full WHERE title = 'It''s secret' AND id > 42 LIMIT 5");
+
+        // 3. Assert
+        assertThat(sql, is("SELECT id FROM todo_full WHERE title = ? AND id > ? LIMIT ?"));
+    }
+
+    @Test
+    public void testRecordPreparedStatement() throws Exception {
+        // 1. Arrange
+        StatementLog statementLog = new StatementLog(0, 10);
+        Connection connection = statementLog.wrap(this.connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE todo (id INT, title VARCHAR(100))");
+        }
+
+        // 2. Action
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO todo VALUES (?, ?)")) {
+            statement.setInt(1, 1);
+            statement.setString(2, "Secret Title");
+            statement.executeUpdate();
+            statement.setInt(1, 2);
+            statement.setNull(2, java.sql.Types.VARCHAR);
+            statement.addBatch();
+            statement.setInt(1, 3);
+            statement.setString(2, "Secret Title");
+            statement.addBatch();
+            statement.executeBatch();
+        }
+
+        // 3. Assert
+        List<StatementLog.Statistics> statements = statementLog.getStatements();
+        assertThat(statements, hasSize(2));
+        StatementLog.Statistics insert = statements.stream()
+            .filter(statistics -> statistics.getSql().startsWith("INSERT")).findFirst().get();
+        assertThat(insert.getCount(), is(2L));
+        List<StatementLog.SlowStatement> slowStatements = statementLog.getSlowStatements();
+        assertThat(slowStatements, hasSize(3));
+        assertThat(slowStatements.get(0).getSql(), is("INSERT INTO todo VALUES (?, ?)"));
+        assertThat(slowStatements.get(0).getBindTypes(), contains("Integer", "String"));
+        assertThat(slowStatements.get(0).getBatchSize(), is(2));
+        assertThat(slowStatements.get(1).getBindTypes(), contains("Integer", "String"));
+        assertThat(slowStatements.get(1).getBatchSize(), is(0));
+        assertThat(slowStatements.get(2).getSql(), is("CREATE TABLE todo (id INT, title VARCHAR(?))"));
+        assertThat(slowStatements.get(2).getBindTypes(), is(Collections.emptyList()));
+
+        // 4. Annihilate
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP TABLE todo");
+        }
+    }
+
+    @Test
+    public void testRecordStatementRedactsLiterals() throws Exception {
+        // 1. Arrange
+        StatementLog statementLog = new StatementLog(0, 10);
+        Connection connection = statementLog.wrap(this.connection);
+
+        // 2. Action
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 'Secret Title', 42");
+            statement.executeQuery("SELECT 'Other Title', 7");
+        }
+
+        // 3. Assert
+        assertThat(statementLog.getStatements(), hasSize(1));
+        assertThat(statementLog.getStatements().get(0).getSql(), is("SELECT ?, ?"));
+        assertThat(statementLog.getStatements().get(0).getCount(), is(2L));
+        for (StatementLog.SlowStatement slowStatement : statementLog.getSlowStatements()) {
+            assertThat(slowStatement.getSql(), not(containsString("Title")));
+        }
+    }
+
+    @Test
+    public void testSlowStatementsBounded() throws Exception {
+        // 1. Arrange
+        StatementLog statementLog = new StatementLog(0, 2);
+        Connection connection = statementLog.wrap(this.connection);
+
+        // 2. Action
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : Arrays.asList("SELECT 1", "SELECT 1 + 1", "SELECT 1 + 1 + 1")) {
+                statement.executeQuery(sql);
+            }
+        }
+
+        // 3. Assert
+        List<StatementLog.SlowStatement> slowStatements = statementLog.getSlowStatements();
+        assertThat(slowStatements, hasSize(2));
+        assertThat(slowStatements.get(0).getSql(), is("SELECT ? + ? + ?"));
+        assertThat(slowStatements.get(1).getSql(), is("SELECT ? + ?"));
+    }
+
+    @Test
+    public void testFastStatementsNotSlow() throws Exception {
+        // 1. Arrange
+        StatementLog statementLog = new StatementLog(60000, 10);
+        Connection connection = statementLog.wrap(this.connection);
+
+        // 2. Action
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1");
+        }
+
+        // 3. Assert
+        assertThat(statementLog.getStatements(), hasSize(1));
+        assertThat(statementLog.getSlowStatements(), hasSize(0));
+    }
+
+}
@@ -0,0 +1,38 @@
+package de.oberdoerfer.todolist.configuration;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class VirtualThreadConfigurationTest {
+
+    @Test
+    public void testNewExecutor() throws Exception {
+        // 1. Arrange
+        Assume.assumeTrue(VirtualThreadConfiguration.isSupported());
+        ExecutorService executor = VirtualThreadConfiguration.newExecutor();
+
+        // 2. Action
+        Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+
+        // 3. Assert
+        assertThat(virtual, is(true));
+
+        // 4. Annihilate
+        executor.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNewExecutorUnsupported() {
+        // 1. Arrange
+        Assume.assumeFalse(VirtualThreadConfiguration.isSupported());
+
+        // 2. Action
+        VirtualThreadConfiguration.newExecutor();
+    }
+
+}
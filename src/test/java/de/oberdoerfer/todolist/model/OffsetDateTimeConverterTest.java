@@ -0,0 +1,98 @@
+package de.oberdoerfer.todolist.model;
+
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class OffsetDateTimeConverterTest {
+
+    private final OffsetDateTimeConverter converter = new OffsetDateTimeConverter();
+
+    @Test
+    public void testRoundTrip() {
+        // 1. Arrange
+        OffsetDateTime dueDate = OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445000000, ZoneOffset.ofHours(2));
+
+        // 2. Action
+        String column = this.converter.convertToDatabaseColumn(dueDate);
+
+        // 3. Assert
+        assertThat(column, is("2019-03-17T14:06:38.445000000Z+02:00"));
+        assertThat(this.converter.convertToEntityAttribute(column), is(dueDate));
+    }
+
+    @Test
+    public void testRoundTripUtc() {
+        // 1. Arrange
+        OffsetDateTime dueDate = OffsetDateTime.of(9999, 12, 31, 23, 59, 59, 999999999, ZoneOffset.UTC);
+
+        // 2. Action
+        String column = this.converter.convertToDatabaseColumn(dueDate);
+
+        // 3. Assert
+        assertThat(column, is("9999-12-31T23:59:59.999999999ZZ"));
+        assertThat(this.converter.convertToEntityAttribute(column), is(dueDate));
+    }
+
+    @Test
+    public void testColumnSortsChronologically() {
+        // 1. Arrange
+        OffsetDateTime earlier = OffsetDateTime.of(2019, 3, 17, 16, 0, 0, 0, ZoneOffset.ofHours(-5));
+        OffsetDateTime later = OffsetDateTime.of(2019, 3, 17, 23, 30, 0, 0, ZoneOffset.ofHours(2));
+
+        // 2. Action
+        String earlierColumn = this.converter.convertToDatabaseColumn(earlier);
+        String laterColumn = this.converter.convertToDatabaseColumn(later);
+
+        // 3. Assert
+        assertThat(earlierColumn.compareTo(laterColumn), lessThan(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectYearAfter9999() {
+        // 2. Action
+        this.converter.convertToDatabaseColumn(OffsetDateTime.of(10000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectYearBefore0() {
+        // 2. Action
+        this.converter.convertToDatabaseColumn(OffsetDateTime.of(-1, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectUtcYearAfter9999() {
+        // 2. Action
+        this.converter.convertToDatabaseColumn(OffsetDateTime.of(9999, 12, 31, 23, 0, 0, 0, ZoneOffset.ofHours(-2)));
+    }
+
+    @Test
+    public void testIsStorable() {
+        // 2. Action
+        // 3. Assert
+        assertThat(OffsetDateTimeConverter.isStorable(OffsetDateTime.of(9999, 12, 31, 23, 0, 0, 0, ZoneOffset.UTC)),
+            is(true));
+        assertThat(OffsetDateTimeConverter.isStorable(OffsetDateTime.of(0, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)), is(true));
+        assertThat(OffsetDateTimeConverter.isStorable(
+            OffsetDateTime.of(9999, 12, 31, 23, 0, 0, 0, ZoneOffset.ofHours(-5))), is(false));
+        assertThat(OffsetDateTimeConverter.isStorable(OffsetDateTime.of(0, 1, 1, 1, 0, 0, 0, ZoneOffset.ofHours(2))),
+            is(false));
+    }
+
+    @Test
+    public void testReadYearsOfOtherWidth() {
+        // 2. Action
+        OffsetDateTime after = this.converter.convertToEntityAttribute("+10000-01-01T00:00:00.000000000Z+02:00");
+        OffsetDateTime before = this.converter.convertToEntityAttribute("-0001-12-31T00:00:00.000000000ZZ");
+
+        // 3. Assert
+        assertThat(after, is(OffsetDateTime.of(10000, 1, 1, 2, 0, 0, 0, ZoneOffset.ofHours(2))));
+        assertThat(before, is(OffsetDateTime.of(-1, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC)));
+    }
+
+}
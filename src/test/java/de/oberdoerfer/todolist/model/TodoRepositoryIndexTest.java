@@ -0,0 +1,93 @@
+package de.oberdoerfer.todolist.model;
+
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Verifies with EXPLAIN that the todo list queries are backed by the indexes of the schema migrations
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TodoRepositoryIndexTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Explains the SQL of a repository query
+     *
+     * @param methodName The name of the repository method
+     * @param parameterTypes The parameter types of the repository method
+     * @param args The query arguments
+     * @return The query plan with normalized whitespace
+     */
+    private String explain(String methodName, Class<?>[] parameterTypes, Object... args) throws Exception {
+        String jpql = TodoRepository.class.getMethod(methodName, parameterTypes).getAnnotation(Query.class).value();
+        SessionFactoryImplementor sessionFactory = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        HQLQueryPlan plan = sessionFactory.getQueryPlanCache()
+            .getHQLQueryPlan(jpql, false, Collections.emptyMap());
+        String sql = "EXPLAIN " + plan.getSqlStrings()[0] + " limit 6";
+        return this.jdbcTemplate.queryForObject(sql, String.class, args).replaceAll("\\s+", " ");
+    }
+
+    @Test
+    public void testFindListByDoneUsesDoneIdIndex() throws Exception {
+        // 2. Action
+        String plan = this.explain("findListByDone", new Class<?>[] { Boolean.class, Pageable.class }, false);
+
+        // 3. Assert
+        assertThat(plan, containsString("TODO_FULL_DONE_ID"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    @Test
+    public void testFindListByDoneAndIdGreaterThanUsesDoneIdIndex() throws Exception {
+        // 2. Action
+        String plan = this.explain("findListByDoneAndIdGreaterThan",
+            new Class<?>[] { Boolean.class, Integer.class, Pageable.class }, false, 100);
+
+        // 3. Assert
+        assertThat(plan, containsString("TODO_FULL_DONE_ID: DONE = ?1 AND ID > ?2"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    @Test
+    public void testFindListByIdGreaterThanUsesPrimaryKey() throws Exception {
+        // 2. Action
+        String plan = this.explain("findListByIdGreaterThan", new Class<?>[] { Integer.class, Pageable.class }, 100);
+
+        // 3. Assert
+        assertThat(plan, containsString("PRIMARY_KEY"));
+        assertThat(plan, containsString("ID > ?1"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    @Test
+    public void testUnfinishedByDueDateUsesDoneDueDateIndex() {
+        // 2. Action
+        String plan = this.jdbcTemplate.queryForObject(
+            "EXPLAIN SELECT id FROM todo_full WHERE done = FALSE ORDER BY done, due_date LIMIT 6", String.class);
+
+        // 3. Assert
+        assertThat(plan, containsString("TODO_FULL_DONE_DUE_DATE"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+}
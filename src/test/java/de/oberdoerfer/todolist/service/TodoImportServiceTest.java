@@ -0,0 +1,88 @@
+package de.oberdoerfer.todolist.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.oberdoerfer.todolist.model.TodoImportReport;
+import de.oberdoerfer.todolist.storage.InMemoryTodoRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Imports todos into the memory storage, whose chunks are stored all or nothing as well
+ */
+public class TodoImportServiceTest {
+
+    private static final String TODO = "{\"title\":\"a\",\"dueDate\":\"2019-03-17T16:06:38Z\",\"done\":false}\n";
+
+    private InMemoryTodoRepository todoRepository;
+
+    private TodoImportService todoImportService;
+
+    private InputStream lines(int count) {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            ndjson.append(TODO);
+        }
+        return new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Before
+    public void setUp() {
+        this.todoRepository = new InMemoryTodoRepository();
+        this.todoImportService = new TodoImportService(new ObjectMapper().registerModule(new JavaTimeModule()), 2);
+        ReflectionTestUtils.setField(this.todoImportService, "todoRepository", this.todoRepository);
+        ReflectionTestUtils.setField(this.todoImportService, "validator",
+            Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @After
+    public void tearDown() {
+        this.todoImportService.close();
+    }
+
+    @Test
+    public void testImportChunks() throws IOException {
+        // 1. Arrange
+        AtomicInteger stored = new AtomicInteger();
+
+        // 2. Action
+        TodoImportReport report = this.todoImportService.importTodos(this.lines(3), stored::incrementAndGet);
+
+        // 3. Assert
+        assertThat(report.getImported(), is(3L));
+        assertThat(report.getFailed(), is(0L));
+        assertThat(stored.get(), is(2));
+        assertThat(this.todoRepository.count(), is(3L));
+    }
+
+    @Test
+    public void testImportChunkNotStored() throws IOException {
+        // 1. Arrange
+        ReflectionTestUtils.setField(this.todoRepository, "lastId", 999999);
+        AtomicInteger stored = new AtomicInteger();
+
+        // 2. Action
+        TodoImportReport report = this.todoImportService.importTodos(this.lines(2), stored::incrementAndGet);
+
+        // 3. Assert
+        assertThat(report.getImported(), is(0L));
+        assertThat(report.getFailed(), is(2L));
+        assertThat(report.getErrors().get(1).getMessage(), containsString("No todo identifiers left"));
+        assertThat(stored.get(), is(0));
+        assertThat(this.todoRepository.count(), is(0L));
+    }
+
+}
@@ -0,0 +1,354 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.OffsetPageRequest;
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class InMemoryTodoRepositoryTest {
+
+    /**
+     * Journal whose entries are completed by the test
+     */
+    private static final class PendingJournal implements TodoJournal {
+
+        private final BlockingQueue<CompletableFuture<Void>> entries = new LinkedBlockingQueue<>();
+
+        @Override
+        public void open(@NotNull Todos todos) {
+        }
+
+        @NotNull
+        @Override
+        public CompletableFuture<Void> put(@NotNull TodoFull todo) {
+            return this.append();
+        }
+
+        @NotNull
+        @Override
+        public CompletableFuture<Void> delete(int id) {
+            return this.append();
+        }
+
+        @NotNull
+        private CompletableFuture<Void> append() {
+            CompletableFuture<Void> entry = new CompletableFuture<>();
+            this.entries.add(entry);
+            return entry;
+        }
+
+        @NotNull
+        private CompletableFuture<Void> next() throws InterruptedException {
+            CompletableFuture<Void> entry = this.entries.poll(10, TimeUnit.SECONDS);
+            assertThat(entry, is(notNullValue()));
+            return entry;
+        }
+
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private InMemoryTodoRepository todoRepository;
+
+    private TodoFull save(String title, int day, boolean done) {
+        TodoFull todo = new TodoFull();
+        todo.setTitle(title);
+        todo.setDueDate(OffsetDateTime.of(2019, 3, day, 12, 0, 0, 0, ZoneOffset.UTC));
+        todo.setDone(done);
+        return this.todoRepository.save(todo);
+    }
+
+    /**
+     * Moves the todos into a snapshot mounted by a new repository
+     */
+    private void mountSnapshot() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("todos.snapshot");
+        TodoSnapshot.write(file, this.todoRepository.streamAll().iterator());
+        this.todoRepository = new InMemoryTodoRepository();
+        this.todoRepository.mount(TodoSnapshot.map(file));
+    }
+
+    private List<Integer> ids(Slice<TodoList> slice) {
+        return slice.getContent().stream().map(TodoList::getId).collect(Collectors.toList());
+    }
+
+    @Before
+    public void setUp() {
+        this.todoRepository = new InMemoryTodoRepository();
+        this.save("c", 3, false);
+        this.save("a", 1, true);
+        this.save("b", 2, false);
+        this.save("d", 1, false);
+    }
+
+    @Test
+    public void testSaveAssignsIdAndVersion() {
+        // 2. Action
+        TodoFull todo = this.save("e", 5, false);
+
+        // 3. Assert
+        assertThat(todo.getId(), is(5));
+        assertThat(todo.getVersion(), is(0));
+        assertThat(this.todoRepository.count(), is(5L));
+    }
+
+    @Test
+    public void testFindAllByDone() {
+        // 2. Action
+        Page<TodoFull> page = this.todoRepository.findAllByDone(false, new OffsetPageRequest(2, 1));
+
+        // 3. Assert
+        assertThat(page.getTotalElements(), is(3L));
+        assertThat(page.getContent().stream().map(TodoFull::getId).collect(Collectors.toList()), contains(3, 4));
+    }
+
+    @Test
+    public void testFindAllByDoneSortedByDueDate() {
+        // 2. Action
+        Page<TodoFull> page = this.todoRepository.findAllByDone(false, new PageRequest(0, 5, new Sort("dueDate")));
+
+        // 3. Assert
+        assertThat(page.getContent().stream().map(TodoFull::getTitle).collect(Collectors.toList()), contains("d", "b", "c"));
+    }
+
+    @Test
+    public void testFindAllSortedDescending() {
+        // 2. Action
+        Page<TodoFull> page = this.todoRepository.findAll(new PageRequest(0, 3, Sort.Direction.DESC, "title"));
+
+        // 3. Assert
+        assertThat(page.getTotalElements(), is(4L));
+        assertThat(page.getContent().stream().map(TodoFull::getTitle).collect(Collectors.toList()), contains("d", "c", "b"));
+    }
+
+    @Test
+    public void testFindListByDoneAndIdGreaterThan() {
+        // 2. Action
+        Slice<TodoList> slice = this.todoRepository.findListByDoneAndIdGreaterThan(false, 1, new PageRequest(0, 1));
+
+        // 3. Assert
+        assertThat(slice.hasNext(), is(true));
+        List<Integer> ids = slice.getContent().stream().map(TodoList::getId).collect(Collectors.toList());
+        assertThat(ids, contains(3));
+    }
+
+    @Test
+    public void testFindPageByDoneAndIdGreaterThan() {
+        // 2. Action
+        List<TodoFull> all = this.todoRepository.findPageByIdGreaterThan(1, new PageRequest(0, 2));
+        List<TodoFull> unfinished = this.todoRepository.findPageByDoneAndIdGreaterThan(false, 1, new PageRequest(0, 2));
+
+        // 3. Assert
+        assertThat(all.stream().map(TodoFull::getId).collect(Collectors.toList()), contains(2, 3));
+        assertThat(unfinished.stream().map(TodoFull::getId).collect(Collectors.toList()), contains(3, 4));
+    }
+
+    @Test
+    public void testUpdateByIdMovesIndexEntries() {
+        // 2. Action
+        int updated = this.todoRepository.updateById(1, "c", null, OffsetDateTime.of(2019, 3, 3, 12, 0, 0, 0, ZoneOffset.UTC), true);
+
+        // 3. Assert
+        assertThat(updated, is(1));
+        assertThat(this.todoRepository.findOne(1).getVersion(), is(1));
+        assertThat(this.todoRepository.findAllByDone(false, new PageRequest(0, 5)).getTotalElements(), is(2L));
+        assertThat(this.todoRepository.findListByDone(true, new PageRequest(0, 5)).getContent(), hasSize(2));
+    }
+
+    @Test
+    public void testFindOneReturnsCopy() {
+        // 1. Arrange
+        this.todoRepository.findOne(1).setTitle("modified");
+
+        // 3. Assert
+        assertThat(this.todoRepository.findOne(1).getTitle(), is("c"));
+    }
+
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    public void testSaveModifiedTodo() {
+        // 1. Arrange
+        TodoFull todo = this.todoRepository.findOne(1);
+        this.todoRepository.updateByIdAndVersion(1, 0, "x", null, todo.getDueDate(), false);
+
+        // 2. Action
+        this.todoRepository.save(todo);
+    }
+
+    @Test
+    public void testSaveBatchIdsExhausted() {
+        // 1. Arrange
+        ReflectionTestUtils.setField(this.todoRepository, "lastId", 999999);
+        TodoFull first = new TodoFull();
+        first.setTitle("e");
+        first.setDone(false);
+        TodoFull second = new TodoFull();
+        second.setTitle("f");
+        second.setDone(false);
+
+        // 2. Action
+        try {
+            this.todoRepository.save(Arrays.asList(first, second));
+            fail();
+        } catch (IllegalStateException e) {
+            // 3. Assert
+            assertThat(this.todoRepository.count(), is(4L));
+            assertThat(this.todoRepository.findOne(1000000), is(nullValue()));
+            assertThat(first.getId(), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testSaveBatchModifiedTodoJournaled() throws Exception {
+        // 1. Arrange
+        PendingJournal journal = new PendingJournal();
+        this.todoRepository.setJournal(journal);
+        TodoFull first = new TodoFull();
+        first.setTitle("e");
+        first.setDone(false);
+        TodoFull second = this.todoRepository.findOne(1);
+        second.setVersion(5);
+
+        // 2. Action
+        try {
+            this.todoRepository.save(Arrays.asList(first, second));
+            fail();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // 3. Assert
+            assertThat(journal.entries, is(empty()));
+            assertThat(this.todoRepository.count(), is(4L));
+            assertThat(this.todoRepository.findOne(5), is(nullValue()));
+        }
+    }
+
+    @Test(expected = EmptyResultDataAccessException.class)
+    public void testDeleteNotExisting() {
+        // 2. Action
+        this.todoRepository.delete(99);
+    }
+
+    @Test
+    public void testMountedSnapshot() throws IOException {
+        // 1. Arrange
+        this.mountSnapshot();
+
+        // 2. Action
+        TodoFull created = this.save("e", 5, false);
+
+        // 3. Assert
+        assertThat(created.getId(), is(5));
+        assertThat(this.todoRepository.count(), is(5L));
+        assertThat(this.todoRepository.findOne(3).getTitle(), is("b"));
+        assertThat(this.ids(this.todoRepository.findListBy(new PageRequest(0, 10))), contains(1, 2, 3, 4, 5));
+        assertThat(this.ids(this.todoRepository.findListByDoneAndIdGreaterThan(false, 1, new PageRequest(0, 10))),
+            contains(3, 4, 5));
+        Page<TodoFull> page = this.todoRepository.findAllByDone(false, new PageRequest(0, 5, new Sort("dueDate")));
+        assertThat(page.getContent().stream().map(TodoFull::getTitle).collect(Collectors.toList()),
+            contains("d", "b", "c", "e"));
+    }
+
+    @Test
+    public void testWritesShadowMountedSnapshot() throws IOException {
+        // 1. Arrange
+        this.mountSnapshot();
+
+        // 2. Action
+        this.todoRepository.updateById(1, "f", null, OffsetDateTime.of(2019, 3, 9, 12, 0, 0, 0, ZoneOffset.UTC), true);
+        this.todoRepository.delete(3);
+        this.todoRepository.updateById(4, "g", null, OffsetDateTime.of(2019, 3, 8, 12, 0, 0, 0, ZoneOffset.UTC), false);
+
+        // 3. Assert
+        assertThat(this.todoRepository.count(), is(3L));
+        assertThat(this.todoRepository.exists(3), is(false));
+        assertThat(this.todoRepository.findOne(1).getVersion(), is(1));
+        assertThat(this.ids(this.todoRepository.findListBy(new PageRequest(0, 10))), contains(1, 2, 4));
+        assertThat(this.ids(this.todoRepository.findListByDone(true, new PageRequest(0, 10))), contains(1, 2));
+        Page<TodoFull> page = this.todoRepository.findAllByDone(false, new PageRequest(0, 5, new Sort("dueDate")));
+        assertThat(page.getTotalElements(), is(1L));
+        assertThat(page.getContent().get(0).getTitle(), is("g"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMountIntoNonEmptyRepository() throws IOException {
+        // 1. Arrange
+        Path file = this.folder.getRoot().toPath().resolve("todos.snapshot");
+        TodoSnapshot.write(file, this.todoRepository.streamAll().iterator());
+
+        // 2. Action
+        this.todoRepository.mount(TodoSnapshot.map(file));
+    }
+
+    @Test
+    public void testJournaledWritePublishedOnceDurable() throws Exception {
+        // 1. Arrange
+        PendingJournal journal = new PendingJournal();
+        this.todoRepository.setJournal(journal);
+        CompletableFuture<TodoFull> saved = CompletableFuture.supplyAsync(() -> this.save("e", 5, false));
+        CompletableFuture<Void> entry = journal.next();
+        assertThat(this.todoRepository.findOne(5), is(nullValue()));
+        assertThat(this.todoRepository.count(), is(4L));
+
+        // 2. Action
+        entry.complete(null);
+        saved.join();
+
+        // 3. Assert
+        assertThat(this.todoRepository.findOne(5).getTitle(), is("e"));
+        assertThat(this.todoRepository.count(), is(5L));
+    }
+
+    @Test
+    public void testFailedJournaledWriteDropped() throws Exception {
+        // 1. Arrange
+        PendingJournal journal = new PendingJournal();
+        this.todoRepository.setJournal(journal);
+        TodoFull todo = this.todoRepository.findOne(1);
+        CompletableFuture<Integer> updated = CompletableFuture.supplyAsync(() -> this.todoRepository.updateById(1,
+            "x", null, todo.getDueDate(), true));
+        CompletableFuture<Void> entry = journal.next();
+
+        // 2. Action
+        entry.completeExceptionally(new IOException("No space left on device"));
+
+        // 3. Assert
+        try {
+            updated.join();
+            throw new AssertionError("The failed write was not reported");
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), is(instanceOf(DataAccessResourceFailureException.class)));
+        }
+        assertThat(this.todoRepository.findOne(1), is(todo));
+        assertThat(this.todoRepository.findOne(1).getVersion(), is(0));
+        assertThat(this.todoRepository.findAllByDone(true, new PageRequest(0, 5)).getTotalElements(), is(1L));
+    }
+
+}
@@ -0,0 +1,11 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.api.TodosApiControllerIntegrationTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the integration tests against the in-memory todo repository
+ */
+@ActiveProfiles("memory")
+public class InMemoryTodosApiControllerIntegrationTest extends TodosApiControllerIntegrationTest {
+}
@@ -0,0 +1,124 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class TodoSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TodoFull todo(int id, String title, int day, boolean done) {
+        TodoFull todo = new TodoFull();
+        todo.setId(id);
+        todo.setVersion(id * 10);
+        todo.setTitle(title);
+        todo.setDueDate(OffsetDateTime.of(2019, 3, day, 12, 0, 0, 123456789, ZoneOffset.ofHours(2)));
+        todo.setDone(done);
+        return todo;
+    }
+
+    private TodoSnapshot write(TodoFull... todos) throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("todos.snapshot");
+        TodoSnapshot.write(file, Arrays.asList(todos).iterator());
+        return TodoSnapshot.map(file);
+    }
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        // 1. Arrange
+        TodoFull first = todo(2, "Einkaufen", 3, false);
+        first.setDescription("Äpfel und Birnen");
+        TodoFull second = todo(5, "b", 1, true);
+
+        // 2. Action
+        TodoSnapshot snapshot = this.write(first, second);
+
+        // 3. Assert
+        assertThat(snapshot.size(), is(2));
+        assertThat(snapshot.lastId(), is(5));
+        assertThat(snapshot.todos().collect(Collectors.toList()), contains(first, second));
+        assertThat(snapshot.todo(0).getDueDate(), is(first.getDueDate()));
+        assertThat(snapshot.todo(0).getDueDate().getOffset(), is(ZoneOffset.ofHours(2)));
+        assertThat(snapshot.todo(1).getVersion(), is(50));
+        assertThat(snapshot.todo(1).getDescription(), is(nullValue()));
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        // 1. Arrange
+        TodoSnapshot snapshot = this.write(todo(2, "a", 1, false), todo(5, "b", 1, true), todo(7, "c", 1, false));
+
+        // 3. Assert
+        assertThat(snapshot.find(5), is(1));
+        assertThat(snapshot.find(6), is(-1));
+        assertThat(snapshot.find(1), is(-1));
+        assertThat(snapshot.after(0), is(0));
+        assertThat(snapshot.after(5), is(2));
+        assertThat(snapshot.after(7), is(3));
+        assertThat(snapshot.after(false, 2), is(1));
+    }
+
+    @Test
+    public void testOrders() throws IOException {
+        // 1. Arrange
+        TodoSnapshot snapshot = this.write(todo(1, "a", 3, false), todo(2, "b", 1, true), todo(3, "c", 2, false),
+            todo(4, "d", 2, false));
+
+        // 2. Action
+        List<Integer> unfinished = IntStream.range(0, snapshot.size(false))
+            .mapToObj(position -> snapshot.id(snapshot.idOrder(false, position))).collect(Collectors.toList());
+        List<Integer> dueDates = IntStream.range(0, snapshot.size(false))
+            .mapToObj(position -> snapshot.id(snapshot.dueDateOrder(false, position))).collect(Collectors.toList());
+
+        // 3. Assert
+        assertThat(unfinished, contains(1, 3, 4));
+        assertThat(dueDates, contains(3, 4, 1));
+        assertThat(snapshot.size(true), is(1));
+    }
+
+    @Test
+    public void testWriteEmpty() throws IOException {
+        // 2. Action
+        TodoSnapshot snapshot = this.write();
+
+        // 3. Assert
+        assertThat(snapshot.size(), is(0));
+        assertThat(snapshot.lastId(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteUnordered() throws IOException {
+        // 2. Action
+        this.write(todo(2, "a", 1, false), todo(1, "b", 1, false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapTruncated() throws IOException {
+        // 1. Arrange
+        Path file = this.folder.getRoot().toPath().resolve("todos.snapshot");
+        TodoSnapshot.write(file, Collections.singletonList(todo(1, "a", 1, false)).iterator());
+        Files.newByteChannel(file, StandardOpenOption.WRITE).truncate(Files.size(file) - 1).close();
+
+        // 2. Action
+        TodoSnapshot.map(file);
+    }
+
+}
@@ -0,0 +1,214 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import de.oberdoerfer.todolist.model.TodoIdGenerator;
+import de.oberdoerfer.todolist.model.TodoRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Exports the todos of the database to a snapshot and imports them again
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TodoSnapshotsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private TodoSnapshots todoSnapshots;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private TodoFull save(String title, boolean done) {
+        TodoFull todo = new TodoFull();
+        todo.setTitle(title);
+        todo.setDescription("Description of " + title);
+        todo.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 445123456, ZoneOffset.ofHours(2)));
+        todo.setDone(done);
+        return this.todoRepository.save(todo);
+    }
+
+    private TodoFull todo(int id, String title) {
+        TodoFull todo = new TodoFull();
+        todo.setId(id);
+        todo.setTitle(title);
+        todo.setDueDate(OffsetDateTime.of(2019, 3, 17, 16, 6, 38, 0, ZoneOffset.UTC));
+        todo.setDone(false);
+        todo.setVersion(0);
+        return todo;
+    }
+
+    @Test
+    public void testExportAndImport() throws IOException {
+        // 1. Arrange
+        TodoFull first = this.save("a", false);
+        TodoFull second = this.save("b", true);
+        this.todoRepository.updateById(second.getId(), "c", null, second.getDueDate(), true);
+        Path file = this.folder.getRoot().toPath().resolve("todos.snapshot");
+
+        // 2. Action
+        int exported = this.todoSnapshots.export(file);
+        this.todoRepository.deleteAll();
+        int imported = this.todoSnapshots.importSnapshot(file);
+
+        // 3. Assert
+        assertThat(exported, is(2));
+        assertThat(imported, is(2));
+        assertThat(this.todoRepository.findOne(first.getId()), is(first));
+        TodoFull restored = this.todoRepository.findOne(second.getId());
+        assertThat(restored.getTitle(), is("c"));
+        assertThat(restored.getDescription(), is((String) null));
+        assertThat(restored.getDueDate(), is(second.getDueDate()));
+        assertThat(restored.getVersion(), is(1));
+
+        // 4. Annihilate
+        this.todoRepository.deleteAll();
+    }
+
+    @Test
+    public void testRestoreMaxId() {
+        // 1. Arrange
+        TodoFull todo = this.todo(TodoIdGenerator.MAX_ID, "a");
+
+        // 2. Action
+        int restored = this.todoRepository.restore(Collections.singletonList(todo));
+
+        // 3. Assert
+        assertThat(restored, is(1));
+        assertThat(this.todoRepository.findOne(TodoIdGenerator.MAX_ID).getTitle(), is("a"));
+        assertThat(this.jdbcTemplate.queryForObject("select next value for " + TodoIdGenerator.SEQUENCE_NAME,
+            Integer.class), is(TodoIdGenerator.MAX_ID + 1));
+
+        // 4. Annihilate
+        this.todoRepository.deleteAll();
+        this.todoRepository.restore(Collections.emptyList());
+    }
+
+    @Test
+    public void testRestoreEvictsRestoredTodos() {
+        // 1. Arrange
+        TodoFull first = this.save("a", false);
+        TodoFull second = this.save("b", false);
+        this.todoRepository.findOne(first.getId());
+        this.todoRepository.findOne(second.getId());
+        Cache cache = this.cacheManager.getCache(TodoRepository.CACHE);
+
+        // 2. Action
+        this.todoRepository.restore(Collections.singletonList(this.todo(first.getId(), "c")));
+
+        // 3. Assert
+        assertThat(cache.get(first.getId()), is(nullValue()));
+        assertThat(cache.get(second.getId()), is(notNullValue()));
+        assertThat(this.todoRepository.findOne(first.getId()).getTitle(), is("c"));
+
+        // 4. Annihilate
+        this.todoRepository.deleteAll();
+    }
+
+    @Test
+    public void testSaveBatchEvictsSavedTodos() {
+        // 1. Arrange
+        TodoFull first = this.save("a", false);
+        TodoFull second = this.save("b", false);
+        this.todoRepository.findOne(first.getId());
+        this.todoRepository.findOne(second.getId());
+        Cache cache = this.cacheManager.getCache(TodoRepository.CACHE);
+        first.setTitle("c");
+
+        // 2. Action
+        this.todoRepository.save(Collections.singletonList(first));
+
+        // 3. Assert
+        assertThat(cache.get(first.getId()), is(nullValue()));
+        assertThat(cache.get(second.getId()), is(notNullValue()));
+        assertThat(this.todoRepository.findOne(first.getId()).getTitle(), is("c"));
+
+        // 4. Annihilate
+        this.todoRepository.deleteAll();
+    }
+
+    @Test
+    public void testRestoreIdTooLarge() {
+        // 1. Arrange
+        TodoFull valid = this.todo(1, "a");
+        TodoFull invalid = this.todo(TodoIdGenerator.MAX_ID + 1, "b");
+
+        // 2. Action
+        try {
+            this.todoRepository.restore(Arrays.asList(valid, invalid));
+            fail();
+        } catch (InvalidDataAccessApiUsageException e) {
+            // 3. Assert
+            assertThat(e.getCause().getMessage(), containsString(String.valueOf(TodoIdGenerator.MAX_ID + 1)));
+            assertThat(this.todoRepository.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void testIsPersistent() {
+        // 1. Arrange
+        MockEnvironment defaults = new MockEnvironment();
+        MockEnvironment memory = new MockEnvironment();
+        memory.setActiveProfiles("memory");
+        MockEnvironment wal = new MockEnvironment();
+        wal.setActiveProfiles("wal", "memory");
+        MockEnvironment h2Memory = new MockEnvironment().withProperty("spring.datasource.url", "jdbc:h2:mem:todos");
+        MockEnvironment h2File = new MockEnvironment().withProperty("spring.datasource.url", "jdbc:h2:file:./todos");
+
+        // 2. Action
+        // 3. Assert
+        assertThat(TodoSnapshots.isPersistent(defaults), is(false));
+        assertThat(TodoSnapshots.isPersistent(memory), is(false));
+        assertThat(TodoSnapshots.isPersistent(wal), is(true));
+        assertThat(TodoSnapshots.isPersistent(h2Memory), is(false));
+        assertThat(TodoSnapshots.isPersistent(h2File), is(true));
+    }
+
+    @Test
+    public void testVerifyPersistentInMemory() {
+        // 1. Arrange
+        // 2. Action
+        try {
+            this.todoSnapshots.verifyPersistent("export");
+            fail();
+        } catch (IllegalStateException e) {
+            // 3. Assert
+            assertThat(e.getMessage(), containsString("export"));
+            assertThat(e.getMessage(), containsString("wal"));
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.model.TodoFull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class WriteAheadLogTest {
+
+    /**
+     * Channel of a segment that fails writes after writing a part of the first buffer
+     */
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel channel;
+
+        private int failures;
+
+        FailingChannel(FileChannel channel, int failures) {
+            this.channel = channel;
+            this.failures = failures;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (this.failures == 0) {
+                return this.channel.write(srcs, offset, length);
+            }
+            this.failures--;
+            ByteBuffer part = srcs[offset].duplicate();
+            part.limit(part.position() + part.remaining() / 2);
+            this.channel.write(part);
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return this.channel.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return this.channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return this.channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return this.channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            this.channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return this.channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            this.channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            this.channel.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return this.channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return this.channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return this.channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return this.channel.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return this.channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return this.channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return this.channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private WriteAheadLog writeAheadLog;
+
+    private InMemoryTodoRepository todoRepository;
+
+    /**
+     * Opens the log of a directory with a new repository
+     *
+     * @param directory The directory of the log
+     */
+    private void open(Path directory) {
+        this.directory = directory;
+        this.writeAheadLog = new WriteAheadLog(directory.toString(), true, 0);
+        this.todoRepository = new InMemoryTodoRepository();
+        this.todoRepository.setJournal(this.writeAheadLog);
+    }
+
+    /**
+     * Copies the files of the log as left by a crash and closes the log
+     *
+     * @return The directory of the copy
+     */
+    private Path crash() throws IOException {
+        Path copy = this.folder.newFolder().toPath();
+        for (Path file : this.files("*")) {
+            Files.copy(file, copy.resolve(file.getFileName()));
+        }
+        this.writeAheadLog.close();
+        return copy;
+    }
+
+    private TodoFull save(String title, boolean done) {
+        TodoFull todo = new TodoFull();
+        todo.setTitle(title);
+        todo.setDescription("Description of " + title);
+        todo.setDueDate(OffsetDateTime.of(2019, 3, 1, 12, 0, 0, 123, ZoneOffset.ofHours(2)));
+        todo.setDone(done);
+        return this.todoRepository.save(todo);
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(file -> file.getFileSystem().getPathMatcher("glob:" + glob).matches(file.getFileName()))
+                .collect(Collectors.toList());
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.open(this.folder.newFolder().toPath());
+    }
+
+    @After
+    public void tearDown() {
+        this.writeAheadLog.close();
+    }
+
+    @Test
+    public void testRecoverFromLog() throws IOException {
+        // 1. Arrange
+        TodoFull first = this.save("a", false);
+        this.save("b", true);
+        this.save("c", false);
+        first.setDone(true);
+        this.todoRepository.save(first);
+        this.todoRepository.updateById(3, "d", null, first.getDueDate(), false);
+        this.todoRepository.deleteById(2);
+        Path crashed = this.crash();
+
+        // 2. Action
+        this.open(crashed);
+
+        // 3. Assert
+        assertThat(this.todoRepository.count(), is(2L));
+        assertThat(this.todoRepository.findOne(1), is(first));
+        assertThat(this.todoRepository.findOne(1).getVersion(), is(1));
+        assertThat(this.todoRepository.findOne(2), is(nullValue()));
+        assertThat(this.todoRepository.findOne(3).getTitle(), is("d"));
+        assertThat(this.todoRepository.findOne(3).getDescription(), is(nullValue()));
+        assertThat(this.save("e", false).getId(), is(4));
+    }
+
+    @Test
+    public void testRecoverTruncatesTornRecord() throws IOException {
+        // 1. Arrange
+        this.save("a", false);
+        this.save("b", false);
+        Path crashed = this.crash();
+        try (FileChannel channel = FileChannel.open(crashed.resolve(String.format("todos-%019d.log", 1)),
+            StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // 2. Action
+        this.open(crashed);
+
+        // 3. Assert
+        assertThat(this.todoRepository.count(), is(1L));
+        assertThat(this.todoRepository.findOne(1).getTitle(), is("a"));
+        assertThat(this.save("c", false).getId(), is(2));
+    }
+
+    @Test
+    public void testCloseWritesSnapshot() throws IOException {
+        // 1. Arrange
+        this.save("a", false);
+        this.save("b", false);
+        this.todoRepository.deleteById(2);
+        this.writeAheadLog.close();
+
+        // 2. Action
+        this.open(this.directory);
+
+        // 3. Assert
+        assertThat(this.files("snapshot-*.bin"), hasSize(1));
+        assertThat(this.files("todos-*.log"), hasSize(1));
+        assertThat(this.todoRepository.count(), is(1L));
+        assertThat(this.save("c", false).getId(), is(3));
+    }
+
+    @Test
+    public void testRecoverFromSnapshotAndLog() throws IOException {
+        // 1. Arrange
+        this.save("a", false);
+        this.save("b", false);
+        this.save("c", false);
+        this.todoRepository.deleteById(3);
+        this.writeAheadLog.snapshot();
+        this.save("d", true);
+        this.todoRepository.deleteById(1);
+        Path crashed = this.crash();
+
+        // 2. Action
+        this.open(crashed);
+
+        // 3. Assert
+        assertThat(this.todoRepository.count(), is(2L));
+        assertThat(this.todoRepository.findOne(2).getTitle(), is("b"));
+        assertThat(this.todoRepository.findOne(4).isDone(), is(true));
+        assertThat(this.save("e", false).getId(), is(5));
+        assertThat(this.files("snapshot-*.bin"), hasSize(1));
+        assertThat(this.files("todos-*.log"), hasSize(1));
+    }
+
+    @Test
+    public void testFailedWriteIsTruncated() throws IOException {
+        // 1. Arrange
+        this.save("a", false);
+        FileChannel channel = (FileChannel) ReflectionTestUtils.getField(this.writeAheadLog, "channel");
+        ReflectionTestUtils.setField(this.writeAheadLog, "channel", new FailingChannel(channel, 1));
+
+        // 2. Action
+        try {
+            this.save("b", false);
+            throw new AssertionError("The failed write was not reported");
+        } catch (DataAccessResourceFailureException e) {
+            // Expected
+        }
+        this.save("c", false);
+        Path crashed = this.crash();
+
+        // 3. Assert
+        assertThat(this.todoRepository.findOne(2), is(nullValue()));
+        this.open(crashed);
+        assertThat(this.todoRepository.count(), is(2L));
+        assertThat(this.todoRepository.findOne(1).getTitle(), is("a"));
+        assertThat(this.todoRepository.findOne(3).getTitle(), is("c"));
+    }
+
+    @Test
+    public void testFailedTruncateFailsFurtherWrites() throws IOException {
+        // 1. Arrange
+        this.save("a", false);
+        FileChannel channel = (FileChannel) ReflectionTestUtils.getField(this.writeAheadLog, "channel");
+        channel.close();
+
+        // 2. Action
+        int failed = 0;
+        for (String title : new String[] {"b", "c"}) {
+            try {
+                this.save(title, false);
+            } catch (DataAccessResourceFailureException e) {
+                failed++;
+            }
+        }
+        Path crashed = this.crash();
+
+        // 3. Assert
+        assertThat(failed, is(2));
+        this.open(crashed);
+        assertThat(this.todoRepository.count(), is(1L));
+        assertThat(this.todoRepository.findOne(1).getTitle(), is("a"));
+    }
+
+}
@@ -0,0 +1,13 @@
+package de.oberdoerfer.todolist.storage;
+
+import de.oberdoerfer.todolist.api.TodosApiControllerIntegrationTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the integration tests against the in-memory todo repository journaled by the write-ahead log
+ */
+@ActiveProfiles("wal")
+@TestPropertySource(properties = "todolist.wal.directory=target/wal-${random.uuid}")
+public class WriteAheadLogTodosApiControllerIntegrationTest extends TodosApiControllerIntegrationTest {
+}